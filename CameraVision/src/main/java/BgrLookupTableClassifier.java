@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+import org.opencv.core.*;
+import org.opencv.imgproc.*;
+
+/**
+ * Classify pixels with a lookup table indexed by quantized BGR color,
+ * instead of converting the whole image to HSV and then thresholding it.
+ * That is one pass over the image and no full size HSV intermediate.
+ *
+ * <p>The table holds, for every quantized color, whether the center of that
+ * color's bin is in the HSV ranges, as decided by OpenCV's own conversion.
+ * It is compiled the first time it is used and again only when the ranges
+ * change. Pixels near a range boundary can land on the other side of it
+ * than with the HSV threshold, so masks match to within the quantization.
+ * With 8 bits per channel there is no quantization and masks match exactly,
+ * at the cost of a 16MB table.
+ */
+public class BgrLookupTableClassifier implements IPixelClassifier {
+	public static final int DEFAULTBITSPERCHANNEL = 7;
+
+	private final int bitsPerChannel;
+	private final int shift;
+	private byte[] table;
+	private double[] tableHue;
+	private double[] tableSat;
+	private double[] tableVal;
+	// Reused between frames
+	private byte[] pixels = new byte[0];
+	private byte[] maskPixels = new byte[0];
+
+	/**
+	 * Construct a classifier with the default quantization.
+	 */
+	public BgrLookupTableClassifier() {
+		this(DEFAULTBITSPERCHANNEL);
+	}
+
+	/**
+	 * Construct a classifier.
+	 *
+	 * @param bitsPerChannel	Bits of each of blue, green and red to index the table with, 1 to 8.
+	 * 												The table has 2^(3*bitsPerChannel) entries.
+	 */
+	public BgrLookupTableClassifier(int bitsPerChannel) {
+		if (bitsPerChannel < 1 || bitsPerChannel > 8) {
+			throw new IllegalArgumentException("Bits per channel must be from 1 to 8.");
+		}
+		this.bitsPerChannel = bitsPerChannel;
+		this.shift = 8 - bitsPerChannel;
+	}
+
+	@Override
+	public void classify(Mat input, double[] hue, double[] sat, double[] val, Mat out) {
+		if (input.type() != CvType.CV_8UC3) {
+			throw new IllegalArgumentException("Input must be an 8 bit, 3 channel BGR image.");
+		}
+		if (table == null || !Arrays.equals(hue, tableHue) || !Arrays.equals(sat, tableSat) || !Arrays.equals(val, tableVal)) {
+			compile(hue, sat, val);
+		}
+		int pixelCount = input.rows() * input.cols();
+		if (pixels.length < pixelCount * 3) {
+			pixels = new byte[pixelCount * 3];
+			maskPixels = new byte[pixelCount];
+		}
+		input.get(0, 0, pixels);
+		final byte[] lookup = table;
+		final int greenShift = bitsPerChannel;
+		final int blueShift = 2 * bitsPerChannel;
+		for (int pixel = 0, channel = 0; pixel < pixelCount; pixel++, channel += 3) {
+			int blue = (pixels[channel] & 0xff) >> shift;
+			int green = (pixels[channel + 1] & 0xff) >> shift;
+			int red = (pixels[channel + 2] & 0xff) >> shift;
+			maskPixels[pixel] = lookup[(blue << blueShift) | (green << greenShift) | red];
+		}
+		out.create(input.rows(), input.cols(), CvType.CV_8UC1);
+		out.put(0, 0, maskPixels);
+	}
+
+	/**
+	 * Build the table by running the center color of every bin through the
+	 * HSV threshold.
+	 */
+	private void compile(double[] hue, double[] sat, double[] val) {
+		int levels = 1 << bitsPerChannel;
+		int center = (1 << shift) / 2;
+		// One row per blue and green, one column per red
+		byte[] colors = new byte[levels * levels * levels * 3];
+		int index = 0;
+		for (int blue = 0; blue < levels; blue++) {
+			for (int green = 0; green < levels; green++) {
+				for (int red = 0; red < levels; red++) {
+					colors[index++] = (byte) ((blue << shift) + center);
+					colors[index++] = (byte) ((green << shift) + center);
+					colors[index++] = (byte) ((red << shift) + center);
+				}
+			}
+		}
+		Mat colorImage = new Mat(levels * levels, levels, CvType.CV_8UC3);
+		colorImage.put(0, 0, colors);
+		Mat colorMask = new Mat();
+		new HsvThresholdClassifier().classify(colorImage, hue, sat, val, colorMask);
+		byte[] compiled = new byte[levels * levels * levels];
+		colorMask.get(0, 0, compiled);
+		colorImage.release();
+		colorMask.release();
+		table = compiled;
+		tableHue = hue.clone();
+		tableSat = sat.clone();
+		tableVal = val.clone();
+	}
+}
@@ -1,4 +1,21 @@
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.github.oxo42.stateless4j.StateMachine;
+import com.github.oxo42.stateless4j.StateMachineConfig;
+
 // TODO: Put this in common project shared between this and robot application
+/**
+ * The vision side of the camera control state machine. The robot owns the
+ * state machine and tells us its state through network tables, so the state
+ * here is set from that rather than moved by triggers. The transitions the
+ * HUD asks the robot for are configured so it can check a trigger makes sense
+ * in the current state before firing it.
+ *
+ * <p>Each state has a processing profile saying how much work to do on frames
+ * while in it. The state is set from a network tables listener and read by
+ * the processing stages, so it is kept in a volatile field.
+ */
 public class CameraControlStateMachine {
   /**
    * The valid states of the state machine.
@@ -13,4 +30,116 @@ public class CameraControlStateMachine {
   public enum Trigger {
     AButton, BButton, XButton, YButton, LockOn, FailedToLock, LoseLock, IdentifyTargets, Slew, LeftThumbstickButton, LeftShoulderButton, AutoLockLeft, AutoLockRight, AutoLockOn
   }
-}
\ No newline at end of file
+
+  private volatile State state = State.IdentifyingTargets;
+  private final StateMachine<State, Trigger> stateMachine;
+  private final Map<State, ProcessingProfile> processingProfiles = new EnumMap<State, ProcessingProfile>(State.class);
+
+  /**
+   * Construct the state machine in the IdentifyingTargets state, with the
+   * default processing profiles. A target is detected on every frame while
+   * being followed, on every other frame while picking one or between states,
+   * and not at all while calibrating.
+   */
+  public CameraControlStateMachine() {
+    StateMachineConfig<State, Trigger> config = new StateMachineConfig<State, Trigger>();
+    config.configure(State.SlewingToTarget)
+      .permit(Trigger.FailedToLock, State.LockFailed)
+      .permit(Trigger.IdentifyTargets, State.IdentifyingTargets);
+    config.configure(State.TargetLocked)
+      .permit(Trigger.LoseLock, State.LockLost);
+    config.configure(State.DrivingToTarget)
+      .permit(Trigger.LoseLock, State.LockLost);
+    config.configure(State.AutoLocked)
+      .permit(Trigger.LoseLock, State.LockLost);
+    config.configure(State.LockFailed)
+      .permit(Trigger.IdentifyTargets, State.IdentifyingTargets);
+    config.configure(State.LockLost)
+      .permit(Trigger.IdentifyTargets, State.IdentifyingTargets);
+    stateMachine = new StateMachine<State, Trigger>(State.IdentifyingTargets,
+      () -> state,
+      (newState) -> state = newState,
+      config);
+
+    for (State profiledState : State.values()) {
+      processingProfiles.put(profiledState, ProcessingProfile.REDUCEDRATE);
+    }
+    processingProfiles.put(State.SlewingToTarget, ProcessingProfile.FULLRATE);
+    processingProfiles.put(State.TargetLocked, ProcessingProfile.FULLRATE);
+    processingProfiles.put(State.DrivingToTarget, ProcessingProfile.FULLRATE);
+    processingProfiles.put(State.AutoLocked, ProcessingProfile.FULLRATE);
+    processingProfiles.put(State.Calibrating, ProcessingProfile.NODETECTION);
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Set the state the robot says it is in.
+   *
+   * @param state The state.
+   */
+  public void setState(State state) {
+    if (state == null) {
+      throw new IllegalArgumentException("State cannot be null.");
+    }
+    this.state = state;
+  }
+
+  /**
+   * Can the HUD ask the robot to fire a trigger in the current state?
+   *
+   * @param trigger The trigger.
+   * @return        True if the trigger moves the current state somewhere.
+   */
+  public boolean canFire(Trigger trigger) {
+    return stateMachine.canFire(trigger);
+  }
+
+  /**
+   * Is the state one where a single target is followed?
+   *
+   * @return  True if slewing to, locked on, or driving to a target.
+   */
+  public boolean isFollowingTarget() {
+    State currentState = state;
+    return currentState == State.SlewingToTarget
+      || currentState == State.TargetLocked
+      || currentState == State.DrivingToTarget
+      || currentState == State.AutoLocked;
+  }
+
+  /**
+   * Get how much work to do on frames in the current state.
+   *
+   * @return  The processing profile of the current state.
+   */
+  public ProcessingProfile getProcessingProfile() {
+    return processingProfiles.get(state);
+  }
+
+  /**
+   * Get how much work to do on frames in a state.
+   *
+   * @param state The state.
+   * @return      The processing profile of the state.
+   */
+  public ProcessingProfile getProcessingProfile(State state) {
+    return processingProfiles.get(state);
+  }
+
+  /**
+   * Change how much work to do on frames in a state. Profiles are set up
+   * before processing starts.
+   *
+   * @param state             The state.
+   * @param processingProfile The processing profile for it.
+   */
+  public void setProcessingProfile(State state, ProcessingProfile processingProfile) {
+    if (state == null || processingProfile == null) {
+      throw new IllegalArgumentException("State and processing profile cannot be null.");
+    }
+    processingProfiles.put(state, processingProfile);
+  }
+}
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+import org.opencv.core.RotatedRect;
+
+/**
+ * The rectangles found in a frame, stored as parallel arrays of primitives
+ * rather than as RotatedRect objects, so that pairs of them can be checked
+ * for being a hatch target without allocating anything. The arrays grow as
+ * needed and are reused from frame to frame, so a store is owned by one
+ * thread at a time.
+ */
+public class CandidateRectangles {
+  private static final int INITIALCAPACITY = 16;
+
+  private double[] centerX = new double[INITIALCAPACITY];
+  private double[] centerY = new double[INITIALCAPACITY];
+  private double[] width = new double[INITIALCAPACITY];
+  private double[] height = new double[INITIALCAPACITY];
+  private double[] angle = new double[INITIALCAPACITY];
+  private double[] area = new double[INITIALCAPACITY];
+  private int size;
+
+  /**
+   * Empty the store, keeping its arrays for the next frame.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Add a rectangle.
+   *
+   * @param rectangle The rectangle, such as a minAreaRect of a contour.
+   * @return          The index of the rectangle in the store.
+   */
+  public int add(RotatedRect rectangle) {
+    return add(rectangle.center.x, rectangle.center.y, rectangle.size.width, rectangle.size.height, rectangle.angle);
+  }
+
+  /**
+   * Add a rectangle.
+   *
+   * @return  The index of the rectangle in the store.
+   */
+  public int add(double centerX, double centerY, double width, double height, double angle) {
+    if (size == this.centerX.length) {
+      int capacity = size * 2;
+      this.centerX = Arrays.copyOf(this.centerX, capacity);
+      this.centerY = Arrays.copyOf(this.centerY, capacity);
+      this.width = Arrays.copyOf(this.width, capacity);
+      this.height = Arrays.copyOf(this.height, capacity);
+      this.angle = Arrays.copyOf(this.angle, capacity);
+      this.area = Arrays.copyOf(this.area, capacity);
+    }
+    this.centerX[size] = centerX;
+    this.centerY[size] = centerY;
+    this.width[size] = width;
+    this.height[size] = height;
+    this.angle[size] = angle;
+    this.area[size] = width * height;
+    return size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public double centerX(int index) {
+    return centerX[index];
+  }
+
+  public double centerY(int index) {
+    return centerY[index];
+  }
+
+  public double width(int index) {
+    return width[index];
+  }
+
+  public double height(int index) {
+    return height[index];
+  }
+
+  /**
+   * @return  The RotatedRect angle, from -90 up to 0 degrees.
+   */
+  public double angle(int index) {
+    return angle[index];
+  }
+
+  public double area(int index) {
+    return area[index];
+  }
+}
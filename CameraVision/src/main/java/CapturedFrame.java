@@ -0,0 +1,49 @@
+import org.opencv.core.Mat;
+
+/**
+ * An image grabbed from a camera along with the time cscore says it
+ * was captured, and when it was grabbed on our clock.
+ */
+public class CapturedFrame {
+    private final Mat image;
+    private final long timestamp;
+    private final long grabbedNanos;
+
+    /**
+     * Construct a captured frame grabbed now.
+     * 
+     * @param image     The grabbed image
+     * @param timestamp The cscore capture time, in microseconds, returned by grabFrame
+     */
+    public CapturedFrame(Mat image, long timestamp) {
+        this(image, timestamp, System.nanoTime());
+    }
+
+    /**
+     * Construct a captured frame.
+     * 
+     * @param image         The grabbed image
+     * @param timestamp     The cscore capture time, in microseconds, returned by grabFrame
+     * @param grabbedNanos  When grabFrame returned, from System.nanoTime()
+     */
+    public CapturedFrame(Mat image, long timestamp, long grabbedNanos) {
+        if (image == null) {
+            throw new IllegalArgumentException("image cannot be null");
+        }
+        this.image = image;
+        this.timestamp = timestamp;
+        this.grabbedNanos = grabbedNanos;
+    }
+
+    public Mat getImage() {
+        return image;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getGrabbedNanos() {
+        return grabbedNanos;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.EnumMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.networktables.NetworkTable;
+
+/**
+ * The inputs the drive team sets on the SmartDashboard: which way the robot
+ * is scoring, and where each camera is panned. Each is kept up to date by
+ * network tables listeners, so the frame loop only reads fields rather than
+ * looking up and parsing keys every frame. Each is also read once when
+ * constructed, after its listener is added so that no change is missed,
+ * unless the listener has already heard of one.
+ *
+ * <p>A scoring direction that is not one of ScoringDirection is ignored,
+ * keeping the last one that was.
+ */
+public class DashboardInputs {
+  /**
+   * The end of the robot that scores, and so the camera to process. With no
+   * scoring direction, the back camera is processed and not panned.
+   */
+  public enum ScoringDirection {
+    None, Front, Back
+  }
+
+  public static final String SCORINGDIRECTIONKEY = "Scoring Direction";
+  // Pan angles are reported from 0 to 180 degrees, centered at 90
+  public static final double PANANGLECENTER = 90;
+
+  private volatile ScoringDirection scoringDirection = ScoringDirection.Back;
+  // Set once the listener has set the scoring direction, guarded by this
+  private boolean scoringDirectionHeard = false;
+  private final Map<ScoringDirection, PanAngleHistory> panAngleHistories =
+    new EnumMap<ScoringDirection, PanAngleHistory>(ScoringDirection.class);
+
+  /**
+   * Read the inputs and listen for changes to them.
+   *
+   * @param smartDashboard  The smartdashboard network table, or null to keep
+   *                        the defaults of scoring Back with cameras centered.
+   */
+  public DashboardInputs(NetworkTable smartDashboard) {
+    panAngleHistories.put(ScoringDirection.Front, new PanAngleHistory());
+    panAngleHistories.put(ScoringDirection.Back, new PanAngleHistory());
+    if (smartDashboard == null) {
+      return;
+    }
+
+    smartDashboard.addTableListener(SCORINGDIRECTIONKEY, (table, key, value, isNew) -> {
+      synchronized (this) {
+        scoringDirectionHeard = true;
+        setScoringDirection(value);
+      }
+    }, false);
+    String initialScoringDirection = smartDashboard.getString(SCORINGDIRECTIONKEY, ScoringDirection.Back.toString());
+    synchronized (this) {
+      if (!scoringDirectionHeard) {
+        setScoringDirection(initialScoringDirection);
+      }
+    }
+
+    for (Map.Entry<ScoringDirection, PanAngleHistory> panAngleHistoryEntry : panAngleHistories.entrySet()) {
+      PanAngleHistory panAngleHistory = panAngleHistoryEntry.getValue();
+      String panAngleKey = getPanAngleKey(panAngleHistoryEntry.getKey());
+      smartDashboard.addTableListener(panAngleKey, (table, key, value, isNew) -> {
+        if (value instanceof Double) {
+          panAngleHistory.record(System.nanoTime(), (Double) value);
+        }
+      }, false);
+      // Start from the angle now, as it only gets recorded when it changes
+      panAngleHistory.recordFirst(System.nanoTime(), smartDashboard.getNumber(panAngleKey, PANANGLECENTER));
+    }
+  }
+
+  public ScoringDirection getScoringDirection() {
+    return scoringDirection;
+  }
+
+  /**
+   * Get the history of where the camera for a scoring direction has been panned.
+   *
+   * @param direction The scoring direction.
+   * @return          The pan angles reported, from 0 to 180 degrees, or null if
+   *                  the direction has no camera.
+   */
+  public PanAngleHistory getPanAngleHistory(ScoringDirection direction) {
+    return panAngleHistories.get(direction);
+  }
+
+  /**
+   * @param direction The scoring direction.
+   * @return          The smartdashboard key of the pan angle of its camera.
+   */
+  public static String getPanAngleKey(ScoringDirection direction) {
+    return String.format("%s Camera Pan Angle", direction);
+  }
+
+  /**
+   * Set the scoring direction from a network tables value, ignoring anything
+   * that is not the name of one.
+   *
+   * @param value The value.
+   */
+  private void setScoringDirection(Object value) {
+    for (ScoringDirection direction : ScoringDirection.values()) {
+      if (direction.toString().equals(value)) {
+        scoringDirection = direction;
+        return;
+      }
+    }
+    System.out.println(String.format("Ignoring scoring direction %s.", value));
+  }
+}
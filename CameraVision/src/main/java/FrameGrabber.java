@@ -0,0 +1,206 @@
+import edu.wpi.cscore.*;
+import org.opencv.core.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Continuously drains a CvSink on its own thread, keeping only the newest
+ * frame. ImagePump grabs only when asked, so a frame that arrived while we
+ * were busy waits in the cscore buffer and gets processed stale. Here the
+ * capture thread grabs as fast as the camera delivers, and each new frame
+ * replaces the one in a single slot, so whoever takes a frame gets the
+ * freshest one there is.
+ * 
+ * <p>The slot is an atomic reference swapped without locks. A frame that is
+ * replaced before it is taken is counted as dropped and handed back to the
+ * pool. A frame whose grabFrame timestamp is no newer than the last one
+ * grabbed is counted as a duplicate and never offered.
+ * 
+ * <p>Only one thread may take frames from a grabber.
+ */
+public class FrameGrabber {
+    /**
+     * The most pool Mats a running grabber holds at once: the one being
+     * grabbed into and the one waiting in the slot.
+     */
+    public static final int MAXFRAMESHELD = 2;
+
+    private final CvSink imageSink;
+    private final MatPool matPool;
+    private final AtomicReference<CapturedFrame> latestFrame = new AtomicReference<CapturedFrame>();
+    private final AtomicLong grabbedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong takenFrames = new AtomicLong();
+    private final AtomicLong duplicateFrames = new AtomicLong();
+    private volatile Thread taker;
+    private Thread grabThread;
+    // Only touched by the grab thread
+    private long lastTimestamp;
+
+    /**
+     * Drain an image sink into Mats leased from a pool.
+     * 
+     * @param imageSink The sink to grab frames from
+     * @param matPool   The pool to lease Mats from
+     */
+    public FrameGrabber(CvSink imageSink, MatPool matPool) {
+        if (imageSink == null) {
+            throw new IllegalArgumentException("imageSink cannot be null");
+        }
+        if (matPool == null) {
+            throw new IllegalArgumentException("matPool cannot be null");
+        }
+        this.imageSink = imageSink;
+        this.matPool = matPool;
+    }
+
+    /**
+     * Start grabbing frames.
+     * 
+     * @param name  Name to give the capture thread
+     */
+    public synchronized void start(String name) {
+        if (grabThread != null) {
+            throw new IllegalStateException("Grabber has already been started.");
+        }
+        grabThread = new Thread(this::grabFrames, name);
+        grabThread.setDaemon(true);
+        grabThread.start();
+    }
+
+    /**
+     * Stop grabbing frames and hand back the one waiting, if any.
+     */
+    public synchronized void stop() {
+        if (grabThread == null) {
+            return;
+        }
+        grabThread.interrupt();
+        try {
+            grabThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        CapturedFrame frame = latestFrame.getAndSet(null);
+        if (frame != null) {
+            matPool.release(frame.getImage());
+        }
+    }
+
+    /**
+     * Take the newest frame, waiting for one if none has arrived since the
+     * last take. The image must be handed back with release when done.
+     * 
+     * @return  The newest frame
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public CapturedFrame take() throws InterruptedException {
+        CapturedFrame frame = latestFrame.getAndSet(null);
+        if (frame != null) {
+            takenFrames.incrementAndGet();
+            return frame;
+        }
+        taker = Thread.currentThread();
+        try {
+            // The slot is checked again after announcing ourselves, so a frame
+            // offered in between is either seen here or unparks us.
+            while ((frame = latestFrame.getAndSet(null)) == null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.park(this);
+            }
+        } finally {
+            taker = null;
+        }
+        takenFrames.incrementAndGet();
+        return frame;
+    }
+
+    /**
+     * Take the newest frame if one has arrived since the last take.
+     * 
+     * @return  The newest frame, or null if there is none
+     */
+    public CapturedFrame poll() {
+        CapturedFrame frame = latestFrame.getAndSet(null);
+        if (frame != null) {
+            takenFrames.incrementAndGet();
+        }
+        return frame;
+    }
+
+    /**
+     * Hand a taken image back to the pool.
+     * 
+     * @param image The image of a frame returned from take or poll
+     */
+    public void release(Mat image) {
+        matPool.release(image);
+    }
+
+    /**
+     * @return  Frames grabbed and offered, whether or not they were taken
+     */
+    public long getGrabbedFrames() {
+        return grabbedFrames.get();
+    }
+
+    /**
+     * @return  Frames replaced by a newer one before they were taken
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * @return  Frames taken with take or poll
+     */
+    public long getTakenFrames() {
+        return takenFrames.get();
+    }
+
+    /**
+     * @return  Frames skipped because their timestamp was already seen
+     */
+    public long getDuplicateFrames() {
+        return duplicateFrames.get();
+    }
+
+    /**
+     * Grab frames into the slot until interrupted.
+     */
+    private void grabFrames() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Mat image;
+            try {
+                image = matPool.lease();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long timestamp = imageSink.grabFrame(image);
+            long grabbedNanos = System.nanoTime();
+            if (timestamp == 0) {
+                matPool.release(image);
+                System.out.println(imageSink.getError());
+            } else if (timestamp <= lastTimestamp) {
+                matPool.release(image);
+                duplicateFrames.incrementAndGet();
+            } else {
+                lastTimestamp = timestamp;
+                offer(new CapturedFrame(image, timestamp, grabbedNanos));
+            }
+        }
+    }
+
+    private void offer(CapturedFrame frame) {
+        grabbedFrames.incrementAndGet();
+        CapturedFrame staleFrame = latestFrame.getAndSet(frame);
+        if (staleFrame != null) {
+            matPool.release(staleFrame.getImage());
+            droppedFrames.incrementAndGet();
+        }
+        LockSupport.unpark(taker);
+    }
+}
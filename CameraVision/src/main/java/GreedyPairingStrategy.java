@@ -0,0 +1,39 @@
+import java.util.List;
+
+/**
+ * Pair rectangles left to right, taking each neighboring pair that makes a
+ * valid target as soon as it is found.
+ */
+public class GreedyPairingStrategy implements IPairingStrategy {
+	@Override
+	public void pair(CandidateRectangles candidates, 
+			CameraParameters cameraParameters, 
+			PairValidationStatistics statistics, 
+			List<HatchTarget> hatchTargets) {
+		int count = candidates.size();
+
+		// Must start with at least 2 rectangles
+		if (count >= 2) {
+			// Start with the first rectangle as the left-hand one
+			int left = 0;
+			int next = 1;
+			// Process while we have another rectangle left
+			while (next < count) {
+				int right = next++;
+				HatchTarget.PairValidation validation = HatchTarget.validate(candidates, left, right);
+				statistics.record(validation);
+				if (validation.isValid()) {
+					// It is a hatch target, so add it to the list
+					hatchTargets.add(new HatchTarget(candidates, left, right, cameraParameters));
+					// Move to the next target to examine
+					if (next < count) {
+						left = next++;
+					}
+				} else {
+					// It did not work, so move over one rectangle so we can try again
+					left = right;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,493 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.*;
+import org.opencv.imgproc.*;
+
+/**
+* GripHatchTargetPipeline class.
+*
+* <p>The steps of the OpenCV pipelines generated by GRIP for finding hatch
+* targets. The generated pipelines only differ by their settings, so each
+* camera specific pipeline sets those in its constructor and inherits the steps.
+* Each step can also be run on its own, which the benchmarks use to time them
+* separately.
+*
+* @author GRIP
+*/
+public abstract class GripHatchTargetPipeline implements IHatchTargetPipeline {
+
+	// Coarsest pyramid level detection can start at; 2 is quarter resolution
+	public static final int MAXPYRAMIDLEVEL = 2;
+
+	// Solidity percentage points candidates may be off by at a coarse pyramid level
+	private static final double PYRAMIDSOLIDITYSLOP = 15;
+
+	//Outputs
+	private Mat hsvThresholdOutput = new Mat();
+	private ArrayList<MatOfPoint> findContoursOutput = new ArrayList<MatOfPoint>();
+	private ArrayList<MatOfPoint> filterContoursOutput = new ArrayList<MatOfPoint>();
+
+	// Part of the frame to process, or null for all of it
+	private volatile Rect regionOfInterest;
+	// Pyramid level to find candidates at before refining, or 0 to process at full resolution
+	private volatile int pyramidLevel;
+	// How pixels are classified in the HSV threshold step
+	private IPixelClassifier pixelClassifier = new HsvThresholdClassifier();
+	// Where each frame's time in each step is recorded, or null to not time them
+	private volatile StageLatencies stageLatencies;
+	// Time spent in each step so far this frame
+	private long thresholdNanos;
+	private long contoursNanos;
+	private long filterNanos;
+	// Coarse to fine working storage
+	private Mat pyramidImage = new Mat();
+	private Mat regionMask = new Mat();
+	// Solidity bounds candidates are filtered with at a coarse pyramid level
+	private double[] pyramidSolidity;
+	// Find contours working storage
+	private final Mat hierarchy = new Mat();
+	// Filter contours working storage, reused so that no points are boxed per vertex
+	private final MatOfInt hull = new MatOfInt();
+	private final MatOfPoint2f perimeterContour = new MatOfPoint2f();
+	private int[] contourPoints = new int[0];
+	private int[] hullIndices = new int[0];
+	private ArrayList<MatOfPoint> candidateContours = new ArrayList<MatOfPoint>();
+	private ArrayList<MatOfPoint> filteredCandidateContours = new ArrayList<MatOfPoint>();
+	private ArrayList<MatOfPoint> refinedContours = new ArrayList<MatOfPoint>();
+
+	// Step HSV_Threshold0 settings
+	protected double[] hsvThresholdHue;
+	protected double[] hsvThresholdSaturation;
+	protected double[] hsvThresholdValue;
+
+	// Step Find_Contours0 settings
+	protected boolean findContoursExternalOnly;
+
+	// Step Filter_Contours0 settings
+	protected double filterContoursMinArea;
+	protected double filterContoursMinPerimeter;
+	protected double filterContoursMinWidth;
+	protected double filterContoursMaxWidth;
+	protected double filterContoursMinHeight;
+	protected double filterContoursMaxHeight;
+	protected double[] filterContoursSolidity;
+	protected double filterContoursMaxVertices;
+	protected double filterContoursMinVertices;
+	protected double filterContoursMinRatio;
+	protected double filterContoursMaxRatio;
+
+	static {
+		System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+	}
+
+	/**
+	 * This is the primary method that runs the entire pipeline and updates the outputs.
+	 */
+	@Override	public void process(Mat source0) {
+		thresholdNanos = 0;
+		contoursNanos = 0;
+		filterNanos = 0;
+		Rect roi = clampToFrame(regionOfInterest, source0);
+		int level = pyramidLevel;
+		if (roi == null) {
+			processContours(source0, new Point(), level);
+		} else {
+			// Process just the region and shift the contours found back into the frame
+			Mat region = source0.submat(roi);
+			processContours(region, roi.tl(), level);
+			region.release();
+		}
+		processFilterContours();
+		StageLatencies latencies = stageLatencies;
+		if (latencies != null) {
+			latencies.record(StageLatencies.Stage.Threshold, thresholdNanos);
+			latencies.record(StageLatencies.Stage.Contours, contoursNanos);
+			latencies.record(StageLatencies.Stage.Filter, filterNanos);
+		}
+	}
+
+	/**
+	 * Threshold and find contours, at full resolution or coarse to fine.
+	 */
+	private void processContours(Mat source, Point offset, int level) {
+		if (level == 0) {
+			processHsvThreshold(source);
+			processFindContours(offset);
+		} else {
+			processCoarseToFine(source, offset, level);
+		}
+	}
+
+	/**
+	 * Process at the given pyramid level, 1 for half and 2 for quarter resolution,
+	 * instead of at full resolution. Candidate contours are found on a downsample
+	 * of the source, then only the area around each candidate is thresholded and
+	 * contoured again at full resolution. Most of a frame never has tape in it, so
+	 * most of the full resolution color conversion is skipped.
+	 *
+	 * <p>Candidates are filtered with the area threshold scaled by the square of
+	 * the downsample, and the length thresholds and maximum vertex count scaled by
+	 * the downsample. Solidity is loosened since edges are coarse, ratio is kept,
+	 * and the minimum vertex count is dropped. The refined contours then go through
+	 * the full resolution filter as usual. Tape only a few pixels wide at the
+	 * pyramid level can be missed, so use the coarsest level only when targets are
+	 * not expected to be small in the frame.
+	 *
+	 * <p>When the pyramid level is set, hsvThresholdOutput holds the downsampled mask.
+	 *
+	 * @param level	The pyramid level, 1 to MAXPYRAMIDLEVEL, or 0 for full resolution only.
+	 */
+	public void setPyramidLevel(int level) {
+		if (level < 0 || level > MAXPYRAMIDLEVEL) {
+			throw new IllegalArgumentException(String.format("Pyramid level must be from 0 to %d.", MAXPYRAMIDLEVEL));
+		}
+		if (level > 0 && pyramidSolidity == null) {
+			pyramidSolidity = new double[] {filterContoursSolidity[0] - PYRAMIDSOLIDITYSLOP, filterContoursSolidity[1] + PYRAMIDSOLIDITYSLOP};
+		}
+		this.pyramidLevel = level;
+	}
+
+	public int getPyramidLevel() {
+		return pyramidLevel;
+	}
+
+	/**
+	 * Choose how the HSV threshold step classifies pixels, such as with a
+	 * BgrLookupTableClassifier instead of the GRIP conversion to HSV.
+	 *
+	 * @param pixelClassifier	The classifier to threshold with.
+	 */
+	public void setPixelClassifier(IPixelClassifier pixelClassifier) {
+		if (pixelClassifier == null) {
+			throw new IllegalArgumentException("Pixel classifier cannot be null.");
+		}
+		this.pixelClassifier = pixelClassifier;
+	}
+
+	/**
+	 * Record how long each step takes per frame. Coarse to fine steps run several
+	 * times a frame, so the time for each step is summed over the frame.
+	 *
+	 * @param stageLatencies	Where to record, or null to stop timing.
+	 */
+	public void setStageLatencies(StageLatencies stageLatencies) {
+		this.stageLatencies = stageLatencies;
+	}
+
+	/**
+	 * Find candidates at the pyramid level, then find contours at full
+	 * resolution around each of them into findContoursOutput.
+	 */
+	private void processCoarseToFine(Mat source, Point offset, int level) {
+		int scale = 1 << level;
+		// Nearest neighbor keeps pixel colors as they are, so the thresholds mean the same
+		Imgproc.resize(source, pyramidImage, new Size(), 1.0 / scale, 1.0 / scale, Imgproc.INTER_NEAREST);
+		processHsvThreshold(pyramidImage);
+		findContours(hsvThresholdOutput, findContoursExternalOnly, new Point(), candidateContours);
+		double lengthScale = 1.0 / scale;
+		double areaScale = lengthScale * lengthScale;
+		filterContours(candidateContours, 
+			filterContoursMinArea * areaScale, 
+			filterContoursMinPerimeter * lengthScale, 
+			filterContoursMinWidth * lengthScale, 
+			filterContoursMaxWidth * lengthScale, 
+			filterContoursMinHeight * lengthScale, 
+			filterContoursMaxHeight * lengthScale, 
+			pyramidSolidity, 
+			filterContoursMaxVertices * lengthScale, 
+			0, 
+			filterContoursMinRatio, 
+			filterContoursMaxRatio, 
+			filteredCandidateContours);
+
+		findContoursOutput.clear();
+		for (Rect candidateRegion : candidateRegions(filteredCandidateContours, scale, source)) {
+			Mat region = source.submat(candidateRegion);
+			hsvThreshold(region, hsvThresholdHue, hsvThresholdSaturation, hsvThresholdValue, regionMask);
+			findContours(regionMask, findContoursExternalOnly, 
+				new Point(offset.x + candidateRegion.x, offset.y + candidateRegion.y), refinedContours);
+			findContoursOutput.addAll(refinedContours);
+			region.release();
+		}
+	}
+
+	/**
+	 * Scale the bounds of candidate contours up to full resolution, padded by a
+	 * downsampled pixel and more so edges lost to downsampling are covered, and
+	 * merge any that overlap so that no contour is found twice.
+	 */
+	private static List<Rect> candidateRegions(List<MatOfPoint> candidates, int scale, Mat source) {
+		ArrayList<Rect> regions = new ArrayList<Rect>();
+		int padding = scale + 1;
+		for (MatOfPoint candidate : candidates) {
+			Rect bounds = Imgproc.boundingRect(candidate);
+			Rect region = clampToSize(new Rect(
+				bounds.x * scale - padding, 
+				bounds.y * scale - padding, 
+				bounds.width * scale + 2 * padding, 
+				bounds.height * scale + 2 * padding), source.cols(), source.rows());
+			if (region != null) {
+				regions.add(region);
+			}
+		}
+		// Merge until no two regions overlap
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int i = 0; i < regions.size() && !merged; i++) {
+				for (int j = i + 1; j < regions.size() && !merged; j++) {
+					if (overlap(regions.get(i), regions.get(j))) {
+						regions.set(i, union(regions.get(i), regions.get(j)));
+						regions.remove(j);
+						merged = true;
+					}
+				}
+			}
+		}
+		return regions;
+	}
+
+	private static boolean overlap(Rect a, Rect b) {
+		return a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height;
+	}
+
+	private static Rect union(Rect a, Rect b) {
+		int left = Math.min(a.x, b.x);
+		int top = Math.min(a.y, b.y);
+		int right = Math.max(a.x + a.width, b.x + b.width);
+		int bottom = Math.max(a.y + a.height, b.y + b.height);
+		return new Rect(left, top, right - left, bottom - top);
+	}
+
+	/**
+	 * Only process the given part of the frames that follow. Contours are
+	 * still reported in full-frame coordinates.
+	 *
+	 * @param regionOfInterest	The part of the frame to process, or null for all of it.
+	 */
+	@Override
+	public void setRegionOfInterest(Rect regionOfInterest) {
+		this.regionOfInterest = regionOfInterest == null ? null : regionOfInterest.clone();
+	}
+
+	/**
+	 * Get the part of the frame being processed.
+	 *
+	 * @return	The region of interest, or null if the whole frame is processed.
+	 */
+	public Rect getRegionOfInterest() {
+		Rect roi = regionOfInterest;
+		return roi == null ? null : roi.clone();
+	}
+
+	/**
+	 * Trim a region to the frame.
+	 *
+	 * @param region	The region of interest, or null.
+	 * @param frame		The frame to be processed.
+	 * @return	The part of the region inside the frame, or null if the whole
+	 * 					frame should be processed.
+	 */
+	private static Rect clampToFrame(Rect region, Mat frame) {
+		if (region == null) {
+			return null;
+		}
+		Rect clamped = clampToSize(region, frame.cols(), frame.rows());
+		if (clamped == null || (clamped.width == frame.cols() && clamped.height == frame.rows())) {
+			return null;
+		}
+		return clamped;
+	}
+
+	/**
+	 * Trim a region to the given size.
+	 *
+	 * @return	The part of the region inside, or null if none of it is.
+	 */
+	private static Rect clampToSize(Rect region, int cols, int rows) {
+		int left = Math.max(region.x, 0);
+		int top = Math.max(region.y, 0);
+		int right = Math.min(region.x + region.width, cols);
+		int bottom = Math.min(region.y + region.height, rows);
+		if (right <= left || bottom <= top) {
+			return null;
+		}
+		return new Rect(left, top, right - left, bottom - top);
+	}
+
+	/**
+	 * Step HSV_Threshold0: threshold the source into hsvThresholdOutput.
+	 */
+	void processHsvThreshold(Mat source0) {
+		Mat hsvThresholdInput = source0;
+		hsvThreshold(hsvThresholdInput, hsvThresholdHue, hsvThresholdSaturation, hsvThresholdValue, hsvThresholdOutput);
+	}
+
+	/**
+	 * Step Find_Contours0: find contours of hsvThresholdOutput into findContoursOutput.
+	 */
+	void processFindContours() {
+		processFindContours(new Point());
+	}
+
+	/**
+	 * Step Find_Contours0, shifting every contour point by offset, such as
+	 * the top left of the region of interest thresholded.
+	 */
+	void processFindContours(Point offset) {
+		Mat findContoursInput = hsvThresholdOutput;
+		findContours(findContoursInput, findContoursExternalOnly, offset, findContoursOutput);
+	}
+
+	/**
+	 * Step Filter_Contours0: filter findContoursOutput into filterContoursOutput.
+	 */
+	void processFilterContours() {
+		ArrayList<MatOfPoint> filterContoursContours = findContoursOutput;
+		filterContours(filterContoursContours, filterContoursMinArea, filterContoursMinPerimeter, filterContoursMinWidth, filterContoursMaxWidth, filterContoursMinHeight, filterContoursMaxHeight, filterContoursSolidity, filterContoursMaxVertices, filterContoursMinVertices, filterContoursMinRatio, filterContoursMaxRatio, filterContoursOutput);
+	}
+
+	/**
+	 * This method is a generated getter for the output of a HSV_Threshold.
+	 * @return Mat output from HSV_Threshold.
+	 */
+	public Mat hsvThresholdOutput() {
+		return hsvThresholdOutput;
+	}
+
+	/**
+	 * This method is a generated getter for the output of a Find_Contours.
+	 * @return ArrayList<MatOfPoint> output from Find_Contours.
+	 */
+	public ArrayList<MatOfPoint> findContoursOutput() {
+		return findContoursOutput;
+	}
+
+	/**
+	 * This method is a generated getter for the output of a Filter_Contours.
+	 * @return ArrayList<MatOfPoint> output from Filter_Contours.
+	 */
+	public ArrayList<MatOfPoint> filterContoursOutput() {
+		return filterContoursOutput;
+	}
+
+
+	/**
+	 * Segment an image based on hue, saturation, and value ranges.
+	 *
+	 * @param input The image on which to perform the HSL threshold.
+	 * @param hue The min and max hue
+	 * @param sat The min and max saturation
+	 * @param val The min and max value
+	 * @param output The image in which to store the output.
+	 */
+	private void hsvThreshold(Mat input, double[] hue, double[] sat, double[] val,
+	    Mat out) {
+		long start = System.nanoTime();
+		pixelClassifier.classify(input, hue, sat, val, out);
+		thresholdNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Sets the values of pixels in a binary image to their distance to the nearest black pixel.
+	 * @param input The image on which to perform the Distance Transform.
+	 * @param type The Transform.
+	 * @param maskSize the size of the mask.
+	 * @param offset Shift applied to every contour point.
+	 * @param output The image in which to store the output.
+	 */
+	private void findContours(Mat input, boolean externalOnly, Point offset,
+		List<MatOfPoint> contours) {
+		long start = System.nanoTime();
+		contours.clear();
+		int mode;
+		if (externalOnly) {
+			mode = Imgproc.RETR_EXTERNAL;
+		}
+		else {
+			mode = Imgproc.RETR_LIST;
+		}
+		int method = Imgproc.CHAIN_APPROX_SIMPLE;
+		Imgproc.findContours(input, contours, hierarchy, mode, method, offset);
+		contoursNanos += System.nanoTime() - start;
+	}
+
+
+	/**
+	 * Filters out contours that do not meet certain criteria.
+	 * @param inputContours is the input list of contours
+	 * @param output is the the output list of contours
+	 * @param minArea is the minimum area of a contour that will be kept
+	 * @param minPerimeter is the minimum perimeter of a contour that will be kept
+	 * @param minWidth minimum width of a contour
+	 * @param maxWidth maximum width
+	 * @param minHeight minimum height
+	 * @param maxHeight maximimum height
+	 * @param Solidity the minimum and maximum solidity of a contour
+	 * @param minVertexCount minimum vertex Count of the contours
+	 * @param maxVertexCount maximum vertex Count
+	 * @param minRatio minimum ratio of width to height
+	 * @param maxRatio maximum ratio of width to height
+	 */
+	private void filterContours(List<MatOfPoint> inputContours, double minArea,
+		double minPerimeter, double minWidth, double maxWidth, double minHeight, double
+		maxHeight, double[] solidity, double maxVertexCount, double minVertexCount, double
+		minRatio, double maxRatio, List<MatOfPoint> output) {
+		long start = System.nanoTime();
+		output.clear();
+		//operation
+		for (int i = 0; i < inputContours.size(); i++) {
+			final MatOfPoint contour = inputContours.get(i);
+			final Rect bb = Imgproc.boundingRect(contour);
+			if (bb.width < minWidth || bb.width > maxWidth) continue;
+			if (bb.height < minHeight || bb.height > maxHeight) continue;
+			final double area = Imgproc.contourArea(contour);
+			if (area < minArea) continue;
+			// A perimeter is never negative, so only measure it when there is a minimum
+			if (minPerimeter > 0) {
+				contour.convertTo(perimeterContour, CvType.CV_32F);
+				if (Imgproc.arcLength(perimeterContour, true) < minPerimeter) continue;
+			}
+			final int vertexCount = contour.rows();
+			if (vertexCount < minVertexCount || vertexCount > maxVertexCount)	continue;
+			final double ratio = bb.width / (double)bb.height;
+			if (ratio < minRatio || ratio > maxRatio) continue;
+			final double solid = 100 * area / convexHullArea(contour);
+			if (solid < solidity[0] || solid > solidity[1]) continue;
+			output.add(contour);
+		}
+		filterNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Get the area of the convex hull of a contour. The contour points and
+	 * hull indices are copied out in bulk, and the area of the hull is summed
+	 * with the shoelace formula, as contourArea does, in exact integer math.
+	 *
+	 * @param contour	The contour.
+	 * @return				The area enclosed by its convex hull.
+	 */
+	private double convexHullArea(MatOfPoint contour) {
+		Imgproc.convexHull(contour, hull);
+		final int vertexCount = contour.rows();
+		final int hullCount = hull.rows();
+		if (contourPoints.length < vertexCount * 2) {
+			contourPoints = new int[vertexCount * 2];
+		}
+		if (hullIndices.length < hullCount) {
+			hullIndices = new int[hullCount];
+		}
+		contour.get(0, 0, contourPoints);
+		hull.get(0, 0, hullIndices);
+		long twiceArea = 0;
+		int previous = hullIndices[hullCount - 1] * 2;
+		for (int j = 0; j < hullCount; j++) {
+			int current = hullIndices[j] * 2;
+			twiceArea += (long) contourPoints[previous] * contourPoints[current + 1] 
+				- (long) contourPoints[previous + 1] * contourPoints[current];
+			previous = current;
+		}
+		return Math.abs(twiceArea) * 0.5;
+	}
+}
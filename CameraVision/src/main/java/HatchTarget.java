@@ -9,7 +9,13 @@ import org.opencv.core.Point;
 
 /**
  * Encapsulate those characteristics specific to a hatch target, given
- * the rectangles that make it a target.
+ * the rectangles that make it a target. The rectangles are kept as
+ * primitive values rather than as RotatedRect objects.
+ * 
+ * A hatch target is immutable. The HUD and annotator ask for the same
+ * derived values many times per frame, so each is worked out the first time
+ * it is asked for and kept. Targets are read from more than one thread, so
+ * a value may now and then be worked out twice, but always to the same answer.
  */
 public class HatchTarget {
 //  private final double HATCHTARGETWIDTHININCHES = 14.5; // School mock target
@@ -17,9 +23,27 @@ public class HatchTarget {
   private final double TAPEHEIGHTININCHES = 5.5; // Per rule book
   private final double TAPEWIDTHININCHES = 2.0; // Per rule book
   private final double TAPEAREAININCHES = TAPEHEIGHTININCHES * TAPEWIDTHININCHES;
-  private RotatedRect leftRectangle;
-  private RotatedRect rightRectangle;
-  private CameraParameters cameraParameters;
+  // The target rectangles, kept as primitives
+  private final double leftCenterX;
+  private final double leftCenterY;
+  private final double leftWidth;
+  private final double leftHeight;
+  private final double leftAngle;
+  private final double rightCenterX;
+  private final double rightCenterY;
+  private final double rightWidth;
+  private final double rightHeight;
+  private final double rightAngle;
+  private final CameraParameters cameraParameters;
+  // Trig on the camera parameters, worked out once at construction
+  private final double widthAngleFraction;
+  private final double heightAngleFraction;
+  private final double aspectRadiansPerPixel;
+  // Derived values, worked out on first use
+  private volatile RotatedRect targetRectangle;
+  private volatile Point center;
+  private volatile double rangeInInches = Double.NaN;
+  private volatile double aspectAngleInRadians = Double.NaN;
 
   /**
    * Custom exception to indicate an invalid set of rotation
@@ -38,6 +62,35 @@ public class HatchTarget {
     }
   }
 
+  /**
+   * The outcome of checking whether two rectangles make a hatch target,
+   * naming the first rule a rejected pair broke.
+   */
+  public enum PairValidation {
+    Valid(null),
+    TiltedTooMuch("Target rectangles are tilted by too much."),
+    NotTilted("Rectangles are not tilted."),
+    Horizontal("Rectangles are horizontal."),
+    NotTiltedInward("Target rectangles are not tilted inward."),
+    TooFarApart("Target rectangles are too far apart.");
+
+    private final String message;
+
+    PairValidation(String message) {
+      this.message = message;
+    }
+
+    public boolean isValid() {
+      return this == Valid;
+    }
+
+    /**
+     * @return  Why the rectangles are not a target, or null if they are.
+     */
+    public String getMessage() {
+      return message;
+    }
+  }
 
   /**
    * Construct a hatch target given the interior targeting rectangles.
@@ -50,69 +103,175 @@ public class HatchTarget {
       RotatedRect rightRectangle,
       CameraParameters cameraParameters) throws TargetRectanglesException {
       
-    this.leftRectangle = leftRectangle;
-    this.rightRectangle = rightRectangle;
+    this(leftRectangle.center.x, leftRectangle.center.y, 
+      leftRectangle.size.width, leftRectangle.size.height, leftRectangle.angle, 
+      rightRectangle.center.x, rightRectangle.center.y, 
+      rightRectangle.size.width, rightRectangle.size.height, rightRectangle.angle, 
+      cameraParameters);
+    PairValidation validation = validate(leftCenterX, leftCenterY, leftWidth, leftHeight, leftAngle, 
+      rightCenterX, rightCenterY, rightWidth, rightHeight, rightAngle);
+    if (!validation.isValid()) {
+      throw new TargetRectanglesException(validation.getMessage());
+    }
+  }
+
+  /**
+   * Construct a hatch target from a pair of candidate rectangles that
+   * validate has already accepted. The values are copied, so the candidates
+   * can be reused for the next frame.
+   * 
+   * @param candidates        The candidate rectangles of a frame.
+   * @param left              Index of the left hand side rectangle.
+   * @param right             Index of the right hand side rectangle.
+   * @param cameraParameters  The camera the frame came from.
+   */
+  HatchTarget(CandidateRectangles candidates, int left, int right, CameraParameters cameraParameters) {
+    this(candidates.centerX(left), candidates.centerY(left), 
+      candidates.width(left), candidates.height(left), candidates.angle(left), 
+      candidates.centerX(right), candidates.centerY(right), 
+      candidates.width(right), candidates.height(right), candidates.angle(right), 
+      cameraParameters);
+  }
+
+  private HatchTarget(double leftCenterX, double leftCenterY, 
+      double leftWidth, double leftHeight, double leftAngle,
+      double rightCenterX, double rightCenterY, 
+      double rightWidth, double rightHeight, double rightAngle,
+      CameraParameters cameraParameters) {
+    this.leftCenterX = leftCenterX;
+    this.leftCenterY = leftCenterY;
+    this.leftWidth = leftWidth;
+    this.leftHeight = leftHeight;
+    this.leftAngle = leftAngle;
+    this.rightCenterX = rightCenterX;
+    this.rightCenterY = rightCenterY;
+    this.rightWidth = rightWidth;
+    this.rightHeight = rightHeight;
+    this.rightAngle = rightAngle;
     this.cameraParameters = cameraParameters;
-    validateTargetRectangles();
+    this.widthAngleFraction = Math.atan(cameraParameters.getWidthTanTheta()) / (2*3.14159);
+    this.heightAngleFraction = Math.atan(cameraParameters.getHeightTanTheta()) / (2*3.14159);
+    this.aspectRadiansPerPixel = Math.atan(cameraParameters.getDiagonalTanTheta()) / cameraParameters.getFOVPixelDiagonal();
+  }
+
+  /**
+   * Do two candidate rectangles make a hatch target? This makes the same checks
+   * as constructing a HatchTarget, straight from the primitive candidate values,
+   * so that pairs can be tried without allocating anything or throwing.
+   * 
+   * @param candidates  The candidate rectangles of a frame.
+   * @param left        Index of the left hand side rectangle.
+   * @param right       Index of the right hand side rectangle.
+   * @return            Valid, or the first rule the pair broke.
+   */
+  public static PairValidation validate(CandidateRectangles candidates, int left, int right) {
+    return validate(candidates.centerX(left), candidates.centerY(left), 
+      candidates.width(left), candidates.height(left), candidates.angle(left), 
+      candidates.centerX(right), candidates.centerY(right), 
+      candidates.width(right), candidates.height(right), candidates.angle(right));
   }
 
   /**
    * Check that the rectangles are pointing at each other on top
-   * of the target, and if they are close enough to be a valid target. Throw an exception otherwise.
+   * of the target, and if they are close enough to be a valid target.
    * To learn how opencv determines this magic:
    * 
    * @see https://namkeenman.wordpress.com/2015/12/18/open-cv-determine-angle-of-rotatedrect-minarearect/
 
-   * @throws TargetRectanglesException   Exception thrown if rectangle angles or width is not valid.
+   * @return  Valid, or the first rule the rectangles broke.
    */
-  private void validateTargetRectangles() throws TargetRectanglesException {
-    //System.out.println("  leftWidth: " + leftRectangle.size.width + ", leftHeight: " + leftRectangle.size.height);
-    //System.out.println("  rightWidth: " + rightRectangle.size.width + ", rightHeight: " + rightRectangle.size.height);
-    //System.out.println("  leftAngle: " + leftRectangle.angle + ", rightAngle: " + rightRectangle.angle);
-    
+  private static PairValidation validate(double leftCenterX, double leftCenterY, 
+      double leftWidth, double leftHeight, double leftAngle,
+      double rightCenterX, double rightCenterY, 
+      double rightWidth, double rightHeight, double rightAngle) {
+    double centerX = (leftCenterX + rightCenterX) * 0.5;
+    double widthInPx = Math.abs(leftCenterX - rightCenterX);
+    double pxToInches = pxToInchesConversion(centerX, leftCenterX, leftWidth, rightWidth, widthInPx);
+
     // The rectangles shouldn't be tilted more than around 20deg.
-//    if ((pxToInchesConversion(center().x) * Math.abs(leftRectangle.center.y - rightRectangle.center.y)) > 2) {
+//    if ((pxToInches * Math.abs(leftCenterY - rightCenterY)) > 2) {
     // This was a little too restrictive, so relax a little bit.
-    if ((pxToInchesConversion(center().x) * Math.abs(leftRectangle.center.y - rightRectangle.center.y)) > 3) {
-    //      System.out.println("Target is tilted by too much.");
-      throw new TargetRectanglesException("Target rectangles are tilted by too much.");
+    if ((pxToInches * Math.abs(leftCenterY - rightCenterY)) > 3) {
+      return PairValidation.TiltedTooMuch;
     }
 
     // The point of the 0th vertex (which is the lowest point, also the greatest y value)
     // is the pivot point. RotatedRect angle measures, going counterclockwise, the angle formed
     // by horizontal and the right hand size of the vertex connected to the point. And oh yeah,
     // the angle gets more negative until reaching -90 degrees.
-    if ((leftRectangle.angle > -55 || leftRectangle.angle == -90) || rightRectangle.angle < -25 || rightRectangle.angle == -0) {
-//      System.out.println("Rectangles are not tilted.");
-//      System.out.println("  leftWidth: " + leftRectangle.size.width + ", leftHeight: " + leftRectangle.size.height);
-//      System.out.println("  rightWidth: " + rightRectangle.size.width + ", rightHeight: " + rightRectangle.size.height);
-//      System.out.println("  leftAngle: " + leftRectangle.size.width + ", rightAngle: " + rightRectangle.angle);
-      throw new TargetRectanglesException("Rectangles are not tilted.");
+    if ((leftAngle > -55 || leftAngle == -90) || rightAngle < -25 || rightAngle == -0) {
+      return PairValidation.NotTilted;
     }
 
     // The rectangles should have the shorter sides on top and bottom.
-    if ((normalize(leftRectangle).width > normalize(leftRectangle).height) || (normalize(rightRectangle).width > normalize(rightRectangle).height)) {
-//      System.out.println("Rectangles are horizontal.");
-      throw new TargetRectanglesException("Rectangles are horizontal.");
+    if (isHorizontal(leftWidth, leftHeight, leftAngle) || isHorizontal(rightWidth, rightHeight, rightAngle)) {
+      return PairValidation.Horizontal;
     }
 
     // The left-hand rectangle angle should be MORE negative than the right
     // And add a comfortable offset so that we don't pick up two lefts where
     // the left-left is slightly more tilted than the right-left.
-    if ((leftRectangle.angle + 30) > rightRectangle.angle) {
-//      System.out.println("Target rectangles are not tilted inward.");
-      throw new TargetRectanglesException("Target rectangles are not tilted inward.");
+    if ((leftAngle + 30) > rightAngle) {
+      return PairValidation.NotTiltedInward;
     }
     
     // The distance between centers when the camera is perpendicular should be ~11.4 inches.
-    if ((widthInPx() * pxToInchesConversion(center().x)) > 15) {
-//      System.out.println("Target rectangles are too far apart.");
-      throw new TargetRectanglesException("Target rectangles are too far apart.");
+    if ((widthInPx * pxToInches) > 15) {
+      return PairValidation.TooFarApart;
     }
+    return PairValidation.Valid;
+  }
+
+  /**
+   * Score how much a valid pair of candidate rectangles looks like a real
+   * target. The tapes of a target are level with each other and about the same
+   * distance away, so they should be about the same length.
+   * 
+   * @param candidates  The candidate rectangles of a frame.
+   * @param left        Index of the left hand side rectangle.
+   * @param right       Index of the right hand side rectangle.
+   * @return            From 1 for a perfect target down toward 0.
+   */
+  public static double score(CandidateRectangles candidates, int left, int right) {
+    double leftCenterX = candidates.centerX(left);
+    double rightCenterX = candidates.centerX(right);
+    double pxToInches = pxToInchesConversion((leftCenterX + rightCenterX) * 0.5, 
+      leftCenterX, candidates.width(left), candidates.width(right), Math.abs(leftCenterX - rightCenterX));
+    double levelErrorInInches = pxToInches * Math.abs(candidates.centerY(left) - candidates.centerY(right));
+    double leftLength = Math.max(candidates.width(left), candidates.height(left));
+    double rightLength = Math.max(candidates.width(right), candidates.height(right));
+    double lengthRatio = Math.min(leftLength, rightLength) / Math.max(leftLength, rightLength);
+    return lengthRatio / (1 + levelErrorInInches);
+  }
+
+  /**
+   * Is the normalized width of a rectangle greater than its height?
+   * 
+   * @see #normalize(RotatedRect)
+   */
+  private static boolean isHorizontal(double width, double height, double angle) {
+    return angle < -45 ? height > width : width > height;
+  }
+
+  /**
+   * The pixel to inch conversion at a position between the two rectangles.
+   * 
+   * @see #pxToInchesConversion(double)
+   */
+  private static double pxToInchesConversion(double centerPos, double leftCenterX, 
+      double leftWidth, double rightWidth, double widthInPx) {
+    double pxIn2Inches = ( (((rightWidth - leftWidth) / (widthInPx)) * (centerPos - leftCenterX)) + leftWidth);
+    return (2 / pxIn2Inches);
   }
 
   public Point center() {
-    return new Point((leftRectangle.center.x + rightRectangle.center.x) * 0.5, (leftRectangle.center.y + rightRectangle.center.y) * 0.5);
+    Point center = this.center;
+    if (center == null) {
+      center = new Point((leftCenterX + rightCenterX) * 0.5, (leftCenterY + rightCenterY) * 0.5);
+      this.center = center;
+    }
+    // Hand out a copy so that the target cannot be changed through it
+    return center.clone();
   }
 
   /**
@@ -121,17 +280,26 @@ public class HatchTarget {
    * @see https://wpilib.screenstepslive.com/s/3120/m/8731/l/90361-identifying-and-processing-the-targets
    */
   public double rangeInInches() {
-    RotatedRect rect = targetRectangle();
+    double rangeInInches = this.rangeInInches;
+    if (Double.isNaN(rangeInInches)) {
+      rangeInInches = computeRangeInInches();
+      this.rangeInInches = rangeInInches;
+    }
+    return rangeInInches;
+  }
+
+  private double computeRangeInInches() {
+    RotatedRect rect = cachedTargetRectangle();
     // Get length and width for both targeting rectangles
-    double size = leftRectangle.size.height + leftRectangle.size.width + rightRectangle.size.height + rightRectangle.size.width;
+    double size = leftHeight + leftWidth + rightHeight + rightWidth;
 
     // Adjust to compensate for image not in center of frame horizontally
     double percentageOffCenterHorizontal = (Math.abs((0.5 * cameraParameters.getFOVPixelWidth()) - rect.center.x)) / (0.5 * cameraParameters.getFOVPixelWidth());
-    double deltaSize = (size * percentageOffCenterHorizontal * (Math.atan(cameraParameters.getWidthTanTheta()) / (2*3.14159)));
+    double deltaSize = (size * percentageOffCenterHorizontal * widthAngleFraction);
 
     // Adjust to compensate for image not in center of frame vertically
     double percentageOffCenterVertical = (Math.abs((0.5 * cameraParameters.getFOVPixelHeight()) - rect.center.y)) / (0.5 * cameraParameters.getFOVPixelHeight());
-    deltaSize = deltaSize + (size * percentageOffCenterVertical * (Math.atan(cameraParameters.getHeightTanTheta()) / (2*3.14159)));
+    deltaSize = deltaSize + (size * percentageOffCenterVertical * heightAngleFraction);
 
     // Adjust for aspect angle
     deltaSize = deltaSize + (size * (aspectAngleInRadians() / (2*3.14159)));
@@ -144,12 +312,17 @@ public class HatchTarget {
   }
 
   public double aspectAngleInRadians() {
-    double pixelDifference = Math.abs(leftRectangle.size.area() - rightRectangle.size.area());
-    return pixelDifference * (Math.atan(cameraParameters.getDiagonalTanTheta()) / cameraParameters.getFOVPixelDiagonal());
+    double aspectAngleInRadians = this.aspectAngleInRadians;
+    if (Double.isNaN(aspectAngleInRadians)) {
+      double pixelDifference = Math.abs((leftWidth * leftHeight) - (rightWidth * rightHeight));
+      aspectAngleInRadians = pixelDifference * aspectRadiansPerPixel;
+      this.aspectAngleInRadians = aspectAngleInRadians;
+    }
+    return aspectAngleInRadians;
   }
 
   public double getLeftAndRightRectangleAreaInPixels() {
-    return leftRectangle.size.area() + rightRectangle.size.area();
+    return (leftWidth * leftHeight) + (rightWidth * rightHeight);
   }
 
   public double getTapeToFOVPixelAreaRatio() {
@@ -176,8 +349,7 @@ public class HatchTarget {
 
     //centerPos should be in the center of your thing you want to measure, so that the difference in width
     //due to view averages out.
-    double pxIn2Inches = ( (((rightRectangle.size.width - leftRectangle.size.width) / (widthInPx())) * (centerPos - leftRectangle.center.x)) + leftRectangle.size.width);
-    return (2 / pxIn2Inches);
+    return pxToInchesConversion(centerPos, leftCenterX, leftWidth, rightWidth, widthInPx());
   }
 
   /**
@@ -197,7 +369,7 @@ public class HatchTarget {
    * @return width between target's centers. (px) 
    */
   public double widthInPx() {
-    return (Math.abs(leftRectangle.center.x - rightRectangle.center.x));
+    return (Math.abs(leftCenterX - rightCenterX));
   }
 
   /**
@@ -232,7 +404,7 @@ public class HatchTarget {
    */
   private Point[] getLeftRectangleVerticies() {
     Point[] vertices = new Point[4];
-    leftRectangle.points(vertices);
+    leftRectangle().points(vertices);
     return vertices;
   }
 
@@ -244,30 +416,38 @@ public class HatchTarget {
    */
   private Point[] getRightRectangleVerticies() {
     Point[] vertices = new Point[4];
-    rightRectangle.points(vertices);
+    rightRectangle().points(vertices);
     return vertices;
   }
 
   private double getAverageTapePixelHeight() {
-    double rightRectangleHeight = rightRectangle.size.width > rightRectangle.size.height ? rightRectangle.size.width : rightRectangle.size.height;
-    double leftRectangleHeight = leftRectangle.size.width > leftRectangle.size.height ? leftRectangle.size.width : leftRectangle.size.height;
+    double rightRectangleHeight = rightWidth > rightHeight ? rightWidth : rightHeight;
+    double leftRectangleHeight = leftWidth > leftHeight ? leftWidth : leftHeight;
     return (rightRectangleHeight + leftRectangleHeight) / 2;
   }
 
   private double getAverageTapePixelWidth() {
-    double rightRectangleWidth = rightRectangle.size.width < rightRectangle.size.height ? rightRectangle.size.width : rightRectangle.size.height;
-    double leftRectangleWidth = leftRectangle.size.width < leftRectangle.size.height ? leftRectangle.size.width : leftRectangle.size.height;
+    double rightRectangleWidth = rightWidth < rightHeight ? rightWidth : rightHeight;
+    double leftRectangleWidth = leftWidth < leftHeight ? leftWidth : leftHeight;
     return (rightRectangleWidth + leftRectangleWidth) / 2;
   }
 
   private RotatedRect getRectangleClosestToFOVCenter() {
-    return Math.abs(cameraParameters.getFOVPixelWidth() - leftRectangle.center.x) < Math.abs(cameraParameters.getFOVPixelWidth() - rightRectangle.center.x) 
-      ? leftRectangle : rightRectangle;
+    return Math.abs(cameraParameters.getFOVPixelWidth() - leftCenterX) < Math.abs(cameraParameters.getFOVPixelWidth() - rightCenterX) 
+      ? leftRectangle() : rightRectangle();
+  }
+
+  private RotatedRect leftRectangle() {
+    return new RotatedRect(new Point(leftCenterX, leftCenterY), new Size(leftWidth, leftHeight), leftAngle);
+  }
+
+  private RotatedRect rightRectangle() {
+    return new RotatedRect(new Point(rightCenterX, rightCenterY), new Size(rightWidth, rightHeight), rightAngle);
   }
 
   private double getTotalTapePixelWidth() {
-    double rightRectangleWidth = rightRectangle.size.width < rightRectangle.size.height ? rightRectangle.size.width : rightRectangle.size.height;
-    double leftRectangleWidth = leftRectangle.size.width < leftRectangle.size.height ? leftRectangle.size.width : leftRectangle.size.height;
+    double rightRectangleWidth = rightWidth < rightHeight ? rightWidth : rightHeight;
+    double leftRectangleWidth = leftWidth < leftHeight ? leftWidth : leftHeight;
     return leftRectangleWidth + rightRectangleWidth;
   }
 
@@ -305,6 +485,18 @@ public class HatchTarget {
    * @return  The best fit rotated rectangle.
    */
   public RotatedRect targetRectangle() {
-    return Imgproc.minAreaRect(new MatOfPoint2f(concat(getLeftRectangleVerticies(), getRightRectangleVerticies())));
+    // Hand out a copy so that the target cannot be changed through it
+    return cachedTargetRectangle().clone();
+  }
+
+  private RotatedRect cachedTargetRectangle() {
+    RotatedRect targetRectangle = this.targetRectangle;
+    if (targetRectangle == null) {
+      MatOfPoint2f vertices = new MatOfPoint2f(concat(getLeftRectangleVerticies(), getRightRectangleVerticies()));
+      targetRectangle = Imgproc.minAreaRect(vertices);
+      vertices.release();
+      this.targetRectangle = targetRectangle;
+    }
+    return targetRectangle;
   }
 }
\ No newline at end of file
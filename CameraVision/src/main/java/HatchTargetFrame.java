@@ -0,0 +1,414 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.RotatedRect;
+import org.opencv.core.Size;
+
+/**
+ * The interpreted result of one processed frame.  It is built once by
+ * the pipeline interpreter, right after the pipeline has processed the
+ * frame, and every question asked about that frame reads from here
+ * instead of re-running minAreaRect and pairing.
+ *
+ * Instances are immutable; the lists handed out cannot be modified.
+ */
+public class HatchTargetFrame {
+	// Upsize target rectangles by 30% to add some slop for slewing
+	public static final double DEFAULTSLOPFACTOR = 1.3;
+
+	private final long sequenceNumber;
+	private final CameraParameters cameraParameters;
+	private final List<RotatedRect> rectangles;
+	private final List<HatchTarget> hatchTargets;
+	private final List<Point> hatchTargetCenters;
+	private final List<Point> hatchTargetCentersClosestToFOVCenter;
+	private final double slopFactor;
+	// Targets as the tracker follows them, or null if the frame has not been tracked
+	private final List<TrackedTarget> trackedTargets;
+	// The captured image the targets were found in, or 0 if not known
+	private final long frameNumber;
+	private final long captureTimestamp;
+	private final long grabbedNanos;
+	// Built the first time a point is looked up
+	private volatile TargetIndex targetIndex;
+
+	/**
+	 * Construct a frame result, finding targets from points with the default slop.
+	 *
+	 * @param sequenceNumber		Monotonically increasing number of the interpreted frame.
+	 * @param cameraParameters	The camera parameters the targets were computed with.
+	 * @param rectangles				Best fit rectangles for each filtered contour.
+	 * @param hatchTargets			Hatch targets identified, ordered left to right.
+	 */
+	public HatchTargetFrame(long sequenceNumber,
+			CameraParameters cameraParameters,
+			List<RotatedRect> rectangles,
+			List<HatchTarget> hatchTargets) {
+		this(sequenceNumber, cameraParameters, rectangles, hatchTargets, DEFAULTSLOPFACTOR);
+	}
+
+	/**
+	 * Construct a frame result.
+	 *
+	 * @param sequenceNumber		Monotonically increasing number of the interpreted frame.
+	 * @param cameraParameters	The camera parameters the targets were computed with.
+	 * @param rectangles				Best fit rectangles for each filtered contour.
+	 * @param hatchTargets			Hatch targets identified, ordered left to right.
+	 * @param slopFactor				How much to upsize targets by when finding them from a point.
+	 */
+	public HatchTargetFrame(long sequenceNumber,
+			CameraParameters cameraParameters,
+			List<RotatedRect> rectangles,
+			List<HatchTarget> hatchTargets,
+			double slopFactor) {
+		if (cameraParameters == null) {
+			throw new IllegalArgumentException("Camera parameters cannot be null.");
+		}
+		if (!(slopFactor > 0)) {
+			throw new IllegalArgumentException("Slop factor must be greater than 0.");
+		}
+		this.slopFactor = slopFactor;
+		this.sequenceNumber = sequenceNumber;
+		this.cameraParameters = cameraParameters;
+		this.rectangles = Collections.unmodifiableList(new ArrayList<RotatedRect>(rectangles));
+		this.hatchTargets = Collections.unmodifiableList(new ArrayList<HatchTarget>(hatchTargets));
+		this.hatchTargetCenters = Collections.unmodifiableList(computeHatchTargetCenters());
+		this.hatchTargetCentersClosestToFOVCenter = Collections.unmodifiableList(computeHatchTargetCentersClosestToFOVCenter());
+		this.trackedTargets = null;
+		this.frameNumber = 0;
+		this.captureTimestamp = 0;
+		this.grabbedNanos = 0;
+	}
+
+	/**
+	 * Construct a copy of a frame result with tracked targets and capture details.
+	 */
+	private HatchTargetFrame(HatchTargetFrame frame,
+			List<TrackedTarget> trackedTargets,
+			long frameNumber,
+			long captureTimestamp,
+			long grabbedNanos) {
+		this.sequenceNumber = frame.sequenceNumber;
+		this.cameraParameters = frame.cameraParameters;
+		this.rectangles = frame.rectangles;
+		this.hatchTargets = frame.hatchTargets;
+		this.hatchTargetCenters = frame.hatchTargetCenters;
+		this.hatchTargetCentersClosestToFOVCenter = frame.hatchTargetCentersClosestToFOVCenter;
+		this.slopFactor = frame.slopFactor;
+		this.targetIndex = frame.targetIndex;
+		this.trackedTargets = trackedTargets;
+		this.frameNumber = frameNumber;
+		this.captureTimestamp = captureTimestamp;
+		this.grabbedNanos = grabbedNanos;
+	}
+
+	/**
+	 * Get a frame with nothing in it, for before anything has been interpreted.
+	 *
+	 * @param cameraParameters	The camera parameters in effect.
+	 * @return									A frame with no rectangles and no targets.
+	 */
+	public static HatchTargetFrame empty(CameraParameters cameraParameters) {
+		return new HatchTargetFrame(0, cameraParameters, new ArrayList<RotatedRect>(), new ArrayList<HatchTarget>());
+	}
+
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	public CameraParameters getCameraParameters() {
+		return cameraParameters;
+	}
+
+	public List<RotatedRect> getRectangles() {
+		return rectangles;
+	}
+
+	public List<HatchTarget> getHatchTargets() {
+		return hatchTargets;
+	}
+
+	public List<Point> getHatchTargetCenters() {
+		return hatchTargetCenters;
+	}
+
+	public List<Point> getHatchTargetCentersClosestToFOVCenter() {
+		return hatchTargetCentersClosestToFOVCenter;
+	}
+
+	public boolean targetsFound() {
+		return !hatchTargets.isEmpty();
+	}
+
+	public long targetCount() {
+		return hatchTargets.size();
+	}
+
+	public double getSlopFactor() {
+		return slopFactor;
+	}
+
+	/**
+	 * Get this frame with the targets as the tracker follows them.
+	 *
+	 * @param trackedTargets	The tracked targets, including those coasting through this frame.
+	 * @return								A copy of this frame that is tracked.
+	 */
+	public HatchTargetFrame withTrackedTargets(List<TrackedTarget> trackedTargets) {
+		return new HatchTargetFrame(this, 
+			Collections.unmodifiableList(new ArrayList<TrackedTarget>(trackedTargets)), 
+			frameNumber, 
+			captureTimestamp, 
+			grabbedNanos);
+	}
+
+	/**
+	 * Get this frame with the details of the image its targets were found in,
+	 * so that whoever reads the targets can tell how old they are.
+	 *
+	 * @param frameNumber				Number of the captured image, counting from 1.
+	 * @param captureTimestamp	The cscore capture time of the image, in microseconds.
+	 * @param grabbedNanos			When the image was grabbed, from System.nanoTime().
+	 * @return									A copy of this frame with the capture details.
+	 */
+	public HatchTargetFrame withCapture(long frameNumber, long captureTimestamp, long grabbedNanos) {
+		return new HatchTargetFrame(this, trackedTargets, frameNumber, captureTimestamp, grabbedNanos);
+	}
+
+	/**
+	 * @return	True if the capture details of the image are known.
+	 */
+	public boolean isCaptured() {
+		return frameNumber > 0;
+	}
+
+	/**
+	 * @return	Number of the captured image the targets were found in, or 0 if not known.
+	 */
+	public long getFrameNumber() {
+		return frameNumber;
+	}
+
+	/**
+	 * @return	The cscore capture time of the image, in microseconds, or 0 if not known.
+	 */
+	public long getCaptureTimestamp() {
+		return captureTimestamp;
+	}
+
+	/**
+	 * @return	When the image was grabbed, from System.nanoTime(), or 0 if not known.
+	 */
+	public long getGrabbedNanos() {
+		return grabbedNanos;
+	}
+
+	/**
+	 * Get how long ago the image the targets were found in was grabbed.
+	 *
+	 * @return	The age in milliseconds, or 0 if not known.
+	 */
+	public double getLatencyMillis() {
+		return isCaptured() ? (System.nanoTime() - grabbedNanos) / 1e6 : 0;
+	}
+
+	/**
+	 * @return	True if the targets of this frame have been tracked.
+	 */
+	public boolean isTracked() {
+		return trackedTargets != null;
+	}
+
+	/**
+	 * @return	The tracked targets, or an empty list if the frame has not been tracked.
+	 */
+	public List<TrackedTarget> getTrackedTargets() {
+		return trackedTargets == null ? Collections.<TrackedTarget>emptyList() : trackedTargets;
+	}
+
+	/**
+	 * Find a tracked target by its ID.
+	 *
+	 * @param id	The ID.
+	 * @return		The tracked target, or null if it is no longer tracked.
+	 */
+	public TrackedTarget getTrackedTarget(int id) {
+		for (TrackedTarget trackedTarget : getTrackedTargets()) {
+			if (trackedTarget.getId() == id) {
+				return trackedTarget;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the tracked target for a hatch target found in this frame.
+	 *
+	 * @param hatchTarget	The hatch target.
+	 * @return						The tracked target, or null if the frame has not been tracked.
+	 */
+	public TrackedTarget getTrackedTarget(HatchTarget hatchTarget) {
+		for (TrackedTarget trackedTarget : getTrackedTargets()) {
+			if (trackedTarget.getHatchTarget() == hatchTarget) {
+				return trackedTarget;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the hatch target containing a point, with some slop around each
+	 * target so that a point from a previous frame still finds a target that
+	 * has moved a little. The upsized target bounds are indexed the first time
+	 * this is called, so later calls for the same frame do not allocate.
+	 *
+	 * @param point	The point, such as the center of a target last frame, or null.
+	 * @return			The first hatch target, left to right, containing the point.
+	 * @throws TargetNotFoundException	If no target contains the point, or it is null.
+	 */
+	public HatchTarget getHatchTargetFromPoint(Point point) throws TargetNotFoundException {
+		// No point is selected yet, such as when the robot sets a following state itself
+		if (point == null || hatchTargets.isEmpty()) {
+			throw new TargetNotFoundException("No hatch target found containing point.");
+		}
+		TargetIndex index = targetIndex;
+		if (index == null) {
+			index = new TargetIndex();
+			targetIndex = index;
+		}
+		int target = index.find(point.x, point.y);
+		if (target < 0) {
+			// Otherwise bail and let consumer know
+			throw new TargetNotFoundException("No hatch target found containing point.");
+		}
+		return hatchTargets.get(target);
+	}
+
+	/**
+	 * The upsized bounds of each target, sorted by their left edge so that
+	 * finding the targets a point could be in is a binary search.
+	 */
+	private class TargetIndex {
+		// Sorted by left edge; right and bottom edges are exclusive like Rect.contains
+		private final double[] left;
+		private final double[] right;
+		private final double[] top;
+		private final double[] bottom;
+		// Index of the target in hatchTargets
+		private final int[] target;
+		// The furthest right edge of any bounds up to and including this one
+		private final double[] furthestRight;
+
+		TargetIndex() {
+			int count = hatchTargets.size();
+			Rect[] bounds = new Rect[count];
+			Integer[] order = new Integer[count];
+			for (int index = 0; index < count; index++) {
+				bounds[index] = upsizedBounds(hatchTargets.get(index));
+				order[index] = index;
+			}
+			Arrays.sort(order, (a, b) -> Integer.compare(bounds[a].x, bounds[b].x));
+
+			left = new double[count];
+			right = new double[count];
+			top = new double[count];
+			bottom = new double[count];
+			target = new int[count];
+			furthestRight = new double[count];
+			for (int index = 0; index < count; index++) {
+				Rect rect = bounds[order[index]];
+				left[index] = rect.x;
+				right[index] = rect.x + rect.width;
+				top[index] = rect.y;
+				bottom[index] = rect.y + rect.height;
+				target[index] = order[index];
+				furthestRight[index] = index == 0 ? right[index] : Math.max(furthestRight[index - 1], right[index]);
+			}
+		}
+
+		/**
+		 * @return	The first target, left to right, whose bounds contain the point, or -1.
+		 */
+		int find(double x, double y) {
+			// Find how many bounds start at or before x...
+			int low = 0;
+			int high = left.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (left[middle] <= x) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			// ...and look back through them until none can reach past x
+			int found = -1;
+			for (int index = low - 1; index >= 0 && furthestRight[index] > x; index--) {
+				if (x < right[index] && top[index] <= y && y < bottom[index] 
+						&& (found < 0 || target[index] < found)) {
+					found = target[index];
+				}
+			}
+			return found;
+		}
+
+		private Rect upsizedBounds(HatchTarget hatchTarget) {
+			RotatedRect originalRectangle = hatchTarget.targetRectangle();
+
+			// Upsize the rectangle, keeping its sides as they are so it grows in place
+			RotatedRect upsizedRectangle = new RotatedRect(
+				new Point(originalRectangle.center.x, originalRectangle.center.y),
+				new Size(originalRectangle.size.width * slopFactor, originalRectangle.size.height * slopFactor), 
+				originalRectangle.angle);
+			return upsizedRectangle.boundingRect();
+		}
+	}
+
+	private ArrayList<Point> computeHatchTargetCenters() {
+		ArrayList<Point> centers = new ArrayList<Point>();
+		for (HatchTarget hatchTarget : hatchTargets) {
+			centers.add(hatchTarget.center());
+		}
+		return centers;
+	}
+
+	/**
+	 * Find up to the two closest targets to the center of the
+	 * field of view.
+	 *
+	 * @return	As array list of points ordered left to right.
+	 */
+	private ArrayList<Point> computeHatchTargetCentersClosestToFOVCenter() {
+		ArrayList<Point> centers = new ArrayList<Point>();
+		int targetCount = hatchTargets.size();
+		double centerX = cameraParameters.getFOVPixelWidth() / 2;
+
+		if (targetCount == 0) {
+			// do nothing
+		} else if (targetCount == 1) {
+			// Add the same one twice so that either left or right picks it up
+			centers.add(hatchTargetCenters.get(0));
+			centers.add(hatchTargetCenters.get(0));
+		} else {
+			// Processing left to right...
+			int closestLeft = 0;
+			int closestRight = 1;
+			double leastDistanceFromCenter = Math.abs(hatchTargetCenters.get(0).x - centerX) + Math.abs(hatchTargetCenters.get(1).x - centerX);
+			for (int index = 2; index < targetCount; index++) {
+				double currentDistanceFromCenter = Math.abs(hatchTargetCenters.get(index).x - centerX) + Math.abs(hatchTargetCenters.get(index - 1).x - centerX);
+				if (currentDistanceFromCenter < leastDistanceFromCenter) {
+					closestLeft = index - 1;
+					closestRight = index;
+					leastDistanceFromCenter = currentDistanceFromCenter;
+				}
+			}
+			centers.add(hatchTargetCenters.get(closestLeft));
+			centers.add(hatchTargetCenters.get(closestRight));
+		}
+		return centers;
+	}
+}
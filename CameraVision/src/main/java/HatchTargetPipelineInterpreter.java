@@ -1,13 +1,13 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 
+import org.opencv.core.CvType;
 import org.opencv.core.MatOfPoint;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
 import org.opencv.core.RotatedRect;
-import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
 
 /**
@@ -19,7 +19,20 @@ import org.opencv.imgproc.Imgproc;
 public class HatchTargetPipelineInterpreter {
 	// Processed pipeline that we will do the interpretation against
 	private IHatchTargetPipeline pipeline;
-	private CameraParameters cameraParameters;
+	private volatile CameraParameters cameraParameters;
+	// Result of the most recently interpreted frame
+	private volatile HatchTargetFrame frame;
+	private long frameSequenceNumber;
+	// Reused to convert each contour to floating point for minAreaRect
+	private final MatOfPoint2f floatContour = new MatOfPoint2f();
+	// Reused to pair the rectangles of each frame without allocating
+	private final CandidateRectangles candidates = new CandidateRectangles();
+	// How the candidate pairs of every frame interpreted fared
+	private final PairValidationStatistics pairValidationStatistics = new PairValidationStatistics();
+	// How rectangles are paired into targets
+	private volatile IPairingStrategy pairingStrategy = new GreedyPairingStrategy();
+	// How much targets are upsized by when finding them from a point
+	private volatile double slopFactor = HatchTargetFrame.DEFAULTSLOPFACTOR;
 
 	/**
 	 * A comparator class for sorting rotated rectangles on the
@@ -50,6 +63,22 @@ public class HatchTargetPipelineInterpreter {
 		this.cameraParameters = cameraParameters;
 	}
 
+	/**
+	 * Constructor for an interpreter that does not process a pipeline itself, but
+	 * answers queries about frames interpreted elsewhere and handed to it with setFrame.
+	 * This lets a consumer on another thread read a frame while the next is interpreted.
+	 *
+	 * @param cameraParameters	Calibrated camera parameters
+	 */
+	public HatchTargetPipelineInterpreter(CameraParameters cameraParameters) {
+		if (cameraParameters == null)
+		{
+			throw new IllegalArgumentException("Camera parameters cannot be null.");
+		}
+		this.pipeline = null;
+		this.cameraParameters = cameraParameters;
+	}
+
 	/**
 	 * Set the camera parameters that will be used to compute distances
 	 * and angles to targets.
@@ -63,23 +92,131 @@ public class HatchTargetPipelineInterpreter {
 		this.cameraParameters = cameraParameters;
 	}
 
+	/**
+	 * Interpret the current output of the pipeline.  Call this once, right after
+	 * the pipeline has processed a frame. The result is kept and every query
+	 * on this interpreter reads from it until the next call.
+	 * 
+	 * @return	The interpreted frame.
+	 */
+	public synchronized HatchTargetFrame interpret() {
+		if (pipeline == null) {
+			throw new IllegalStateException("There is no pipeline to interpret; set frames interpreted elsewhere instead.");
+		}
+		CameraParameters frameCameraParameters = cameraParameters;
+		ArrayList<RotatedRect> rectangles = findRectangles();
+		ArrayList<RotatedRect> sortedRectangles = new ArrayList<RotatedRect>(rectangles);
+		Collections.sort(sortedRectangles, new SortByXAscending());
+		frameSequenceNumber++;
+		frame = new HatchTargetFrame(frameSequenceNumber, 
+			frameCameraParameters, 
+			rectangles, 
+			pairRectangles(sortedRectangles, frameCameraParameters),
+			slopFactor);
+		return frame;
+	}
+
+	/**
+	 * Get the result of the most recently interpreted frame. If nothing has been
+	 * interpreted yet, the current pipeline output is interpreted now.
+	 * 
+	 * @return	The interpreted frame.
+	 */
+	public HatchTargetFrame getFrame() {
+		HatchTargetFrame currentFrame = frame;
+		if (currentFrame == null) {
+			currentFrame = pipeline == null ? HatchTargetFrame.empty(cameraParameters) : interpret();
+		}
+		return currentFrame;
+	}
+
+	/**
+	 * Answer queries from a frame that was interpreted elsewhere.
+	 * 
+	 * @param frame	The interpreted frame.
+	 */
+	public void setFrame(HatchTargetFrame frame) {
+		if (frame == null) {
+			throw new IllegalArgumentException("Frame cannot be null.");
+		}
+		this.frame = frame;
+	}
+
+	/**
+	 * Get the sequence number of the most recently interpreted frame, so that
+	 * consumers holding on to a frame can tell whether it is stale.
+	 * 
+	 * @return	The sequence number, or 0 if nothing has been interpreted.
+	 */
+	public long getFrameSequenceNumber() {
+		HatchTargetFrame currentFrame = frame;
+		return currentFrame == null ? 0 : currentFrame.getSequenceNumber();
+	}
+
+	/**
+	 * Set how rectangles are paired into targets from the next frame
+	 * interpreted on. Greedy left to right pairing is the default.
+	 * 
+	 * @param pairingStrategy	The pairing strategy, owned by this interpreter from now on.
+	 */
+	public void setPairingStrategy(IPairingStrategy pairingStrategy) {
+		if (pairingStrategy == null) {
+			throw new IllegalArgumentException("Pairing strategy cannot be null.");
+		}
+		this.pairingStrategy = pairingStrategy;
+	}
+
+	/**
+	 * Set how much targets are upsized by when finding them from a point, such
+	 * as the HUD slew point, from the next frame interpreted on.
+	 * 
+	 * @param slopFactor	The factor, 1.3 by default to upsize by 30%.
+	 */
+	public void setSlopFactor(double slopFactor) {
+		if (!(slopFactor > 0)) {
+			throw new IllegalArgumentException("Slop factor must be greater than 0.");
+		}
+		this.slopFactor = slopFactor;
+	}
+
+	/**
+	 * Get counts of how candidate rectangle pairs have fared, per reason
+	 * they were rejected, over every frame interpreted so far.
+	 * 
+	 * @return	The running counts.
+	 */
+	public PairValidationStatistics getPairValidationStatistics() {
+		return pairValidationStatistics;
+	}
+
 	/**
 	 * Process filtered contours and return an array of best fit rectangles
 	 * for each contour found.
 	 * 
 	 * @return	An array list of RotatedRect
 	 */
-	protected ArrayList<RotatedRect> getRectangles() {
+	private ArrayList<RotatedRect> findRectangles() {
 		ArrayList<RotatedRect> listOfRectangles = new ArrayList<RotatedRect>();
 		for (MatOfPoint contour: pipeline.filterContoursOutput()) {
-			RotatedRect rotatedRect = Imgproc.minAreaRect(new MatOfPoint2f(contour.toArray()));
+			// Convert natively rather than through an array of points
+			contour.convertTo(floatContour, CvType.CV_32F);
+			RotatedRect rotatedRect = Imgproc.minAreaRect(floatContour);
 			listOfRectangles.add(rotatedRect);
 		}
 		return listOfRectangles;
 	}
 
 	/**
-	 * Process filtered contours and return an array of best fit rectangles
+	 * Get the best fit rectangles for each contour found in the current frame.
+	 * 
+	 * @return	An array list of RotatedRect
+	 */
+	protected ArrayList<RotatedRect> getRectangles() {
+		return new ArrayList<RotatedRect>(getFrame().getRectangles());
+	}
+
+	/**
+	 * Get the best fit rectangles for the current frame
 	 * sorted in left to right sort order as seen on the x axis.
 	 * 
 	 * @return	An array list of RotatedRect
@@ -94,44 +231,32 @@ public class HatchTargetPipelineInterpreter {
 	 * Process ordered rectangles looking for rotated rectangles
 	 * tilted in the appropriate direction denoting a target.
 	 * 
-	 * @return	An array list of hatch targets.
+	 * @param sortedRectangles	Rectangles sorted left to right.
+	 * @param cameraParameters	Camera parameters to build the targets with.
+	 * @return									An array list of hatch targets.
 	 */
-	public ArrayList<HatchTarget> getHatchTargets() {
+	private ArrayList<HatchTarget> pairRectangles(List<RotatedRect> sortedRectangles, CameraParameters cameraParameters) {
 		ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
-		ArrayList<RotatedRect> sortedRectangles = getRectanglesByXAscending();
 
-		// Must start with at least 2 rectangles
-		if (sortedRectangles.size() >= 2) {
-			// Get an iterator to move through the array with
-			Iterator<RotatedRect> iterator = sortedRectangles.iterator();
-			// Pump iterator for a left-hand rectangle
-			RotatedRect leftRectangle = iterator.next();
-			// Declare a right-hand rectangle
-			RotatedRect rightRectangle = null;
-			// Process while we have another rectangle left in the array
-			while(iterator.hasNext()) {
-				// Pump iterator for right-hand rectangle
-				rightRectangle = iterator.next();
-				try {
-					// Try to create a hatch target
-					HatchTarget hatchTarget = new HatchTarget(leftRectangle, rightRectangle, cameraParameters);
-					// If we have an instantiated hatch target, add it to the list
-					hatchTargets.add(hatchTarget);
-					// Move to the next target to examine
-					if (iterator.hasNext()) {
-						leftRectangle = iterator.next();
-					}
-				} catch (HatchTarget.TargetRectanglesException e) {
-					// It did not work, so move over one rectangle so we can try again
-					leftRectangle = rightRectangle;
-					// Start again from the top of loop
-					continue;
-				}
-			}
+		// Load the rectangles as primitives so pairs can be tried without allocating
+		candidates.clear();
+		for (RotatedRect rectangle : sortedRectangles) {
+			candidates.add(rectangle);
 		}
+
+		pairingStrategy.pair(candidates, cameraParameters, pairValidationStatistics, hatchTargets);
 		return hatchTargets;
 	}
 
+	/**
+	 * Get the hatch targets identified in the current frame.
+	 * 
+	 * @return	An array list of hatch targets ordered left to right.
+	 */
+	public ArrayList<HatchTarget> getHatchTargets() {
+		return new ArrayList<HatchTarget>(getFrame().getHatchTargets());
+	}
+
   /**
    * Returns a number from -1 to 1 corresponding to the position, from left to right, of the target's
    * horizontal position relative to the center of the FOV.
@@ -142,8 +267,21 @@ public class HatchTargetPipelineInterpreter {
    */
   public Point getNormalizedTargetPositionFromCenter(Point targetIdentifyingPoint) throws TargetNotFoundException {
     // Find the hatch target containing the identifying point
-    HatchTarget hatchTarget = getHatchTargetFromPoint(targetIdentifyingPoint);
-    Point center = hatchTarget.center();
+    HatchTargetFrame currentFrame = getFrame();
+    HatchTarget hatchTarget = currentFrame.getHatchTargetFromPoint(targetIdentifyingPoint);
+    return normalizePositionFromCenter(hatchTarget.center(), currentFrame.getCameraParameters());
+  }
+
+  /**
+   * Returns a number from -1 to 1 corresponding to the position, from left to right, of a
+   * point relative to the center of the FOV.
+   * 
+   * @param center            The point, such as the smoothed center of a tracked target.
+   * @param cameraParameters  The parameters of the camera the point was seen by.
+   * @return                  The relative position from center represented as -1 to 1, x and y, 
+   *                          with (-1, -1) representing top left.
+   */
+  public static Point normalizePositionFromCenter(Point center, CameraParameters cameraParameters) {
     Point point = new Point();
     // Find center of FOV
     double oneHalfFOVPixelWidth = cameraParameters.getFOVPixelWidth() / 2;
@@ -160,25 +298,7 @@ public class HatchTargetPipelineInterpreter {
   }
 
 	public HatchTarget getHatchTargetFromPoint(Point point) throws TargetNotFoundException {
-    // Iterate over hatch targets
-    for (HatchTarget hatchTarget: getHatchTargets()) {
-      // Upsize the rotated rectangle by 30% to add some slop for slewing
-      double upsizeFactor = 1.3;
-      RotatedRect originalRectangle = hatchTarget.targetRectangle();
-
-      // Upsize the rectangle
-      RotatedRect upsizedRectangle = new RotatedRect(
-        new Point(originalRectangle.center.x, originalRectangle.center.y),
-        new Size(originalRectangle.size.height * upsizeFactor, originalRectangle.size.width * upsizeFactor), 
-        originalRectangle.angle);
-
-      // Return it if the point being sent in is contained within
-      if (upsizedRectangle.boundingRect().contains(point)) {
-        return hatchTarget;
-      }
-    }
-    // Otherwise bail and let consumer know
-    throw new TargetNotFoundException("No hatch target found containing point.");
+		return getFrame().getHatchTargetFromPoint(point);
 	}
 
 	/**
@@ -187,12 +307,7 @@ public class HatchTargetPipelineInterpreter {
 	 * @return	As array list of points.
 	 */
 	public ArrayList<Point> getHatchTargetCenters() {
-		ArrayList<Point> hatchTargetCenters = new ArrayList<Point>();
-
-		for(HatchTarget hatchTarget : getHatchTargets()) {
-			hatchTargetCenters.add(hatchTarget.center());
-		}
-		return hatchTargetCenters;
+		return copyPoints(getFrame().getHatchTargetCenters());
 	}
 
 	/**
@@ -202,41 +317,7 @@ public class HatchTargetPipelineInterpreter {
 	 * @return	As array list of points ordered left to right.
 	 */
 	public ArrayList<Point> getHatchTargetCentersClosestToFOVCenter() {
-		ArrayList<Point> hatchTargetCenters = new ArrayList<Point>();
-		ArrayList<HatchTarget> hatchTargets = getHatchTargets();
-		long targetCount = targetCount();
-		double centerX = cameraParameters.getFOVPixelWidth() / 2;
-		HatchTarget closestLeft;
-		HatchTarget closestRight;
-		HatchTarget currentTarget;
-		HatchTarget priorTarget;
-
-		if (targetCount == 0) {
-			// do nothing
-		} else if (targetCount == 1) {
-			// Add the same one twice so that either left or right picks it up
-			hatchTargetCenters.add(hatchTargets.get(0).center());
-			hatchTargetCenters.add(hatchTargets.get(0).center());
-		} else {
-			// Processing left to right...
-			closestLeft = hatchTargets.get(0);
-			closestRight = hatchTargets.get(1);
-			double leastDistanceFromCenter = Math.abs(closestLeft.center().x - centerX) + Math.abs(closestRight.center().x - centerX);
-			for(int index = 2; index < targetCount; index++) {
-				currentTarget = hatchTargets.get(index);
-				priorTarget = hatchTargets.get(index - 1);
-				double currentDistanceFromCenter = Math.abs(currentTarget.center().x - centerX) + Math.abs(priorTarget.center().x - centerX);
-				if (currentDistanceFromCenter < leastDistanceFromCenter) {
-					closestLeft = priorTarget;
-					closestRight = currentTarget;
-					leastDistanceFromCenter = currentDistanceFromCenter;
-				}
-			}
-			hatchTargetCenters.add(closestLeft.center());
-			hatchTargetCenters.add(closestRight.center());
-		}
-
-		return hatchTargetCenters;
+		return copyPoints(getFrame().getHatchTargetCentersClosestToFOVCenter());
 	}
 
 	/**
@@ -245,7 +326,7 @@ public class HatchTargetPipelineInterpreter {
 	 * @return True if at least one target was found
 	 */
 	public boolean targetsFound() {
-		return !getHatchTargets().isEmpty();
+		return getFrame().targetsFound();
 	}
 
 	/**
@@ -254,6 +335,20 @@ public class HatchTargetPipelineInterpreter {
 	 * @return The count of the number of targets found
 	 */
 	public long targetCount() {
-		return getHatchTargets().size();
+		return getFrame().targetCount();
+	}
+
+	/**
+	 * Copy points out of a frame so callers cannot alter the frame.
+	 * 
+	 * @param points	The frame's points.
+	 * @return				Copies of the points.
+	 */
+	private ArrayList<Point> copyPoints(List<Point> points) {
+		ArrayList<Point> copies = new ArrayList<Point>(points.size());
+		for (Point point : points) {
+			copies.add(point.clone());
+		}
+		return copies;
 	}
 }
\ No newline at end of file
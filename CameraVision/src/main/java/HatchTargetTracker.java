@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.Point;
+
+/**
+ * Follow hatch targets from frame to frame, giving each an ID that stays the
+ * same for as long as it is in view. Each target has an alpha-beta filter on
+ * the center of its target rectangle, which smooths its position and estimates
+ * its velocity so that where it will be in the next frame can be predicted.
+ *
+ * <p>Each frame, targets found are matched to the nearest prediction within a
+ * gate of about a target width. Targets that are not matched coast on their
+ * velocity for up to COASTLIMIT frames before they are dropped, so a target
+ * missing from a frame or two keeps its ID.
+ *
+ * <p>A tracker keeps state from frame to frame, so it is run on one thread,
+ * right after frames are interpreted.
+ */
+public class HatchTargetTracker {
+  // Frames in a row a target can be missing before it is dropped
+  public static final int COASTLIMIT = 5;
+  public static final double DEFAULTALPHA = 0.7;
+  public static final double DEFAULTBETA = 0.3;
+  // A target found within this many target widths of a prediction is that target
+  private static final double GATEFACTOR = 1.0;
+  private static final double MINIMUMGATEINPIXELS = 20;
+
+  private final double alpha;
+  private final double beta;
+  private final ArrayList<Track> tracks = new ArrayList<Track>();
+  private CameraParameters cameraParameters;
+  private long lastSequenceNumber;
+  private int nextId = 1;
+
+  /**
+   * The filter state of one tracked target.
+   */
+  private static class Track {
+    final int id;
+    HatchTarget hatchTarget;
+    double centerX;
+    double centerY;
+    double velocityX;
+    double velocityY;
+    int misses;
+
+    Track(int id, HatchTarget hatchTarget, Point center) {
+      this.id = id;
+      this.hatchTarget = hatchTarget;
+      this.centerX = center.x;
+      this.centerY = center.y;
+    }
+
+    double gate() {
+      return Math.max(GATEFACTOR * hatchTarget.widthInPx(), MINIMUMGATEINPIXELS);
+    }
+  }
+
+  /**
+   * Construct a tracker with the default filter gains.
+   */
+  public HatchTargetTracker() {
+    this(DEFAULTALPHA, DEFAULTBETA);
+  }
+
+  /**
+   * Construct a tracker.
+   *
+   * @param alpha How much of the difference from a prediction is taken as the new position, 0 to 1.
+   * @param beta  How much of that difference is taken into the velocity, 0 to 1.
+   */
+  public HatchTargetTracker(double alpha, double beta) {
+    if (!(alpha > 0 && alpha <= 1) || !(beta >= 0 && beta <= 1)) {
+      throw new IllegalArgumentException("Alpha must be from just over 0 to 1 and beta from 0 to 1.");
+    }
+    this.alpha = alpha;
+    this.beta = beta;
+  }
+
+  /**
+   * Track the targets of the next frame.
+   *
+   * @param frame The interpreted frame.
+   * @return      The frame with the tracked targets, including those coasting.
+   */
+  public HatchTargetFrame update(HatchTargetFrame frame) {
+    // Targets from another camera are not these targets
+    if (frame.getCameraParameters() != cameraParameters) {
+      tracks.clear();
+      cameraParameters = frame.getCameraParameters();
+    }
+    long frames = tracks.isEmpty() ? 1 : Math.max(frame.getSequenceNumber() - lastSequenceNumber, 1);
+    lastSequenceNumber = frame.getSequenceNumber();
+
+    // Predict where each target is now
+    for (Track track : tracks) {
+      track.centerX += track.velocityX * frames;
+      track.centerY += track.velocityY * frames;
+    }
+
+    // Match targets found to the nearest prediction, closest pairs first
+    List<HatchTarget> hatchTargets = frame.getHatchTargets();
+    List<Point> centers = new ArrayList<Point>(hatchTargets.size());
+    for (HatchTarget hatchTarget : hatchTargets) {
+      centers.add(hatchTarget.targetRectangle().center);
+    }
+    Track[] matches = new Track[hatchTargets.size()];
+    boolean[] matched = new boolean[tracks.size()];
+    while (true) {
+      int bestTarget = -1;
+      int bestTrack = -1;
+      double bestDistance = Double.MAX_VALUE;
+      for (int target = 0; target < centers.size(); target++) {
+        if (matches[target] != null) {
+          continue;
+        }
+        for (int index = 0; index < tracks.size(); index++) {
+          if (matched[index]) {
+            continue;
+          }
+          Track track = tracks.get(index);
+          double distance = Math.hypot(centers.get(target).x - track.centerX, centers.get(target).y - track.centerY);
+          if (distance <= track.gate() && distance < bestDistance) {
+            bestDistance = distance;
+            bestTarget = target;
+            bestTrack = index;
+          }
+        }
+      }
+      if (bestTarget < 0) {
+        break;
+      }
+      matches[bestTarget] = tracks.get(bestTrack);
+      matched[bestTrack] = true;
+    }
+
+    // Correct matched targets toward where they were seen
+    for (int target = 0; target < matches.length; target++) {
+      Track track = matches[target];
+      if (track != null) {
+        double residualX = centers.get(target).x - track.centerX;
+        double residualY = centers.get(target).y - track.centerY;
+        track.centerX += alpha * residualX;
+        track.centerY += alpha * residualY;
+        track.velocityX += (beta / frames) * residualX;
+        track.velocityY += (beta / frames) * residualY;
+        track.hatchTarget = hatchTargets.get(target);
+        track.misses = 0;
+      }
+    }
+
+    // Coast the rest, dropping those missing for too long
+    ArrayList<Track> kept = new ArrayList<Track>(tracks.size() + hatchTargets.size());
+    for (int index = 0; index < tracks.size(); index++) {
+      Track track = tracks.get(index);
+      if (!matched[index]) {
+        track.misses += frames;
+      }
+      if (track.misses <= COASTLIMIT) {
+        kept.add(track);
+      }
+    }
+
+    // Start following new targets
+    for (int target = 0; target < matches.length; target++) {
+      if (matches[target] == null) {
+        kept.add(new Track(nextId++, hatchTargets.get(target), centers.get(target)));
+      }
+    }
+    tracks.clear();
+    tracks.addAll(kept);
+
+    ArrayList<TrackedTarget> trackedTargets = new ArrayList<TrackedTarget>(tracks.size());
+    for (Track track : tracks) {
+      trackedTargets.add(new TrackedTarget(track.id,
+        track.hatchTarget,
+        track.centerX,
+        track.centerY,
+        track.velocityX,
+        track.velocityY,
+        track.misses));
+    }
+    return frame.withTrackedTargets(trackedTargets);
+  }
+}
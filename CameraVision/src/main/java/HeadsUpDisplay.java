@@ -1,6 +1,8 @@
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
@@ -21,11 +23,21 @@ public class HeadsUpDisplay {
   private Map<String, Point> identifierToPointMap = new HashMap<String, Point>();
   private final Map<CameraControlStateMachine.Trigger, String> buttonToIdentifierMap = new HashMap<>();
   private Point slewPoint;
-  private CameraControlStateMachine.State state;
-  private final NetworkTable smartDashboard;
+  private final CameraControlStateMachine stateMachine;
+  private final DashboardInputs dashboardInputs;
+  // Changes from network tables listeners, applied by the thread updating the display
+  private final Queue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
   private final NetworkTable visionNetworkTable;
+  private final NetworkTablePublisher visionPublisher;
+  private final SelectedTarget selectedTarget;
+  private final RegionOfInterestTracker regionOfInterestTracker;
   private static int tnfeRetryLimit = 4;
   private int tnfeRetries = 0;
+  // The ID of the tracked target being followed, once it has been found
+  private static final int NOTARGET = -1;
+  private int followedTargetId = NOTARGET;
+  // The frame being displayed, if it was interpreted elsewhere
+  private HatchTargetFrame displayedFrame;
   
   /**
    * Constructor for the HUD taking a reference to an annotator and interpreter and camera control.
@@ -39,6 +51,74 @@ public class HeadsUpDisplay {
       HatchTargetPipelineInterpreter interpreter, 
       NetworkTable visionNetworkTable, 
       NetworkTable smartDashboard) {
+    this(imageAnnotator, interpreter, visionNetworkTable, smartDashboard, null, new CameraControlStateMachine());
+  }
+
+  /**
+   * Constructor for the HUD that also tells a tracker which target it is following,
+   * so that only the region around that target needs processing.
+   * 
+   * @param imageAnnotator          The image annotator to draw artifacts on HUD.
+   * @param interpreter             The image pipeline interpreter to figure out what is on the image.
+   * @param visionNetworkTable      The vision network table.
+   * @param smartDashboard          The smartdashboard network table.
+   * @param regionOfInterestTracker The tracker to tell, or null.
+   */
+  public HeadsUpDisplay(ImageAnnotator imageAnnotator, 
+      HatchTargetPipelineInterpreter interpreter, 
+      NetworkTable visionNetworkTable, 
+      NetworkTable smartDashboard,
+      RegionOfInterestTracker regionOfInterestTracker) {
+    this(imageAnnotator, interpreter, visionNetworkTable, smartDashboard, regionOfInterestTracker, new CameraControlStateMachine());
+  }
+
+  /**
+   * Constructor for the HUD that keeps the state the robot reports in a state
+   * machine shared with the processing stages, so they can do as much work as
+   * the state needs.
+   * 
+   * @param imageAnnotator          The image annotator to draw artifacts on HUD.
+   * @param interpreter             The image pipeline interpreter to figure out what is on the image.
+   * @param visionNetworkTable      The vision network table.
+   * @param smartDashboard          The smartdashboard network table.
+   * @param regionOfInterestTracker The tracker to tell, or null.
+   * @param stateMachine            The state machine to keep the state in.
+   */
+  public HeadsUpDisplay(ImageAnnotator imageAnnotator, 
+      HatchTargetPipelineInterpreter interpreter, 
+      NetworkTable visionNetworkTable, 
+      NetworkTable smartDashboard,
+      RegionOfInterestTracker regionOfInterestTracker,
+      CameraControlStateMachine stateMachine) {
+    this(imageAnnotator, 
+      interpreter, 
+      visionNetworkTable, 
+      regionOfInterestTracker, 
+      stateMachine, 
+      new NetworkTablePublisher(visionNetworkTable),
+      new DashboardInputs(smartDashboard));
+  }
+
+  /**
+   * Constructor for the HUD that writes the selected target through a publisher
+   * shared with the network table writer, so only what changed is sent,
+   * and reads the dashboard inputs it shares with the processing stages.
+   * 
+   * @param imageAnnotator          The image annotator to draw artifacts on HUD.
+   * @param interpreter             The image pipeline interpreter to figure out what is on the image.
+   * @param visionNetworkTable      The vision network table.
+   * @param regionOfInterestTracker The tracker to tell, or null.
+   * @param stateMachine            The state machine to keep the state in.
+   * @param visionPublisher         The publisher for the vision network table.
+   * @param dashboardInputs         The scoring direction and pan angles from the smartdashboard.
+   */
+  public HeadsUpDisplay(ImageAnnotator imageAnnotator, 
+      HatchTargetPipelineInterpreter interpreter, 
+      NetworkTable visionNetworkTable, 
+      RegionOfInterestTracker regionOfInterestTracker,
+      CameraControlStateMachine stateMachine,
+      NetworkTablePublisher visionPublisher,
+      DashboardInputs dashboardInputs) {
     if (imageAnnotator == null) {
       throw new IllegalArgumentException("Image annotator cannot be null.");
     }
@@ -47,13 +127,31 @@ public class HeadsUpDisplay {
     }
     this.imageAnnotator = imageAnnotator;
     this.interpreter = interpreter;
-    this.smartDashboard = smartDashboard;
     this.visionNetworkTable = visionNetworkTable;
-    this.state = CameraControlStateMachine.State.IdentifyingTargets;
+    this.regionOfInterestTracker = regionOfInterestTracker;
+    if (stateMachine == null) {
+      throw new IllegalArgumentException("State machine cannot be null.");
+    }
+    this.stateMachine = stateMachine;
+    if (visionPublisher == null) {
+      throw new IllegalArgumentException("Vision publisher cannot be null.");
+    }
+    this.visionPublisher = visionPublisher;
+    this.selectedTarget = new SelectedTarget(visionPublisher);
+    if (dashboardInputs == null) {
+      throw new IllegalArgumentException("Dashboard inputs cannot be null.");
+    }
+    this.dashboardInputs = dashboardInputs;
     mapButtonsToIdentifiers();
     wireUpNetworkTableListeners();
   }
 
+  /**
+   * Listen for the state and trigger the robot writes. Listeners run on the
+   * network tables thread, so changes are queued for the thread updating the
+   * display to apply between frames, and each frame sees one state throughout.
+   * Values that are not a state or trigger are ignored.
+   */
   protected class StateChangeListener implements ITableListener {
     private HeadsUpDisplay hud;
 
@@ -63,32 +161,51 @@ public class HeadsUpDisplay {
 
     @Override
     public void valueChanged(ITable table, String key, Object value, boolean isNew) {
-      if (key == "State") {
-        String stateString = (String)value;
-        if (stateString == "") {
-          stateString = "IdentifyingTargets";
+      if ("State".equals(key)) {
+        Object stateValue = "".equals(value) ? CameraControlStateMachine.State.IdentifyingTargets.toString() : value;
+        CameraControlStateMachine.State state = parse(CameraControlStateMachine.State.class, stateValue);
+        if (state != null) {
+          hud.commands.add(() -> hud.setState(state));
+        }
+      } else if ("Trigger".equals(key)) {
+        if (value instanceof String && ((String) value).trim().length() > 0) {
+          CameraControlStateMachine.Trigger trigger = parse(CameraControlStateMachine.Trigger.class, value);
+          if (trigger != null) {
+            hud.commands.add(() -> hud.selectTarget(trigger));
+          }
         }
-        CameraControlStateMachine.State state = Enum.valueOf(CameraControlStateMachine.State.class, stateString);
-        hud.setState(state);
-      } else if (key == "Trigger") {
-        String triggerString = (String)value;
-        if (triggerString.trim().length() == 0) {
-          hud.selectTarget(null);
-        } else {
-          CameraControlStateMachine.Trigger trigger = Enum.valueOf(CameraControlStateMachine.Trigger.class, triggerString);
-          hud.selectTarget(trigger);       
+      }
+    }
+
+    private <E extends Enum<E>> E parse(Class<E> enumType, Object value) {
+      for (E constant : enumType.getEnumConstants()) {
+        if (constant.name().equals(value)) {
+          return constant;
         }
       }
+      System.out.println(String.format("Ignoring %s %s.", enumType.getSimpleName(), value));
+      return null;
+    }
+  }
+
+  /**
+   * Apply the changes queued by the network tables listeners.
+   */
+  private void applyCommands() {
+    Runnable command;
+    while ((command = commands.poll()) != null) {
+      command.run();
     }
   }
 
   protected void setState(CameraControlStateMachine.State state) {
-    this.state = state;
+    stateMachine.setState(state);
   }
 
   protected void selectTarget(CameraControlStateMachine.Trigger trigger) {
     // Reset the slewpoint if we have a trigger value
     if (trigger != null) {
+      followedTargetId = NOTARGET;
       // Try to translate to slew point for button presses
       slewPoint = buttonToPointMap.get(trigger);
       if (slewPoint == null) {
@@ -104,6 +221,53 @@ public class HeadsUpDisplay {
     visionNetworkTable.addTableListener("Trigger", listener, true);
   }
 
+  /**
+   * Get the angle the camera for a scoring direction was panned to when the
+   * displayed frame was captured, or now if it does not say.
+   * 
+   * @param scoringDirection  The scoring direction.
+   * @return                  The pan angle in degrees from straight ahead.
+   */
+  private double panAngle(DashboardInputs.ScoringDirection scoringDirection) {
+    PanAngleHistory panAngleHistory = dashboardInputs.getPanAngleHistory(scoringDirection);
+    if (panAngleHistory == null) {
+      return 0;
+    }
+    long capturedNanos = displayedFrame != null && displayedFrame.isCaptured() 
+      ? displayedFrame.getGrabbedNanos() 
+      : System.nanoTime();
+    return panAngleHistory.angleAt(capturedNanos, DashboardInputs.PANANGLECENTER) - DashboardInputs.PANANGLECENTER;
+  }
+
+  /**
+   * Update the image processing display for a frame interpreted elsewhere. The
+   * interpreter of this HUD, and of its annotator, answers from that frame.
+   * 
+   * @param inputImage  The inputImage to annotate.
+   * @param frame       The interpreted hatch targets of the image.
+   * @return            Return the annotated image.
+   */
+  public Mat update(Mat inputImage, HatchTargetFrame frame) {
+    return update(inputImage, frame, true);
+  }
+
+  /**
+   * Update the image processing display for a frame interpreted elsewhere,
+   * annotating it only if it is going to be seen. An unannotated frame still
+   * moves the state machine along and writes the selectable targets and the
+   * selected target to network tables.
+   * 
+   * @param inputImage  The inputImage to annotate.
+   * @param frame       The interpreted hatch targets of the image.
+   * @param annotate    True to annotate the image.
+   * @return            Return the annotated image, or the input image if not annotated.
+   */
+  public Mat update(Mat inputImage, HatchTargetFrame frame, boolean annotate) {
+    interpreter.setFrame(frame);
+    displayedFrame = frame;
+    return updateDisplay(inputImage, frame.isTracked() ? frame : null, annotate);
+  }
+
   /**
    * Update the image processing display and camera mount based on current state of state machine.
    * 
@@ -114,10 +278,28 @@ public class HeadsUpDisplay {
    * @throws FailedToLock       Thrown if target failed to lock on.
    */
   public Mat update(Mat inputImage) { 
-    imageAnnotator.beginAnnotation(inputImage);
+    displayedFrame = null;
+    return updateDisplay(inputImage, null, true);
+  }
+
+  /**
+   * Update the display. A target being followed is followed by its tracked ID
+   * when the frame has been tracked, or by finding it from the slew point again
+   * otherwise.
+   * 
+   * @param trackedFrame  The tracked frame, or null to find targets from the slew point.
+   * @param annotate      True to annotate the image.
+   */
+  private Mat updateDisplay(Mat inputImage, HatchTargetFrame trackedFrame, boolean annotate) {
+    applyCommands();
+    if (annotate) {
+      imageAnnotator.beginAnnotation(inputImage);
+    } else {
+      imageAnnotator.skipAnnotation();
+    }
 
-    String scoringDirection = smartDashboard.getString("Scoring Direction", "Back");
-    int panAngle = (int) Math.round(smartDashboard.getNumber(String.format("%s Camera Pan Angle", scoringDirection), 90) - 90);
+    double panAngle = panAngle(dashboardInputs.getScoringDirection());
+    CameraControlStateMachine.State state = stateMachine.getState();
 
     // Look at current state machine state and act
     if (state == CameraControlStateMachine.State.IdentifyingTargets) {
@@ -131,148 +313,197 @@ public class HeadsUpDisplay {
       // Print the button identifiers on the hatch targets
       imageAnnotator.printTargetIdentifiers(identifierToPointMap);
       // Write the selectable target triggers to network tables so the state machine
-      // knows which targets (and thus which buttons) are selectable
-      ArrayList<String> triggers = new ArrayList<String>();
-      buttonToPointMap.keySet().forEach((key) -> triggers.add(key.toString()));
-      String[] triggersArray = new String[triggers.size()];
-      triggersArray = triggers.toArray(triggersArray);
-      visionNetworkTable.putStringArray("SelectableTargetTriggers", triggersArray);
+      // knows which targets (and thus which buttons) are selectable. They are only
+      // read when a button is pressed, so they need not go out every frame.
+      String[] triggersArray = new String[buttonToPointMap.size()];
+      int trigger = 0;
+      for (CameraControlStateMachine.Trigger key : buttonToPointMap.keySet()) {
+        triggersArray[trigger++] = key.toString();
+      }
+      visionPublisher.putStringArray("SelectableTargetTriggers", triggersArray, NetworkTablePublisher.Priority.Cosmetic);
       // Clear the selected target
-      SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
       selectedTarget.clear();
     } else if (state == CameraControlStateMachine.State.SlewingToTarget) {
       try {
-        // Update the known center of the selected target from the last known point
-        HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
-        tnfeRetries = 0;
-        slewPoint = hatchTarget.targetRectangle().center;
+        // Update the known center of the selected target
+        HatchTarget hatchTarget = followTarget(trackedFrame);
         // Draw the targeting rectangle being slewed
-        imageAnnotator.drawSlewingRectangle(slewPoint);
+        imageAnnotator.drawSlewingRectangle(hatchTarget);
         // Write the selected target information to network tables
-        SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
-        Point normalizedPointFromCenter = interpreter.getNormalizedTargetPositionFromCenter(slewPoint);
-        selectedTarget.write(hatchTarget.rangeInInches(), 
-            panAngle, 
-            Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
-            normalizedPointFromCenter.x, 
-            normalizedPointFromCenter.y);
+        writeSelectedTarget(hatchTarget, panAngle, trackedFrame);
       } catch (TargetNotFoundException e) {
-        if (tnfeRetries > tnfeRetryLimit) {
-          tnfeRetries = 0;
-          // We can no longer find a target containing our selected target point.
-          visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.FailedToLock.toString());
-        } else {
-          tnfeRetries++;
-        }
+        targetNotFound(CameraControlStateMachine.Trigger.FailedToLock);
       } catch (NullPointerException e) {
         // If the slewpoint is null, just flip back to identifying targets
-        visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.IdentifyTargets.toString());
+        fire(CameraControlStateMachine.Trigger.IdentifyTargets);
       }
     } else if (state == CameraControlStateMachine.State.TargetLocked) {
       try {
-        // Update the known center of the selected target from the last known point
-        HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
-        tnfeRetries = 0;
-        slewPoint = hatchTarget.targetRectangle().center;
+        // Update the known center of the selected target
+        HatchTarget hatchTarget = followTarget(trackedFrame);
         // Draw the targeting rectangle showing we are locked
-        imageAnnotator.drawLockedRectangle(slewPoint);
+        imageAnnotator.drawLockedRectangle(hatchTarget);
         // Print information about target
         imageAnnotator.printTargetInfo(hatchTarget, panAngle);
         // Continue writing the selected target information to network tables
-        SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
-        Point normalizedPointFromCenter = interpreter.getNormalizedTargetPositionFromCenter(slewPoint);
-        selectedTarget.write(hatchTarget.rangeInInches(), 
-            panAngle, 
-            Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
-            normalizedPointFromCenter.x, 
-            normalizedPointFromCenter.y);
+        writeSelectedTarget(hatchTarget, panAngle, trackedFrame);
       } catch (TargetNotFoundException e) {
-        if (tnfeRetries > tnfeRetryLimit) {
-          tnfeRetries = 0;
-          // We can no longer find a target containing our selected target point.
-          visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.LoseLock.toString());
-        } else {
-          tnfeRetries++;
-        }
+        targetNotFound(CameraControlStateMachine.Trigger.LoseLock);
       }
     } else if (state == CameraControlStateMachine.State.LockFailed) {
       // TODO: Give visual indication to user that lock failed
       // Print something to the screen for 1-2 seconds
       // Clear the selected target
-      SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
       selectedTarget.clear();
-      visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.IdentifyTargets.toString());
+      fire(CameraControlStateMachine.Trigger.IdentifyTargets);
     } else if (state == CameraControlStateMachine.State.LockLost) {
       // TODO: Give visual indication to user that lock was lost
       // Print something to the screen for 1-2 seconds
       // Clear the selected target
-      SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
       selectedTarget.clear();
-      visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.IdentifyTargets.toString());
+      fire(CameraControlStateMachine.Trigger.IdentifyTargets);
     } else if (state == CameraControlStateMachine.State.Calibrating) {
       // Clear the selected target
-      SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
       selectedTarget.clear();
       // Update luminance values
       // Draw the luminance value on the frame
       imageAnnotator.drawCalibrationInformation();
     } else if (state == CameraControlStateMachine.State.DrivingToTarget) {
       try {
-        // Update the known center of the selected target from the last known point
-        HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
-        tnfeRetries = 0;
-        slewPoint = hatchTarget.targetRectangle().center;
+        // Update the known center of the selected target
+        HatchTarget hatchTarget = followTarget(trackedFrame);
         // Draw the targeting rectangle indicating that driving is in progress
-        imageAnnotator.drawDrivingRectangle(slewPoint);
+        imageAnnotator.drawDrivingRectangle(hatchTarget);
         // Print information about target
         imageAnnotator.printTargetInfo(hatchTarget, panAngle);
         // Continue writing the selected target information to network tables
-        SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
-        Point normalizedPointFromCenter = interpreter.getNormalizedTargetPositionFromCenter(slewPoint);
-        selectedTarget.write(hatchTarget.rangeInInches(), 
-            panAngle, 
-            Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
-            normalizedPointFromCenter.x, 
-            normalizedPointFromCenter.y);
+        writeSelectedTarget(hatchTarget, panAngle, trackedFrame);
       } catch (TargetNotFoundException e) {
-        if (tnfeRetries > tnfeRetryLimit) {
-          tnfeRetries = 0;
-          // We can no longer find a target containing our selected target point.
-          visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.LoseLock.toString());
-        } else {
-          tnfeRetries++;
-        }
+        targetNotFound(CameraControlStateMachine.Trigger.LoseLock);
       }
     } else if (state == CameraControlStateMachine.State.AutoLocked) {
       try {
-        // Update the known center of the selected target from the last known point
-        HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
-        tnfeRetries = 0;
-        slewPoint = hatchTarget.targetRectangle().center;
+        // Update the known center of the selected target
+        HatchTarget hatchTarget = followTarget(trackedFrame);
         // Draw the targeting rectangle showing we are locked
-        imageAnnotator.drawAutoLockedRectangle(slewPoint);
+        imageAnnotator.drawAutoLockedRectangle(hatchTarget);
         // Print information about target
         imageAnnotator.printTargetInfo(hatchTarget, panAngle);
         // Continue writing the selected target information to network tables
-        SelectedTarget selectedTarget = new SelectedTarget(visionNetworkTable);
-        Point normalizedPointFromCenter = interpreter.getNormalizedTargetPositionFromCenter(slewPoint);
-        selectedTarget.write(hatchTarget.rangeInInches(), 
-            panAngle, 
-            Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
-            normalizedPointFromCenter.x, 
-            normalizedPointFromCenter.y);
+        writeSelectedTarget(hatchTarget, panAngle, trackedFrame);
       } catch (TargetNotFoundException e) {
-        if (tnfeRetries > tnfeRetryLimit) {
-          tnfeRetries = 0;
-          // We can no longer find a target containing our selected target point.
-          visionNetworkTable.putString("Fire", CameraControlStateMachine.Trigger.LoseLock.toString());
-        } else {
-          tnfeRetries++;
+        targetNotFound(CameraControlStateMachine.Trigger.LoseLock);
+      }
+    }
+
+    if (!stateMachine.isFollowingTarget()) {
+      followedTargetId = NOTARGET;
+    }
+    updateRegionOfInterestTracking();
+
+    return annotate ? imageAnnotator.getCompletedAnnotation() : inputImage;
+  }
+
+  /**
+   * Find the selected target in this frame and update the slew point to its center.
+   * In a tracked frame the target is found from the slew point once, and then
+   * followed by its tracked ID.
+   * 
+   * @param trackedFrame              The tracked frame, or null to find the target from the slew point.
+   * @return                          The selected target.
+   * @throws TargetNotFoundException  Thrown if the target is not in this frame.
+   */
+  private HatchTarget followTarget(HatchTargetFrame trackedFrame) {
+    HatchTarget hatchTarget;
+    if (trackedFrame == null) {
+      hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
+      slewPoint = hatchTarget.targetRectangle().center;
+    } else {
+      TrackedTarget trackedTarget;
+      if (followedTargetId == NOTARGET) {
+        trackedTarget = trackedFrame.getTrackedTarget(trackedFrame.getHatchTargetFromPoint(slewPoint));
+        followedTargetId = trackedTarget.getId();
+      } else {
+        trackedTarget = trackedFrame.getTrackedTarget(followedTargetId);
+        if (trackedTarget == null) {
+          throw new TargetNotFoundException("The followed target is no longer tracked.");
         }
       }
+      hatchTarget = trackedTarget.getHatchTarget();
+      slewPoint = trackedTarget.getCenter();
+    }
+    tnfeRetries = 0;
+    return hatchTarget;
+  }
+
+  /**
+   * Write the selected target information to network tables, with the capture
+   * details of the displayed frame if it has them.
+   */
+  private void writeSelectedTarget(HatchTarget hatchTarget, double panAngle, HatchTargetFrame trackedFrame) {
+    Point normalizedPointFromCenter = trackedFrame == null 
+      ? interpreter.getNormalizedTargetPositionFromCenter(slewPoint)
+      : HatchTargetPipelineInterpreter.normalizePositionFromCenter(slewPoint, trackedFrame.getCameraParameters());
+    if (displayedFrame != null && displayedFrame.isCaptured()) {
+      selectedTarget.write(hatchTarget.rangeInInches(), 
+          panAngle, 
+          Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
+          normalizedPointFromCenter.x, 
+          normalizedPointFromCenter.y,
+          displayedFrame);
+    } else {
+      selectedTarget.write(hatchTarget.rangeInInches(), 
+          panAngle, 
+          Math.toDegrees(hatchTarget.aspectAngleInRadians()), 
+          normalizedPointFromCenter.x, 
+          normalizedPointFromCenter.y);
+    }
+  }
+
+  /**
+   * Give up on the selected target once it has been missing for too long. A
+   * followed tracked target has already coasted through the frames it was
+   * missing from, so it is given up on as soon as the tracker drops it.
+   * 
+   * @param trigger The trigger to fire when giving up.
+   */
+  private void targetNotFound(CameraControlStateMachine.Trigger trigger) {
+    if (followedTargetId != NOTARGET || tnfeRetries > tnfeRetryLimit) {
+      tnfeRetries = 0;
+      followedTargetId = NOTARGET;
+      // We can no longer find a target containing our selected target point.
+      fire(trigger);
+    } else {
+      tnfeRetries++;
+    }
+  }
+
+  /**
+   * Ask the robot to fire a trigger, if it moves the current state anywhere.
+   * 
+   * @param trigger The trigger to fire.
+   */
+  private void fire(CameraControlStateMachine.Trigger trigger) {
+    if (stateMachine.canFire(trigger)) {
+      visionNetworkTable.putString("Fire", trigger.toString());
     }
+  }
 
-    return imageAnnotator.getCompletedAnnotation();
+  /**
+   * While following a single target, have the tracker follow it too, by its
+   * tracked ID once it has one.
+   */
+  private void updateRegionOfInterestTracking() {
+    if (regionOfInterestTracker == null) {
+      return;
+    }
+    if (followedTargetId != NOTARGET) {
+      regionOfInterestTracker.track(followedTargetId);
+    } else if (slewPoint != null && stateMachine.isFollowingTarget()) {
+      regionOfInterestTracker.track(slewPoint);
+    } else {
+      regionOfInterestTracker.stopTracking();
+    }
   }
 
   private void mapAutoLockChoicesToTargetCenterPoints(ArrayList<Point> centerPoints) {
@@ -0,0 +1,82 @@
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.cscore.VideoSource;
+
+/**
+ * Decide which frames the HUD annotates and streams. Drawing on a copy of the
+ * frame and encoding it is only worth doing while someone is watching the
+ * stream, and only as often as a person can follow it, which is less often
+ * than targets are detected.
+ *
+ * <p>An MJPEG server enables the source it streams for each client connected
+ * and disables it when the client leaves, so a source with any sink enabled
+ * is being watched. Until a gate follows a source, it is always watched.
+ */
+public class HudRenderGate {
+  public static final double DEFAULTFPS = 15;
+
+  private final long periodNanos;
+  private volatile BooleanSupplier watched = () -> true;
+  private boolean rendered = false;
+  private long lastRenderNanos;
+
+  /**
+   * @param fps The most frames per second to render.
+   */
+  public HudRenderGate(double fps) {
+    if (fps <= 0) {
+      throw new IllegalArgumentException("HUD frame rate must be greater than 0.");
+    }
+    periodNanos = (long) (1000000000 / fps);
+  }
+
+  /**
+   * Follow whether the source the HUD is put to has any clients streaming it.
+   *
+   * @param source  The source the HUD frames are put to.
+   */
+  public void follow(VideoSource source) {
+    if (source == null) {
+      throw new IllegalArgumentException("Source cannot be null.");
+    }
+    follow(source::isEnabled);
+  }
+
+  /**
+   * Follow whether the HUD is watched by asking, at most once a frame.
+   *
+   * @param watched True while the HUD is watched.
+   */
+  public void follow(BooleanSupplier watched) {
+    if (watched == null) {
+      throw new IllegalArgumentException("Watched cannot be null.");
+    }
+    this.watched = watched;
+  }
+
+  public void setWatched(boolean watched) {
+    this.watched = () -> watched;
+  }
+
+  public boolean isWatched() {
+    return watched.getAsBoolean();
+  }
+
+  /**
+   * Decide whether to render a frame, counting it as rendered if so. Call once
+   * a frame, from the thread updating the HUD.
+   *
+   * @param nowNanos  The time now, from System.nanoTime().
+   * @return          True if a period has passed since the last frame rendered
+   *                  and the HUD is watched.
+   */
+  public boolean shouldRender(long nowNanos) {
+    // Only ask whether the HUD is watched once a frame is due
+    if ((rendered && nowNanos - lastRenderNanos < periodNanos) || !isWatched()) {
+      return false;
+    }
+    rendered = true;
+    lastRenderNanos = nowNanos;
+    return true;
+  }
+}
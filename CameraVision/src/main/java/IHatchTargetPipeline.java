@@ -2,6 +2,7 @@ import java.util.ArrayList;
 
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
 
 /**
  * Define a generic interface that all pipelines should implement
@@ -11,4 +12,11 @@ import org.opencv.core.MatOfPoint;
 public interface IHatchTargetPipeline {
 	public void process(Mat source0);
 	public ArrayList<MatOfPoint> filterContoursOutput();
+	/**
+	 * Only process the given part of the frames that follow. Contours are
+	 * still reported in full-frame coordinates.
+	 *
+	 * @param regionOfInterest	The part of the frame to process, or null for all of it.
+	 */
+	public void setRegionOfInterest(Rect regionOfInterest);
 }
\ No newline at end of file
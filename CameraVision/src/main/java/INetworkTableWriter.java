@@ -5,4 +5,5 @@
  */
 public interface INetworkTableWriter {
     public void write();
+    public void write(HatchTargetFrame frame);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+import java.util.List;
+
+/**
+ * Decide which of the rectangles found in a frame pair up into hatch targets.
+ */
+public interface IPairingStrategy {
+	/**
+	 * Pair candidate rectangles into hatch targets.
+	 *
+	 * @param candidates				The candidate rectangles of a frame, sorted left to right.
+	 * @param cameraParameters	Camera parameters to build the targets with.
+	 * @param statistics				Where to count the outcome of each pair checked.
+	 * @param hatchTargets			The list to add the targets found to, left to right.
+	 */
+	public void pair(CandidateRectangles candidates, 
+		CameraParameters cameraParameters, 
+		PairValidationStatistics statistics, 
+		List<HatchTarget> hatchTargets);
+}
@@ -0,0 +1,18 @@
+import org.opencv.core.Mat;
+
+/**
+ * Classify each pixel of a BGR image as target or not by its hue, saturation
+ * and value, producing a binary mask.
+ */
+public interface IPixelClassifier {
+	/**
+	 * Segment an image based on hue, saturation, and value ranges.
+	 *
+	 * @param input		The BGR image to classify.
+	 * @param hue			The min and max hue
+	 * @param sat			The min and max saturation
+	 * @param val			The min and max value
+	 * @param output	The mask to store the output in, 255 where in range and 0 elsewhere.
+	 */
+	public void classify(Mat input, double[] hue, double[] sat, double[] val, Mat output);
+}
@@ -18,6 +18,8 @@ import org.opencv.imgproc.Imgproc;
 public class ImageAnnotator {
   private final HatchTargetPipelineInterpreter interpreter;
   private Mat outputImage;
+  // Nothing is drawn for a frame nobody will see
+  private boolean annotating = false;
   private final Scalar targetingRectangleColor;
   private final Scalar hatchTargetRectangleColor;
   private final Scalar hatchTargetSlewingColor;
@@ -42,6 +44,19 @@ public class ImageAnnotator {
 
   public void beginAnnotation(Mat inputImage) {
     inputImage.copyTo(outputImage);
+    annotating = true;
+  }
+
+  /**
+   * Skip annotating a frame, so it is not copied and drawing on it does
+   * nothing, until the next beginAnnotation.
+   */
+  public void skipAnnotation() {
+    annotating = false;
+  }
+
+  public boolean isAnnotating() {
+    return annotating;
   }
 
   public Mat getCompletedAnnotation() {
@@ -52,6 +67,9 @@ public class ImageAnnotator {
    * Draw rectangles for all targeting tape found.
    */
   public void drawTargetingRectangles() {
+    if (!annotating) {
+      return;
+    }
     // Draw best-fit rectangles around targets
     for (RotatedRect rotatedRect: interpreter.getRectangles()) {
       drawRotatedRect(rotatedRect, targetingRectangleColor, 4);
@@ -62,12 +80,18 @@ public class ImageAnnotator {
    * Draw rectangles for identified hatch targets.
    */
   public void drawHatchTargetRectangles() {
+    if (!annotating) {
+      return;
+    }
     for (HatchTarget hatchTarget: interpreter.getHatchTargets()) {
       drawRotatedRect(hatchTarget.targetRectangle(), hatchTargetRectangleColor, 4);
     }
   }
 
   public void printWidthOfRectangles() {
+    if (!annotating) {
+      return;
+    }
     for (RotatedRect rotatedRect: interpreter.getRectangles()) {
       Point[] vertices = new Point[4];
       rotatedRect.points(vertices);
@@ -106,12 +130,18 @@ public class ImageAnnotator {
   }
 
   public void printTargetInfo(double cameraAngleInDegrees) {
+    if (!annotating) {
+      return;
+    }
     for (HatchTarget hatchTarget: interpreter.getHatchTargets()) {
       printTargetInfo(hatchTarget, cameraAngleInDegrees);
     }
   }
 
   public void printTargetInfo(HatchTarget hatchTarget, double cameraAngleInDegrees) {
+    if (!annotating) {
+      return;
+    }
     RotatedRect rotatedRect = hatchTarget.targetRectangle();
     Point textStart = getBottomLeftPointFromRotatedRect(rotatedRect);
 
@@ -130,7 +160,13 @@ public class ImageAnnotator {
   }
 
   public void drawSlewingRectangle(Point slewPoint) throws TargetNotFoundException {
-    HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
+    drawSlewingRectangle(interpreter.getHatchTargetFromPoint(slewPoint));
+  }
+
+  public void drawSlewingRectangle(HatchTarget hatchTarget) {
+    if (!annotating) {
+      return;
+    }
     drawRotatedRect(hatchTarget.targetRectangle(), hatchTargetSlewingColor, 4);
     Point textStart = hatchTarget.center();
     textStart.x -= 30;
@@ -138,7 +174,13 @@ public class ImageAnnotator {
   }
 
   public void drawLockedRectangle(Point slewPoint) throws TargetNotFoundException {
-    HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
+    drawLockedRectangle(interpreter.getHatchTargetFromPoint(slewPoint));
+  }
+
+  public void drawLockedRectangle(HatchTarget hatchTarget) {
+    if (!annotating) {
+      return;
+    }
     drawRotatedRect(hatchTarget.targetRectangle(), hatchTargetSlewingColor, 4);
     Point textStart = hatchTarget.center();
     textStart.x -= 90;
@@ -151,7 +193,13 @@ public class ImageAnnotator {
   }
 
   public void drawAutoLockedRectangle(Point slewPoint) throws TargetNotFoundException {
-    HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
+    drawAutoLockedRectangle(interpreter.getHatchTargetFromPoint(slewPoint));
+  }
+
+  public void drawAutoLockedRectangle(HatchTarget hatchTarget) {
+    if (!annotating) {
+      return;
+    }
     drawRotatedRect(hatchTarget.targetRectangle(), hatchTargetSlewingColor, 4);
     Point textStart = hatchTarget.center();
     textStart.x -= 30;
@@ -164,7 +212,13 @@ public class ImageAnnotator {
   }
 
   public void drawDrivingRectangle(Point slewPoint) throws TargetNotFoundException {
-    HatchTarget hatchTarget = interpreter.getHatchTargetFromPoint(slewPoint);
+    drawDrivingRectangle(interpreter.getHatchTargetFromPoint(slewPoint));
+  }
+
+  public void drawDrivingRectangle(HatchTarget hatchTarget) {
+    if (!annotating) {
+      return;
+    }
     drawRotatedRect(hatchTarget.targetRectangle(), hatchTargetSlewingColor, 4);
     Point textStart = hatchTarget.center();
     textStart.x -= 150;
@@ -177,6 +231,9 @@ public class ImageAnnotator {
   }
 
   public void drawCalibrationInformation() {
+    if (!annotating) {
+      return;
+    }
     Size size = outputImage.size();
     ImageUtilities imageUtilities = new ImageUtilities(outputImage);
     float luminosity = imageUtilities.getAverageLuminosity();
@@ -190,6 +247,9 @@ public class ImageAnnotator {
   }
 
   public void printTargetIdentifiers(Map<String, Point> identifierToPointMap) {
+    if (!annotating) {
+      return;
+    }
     for (Map.Entry<String, Point> entry : identifierToPointMap.entrySet()) {
       Imgproc.putText(outputImage, entry.getKey(), entry.getValue(), Core.FONT_HERSHEY_COMPLEX_SMALL, .75, textColor);
     }
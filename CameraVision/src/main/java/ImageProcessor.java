@@ -1,16 +1,19 @@
 import org.opencv.core.*;
 
-import java.util.concurrent.*;
-
 /**
  * This class performs the processing and resulting action to a given
  * hatch target pipeline.
  */
 public class ImageProcessor {
   private IHatchTargetPipeline pipeline;
+  private HatchTargetPipelineInterpreter interpreter;
   private INetworkTableWriter networkTableWriter;
-  private ExecutorService executor = Executors.newSingleThreadExecutor();
-  private Future<?> processAsyncFuture;
+  private RegionOfInterestTracker regionOfInterestTracker;
+  private HatchTargetTracker hatchTargetTracker;
+  private volatile StageLatencies stageLatencies;
+  // Only touched by the detect thread
+  private HatchTargetFrame lastDetectedFrame;
+  private int framesSinceDetection;
 
   /**
    * ImageProcessor requires a pipeline to process and a network table writer to write
@@ -20,50 +23,139 @@ public class ImageProcessor {
    */
   public ImageProcessor(IHatchTargetPipeline pipeline, 
       INetworkTableWriter networkTableWriter) {
+    this(pipeline, null, networkTableWriter);
+  }
+
+  /**
+   * ImageProcessor requires a pipeline to process and a network table writer to write
+   * results to. The interpreter is handed each processed frame once, before anything
+   * reads results from it.
+   * @param pipeline              The pipeline to process
+   * @param interpreter           The interpreter of the pipeline results, or null
+   * @param networkTableWriter    A network table writer to send results to
+   */
+  public ImageProcessor(IHatchTargetPipeline pipeline, 
+      HatchTargetPipelineInterpreter interpreter,
+      INetworkTableWriter networkTableWriter) {
+    this(pipeline, interpreter, networkTableWriter, null);
+  }
+
+  /**
+   * ImageProcessor requires a pipeline to process and a network table writer to write
+   * results to. When detecting, only the region of interest of the tracker is processed,
+   * and the tracker is moved to follow what was found.
+   * @param pipeline                The pipeline to process
+   * @param interpreter             The interpreter of the pipeline results, or null
+   * @param networkTableWriter      A network table writer to send results to
+   * @param regionOfInterestTracker The tracker of the target being followed, or null
+   */
+  public ImageProcessor(IHatchTargetPipeline pipeline, 
+      HatchTargetPipelineInterpreter interpreter,
+      INetworkTableWriter networkTableWriter,
+      RegionOfInterestTracker regionOfInterestTracker) {
+    this(pipeline, interpreter, networkTableWriter, regionOfInterestTracker, null);
+  }
+
+  /**
+   * ImageProcessor requires a pipeline to process and a network table writer to write
+   * results to. When detecting, frames are also tracked, so that targets keep their
+   * IDs from frame to frame and the region of interest can follow a target by ID.
+   * @param pipeline                The pipeline to process
+   * @param interpreter             The interpreter of the pipeline results, or null
+   * @param networkTableWriter      A network table writer to send results to
+   * @param regionOfInterestTracker The tracker of the target being followed, or null
+   * @param hatchTargetTracker      The tracker of targets across frames, or null
+   */
+  public ImageProcessor(IHatchTargetPipeline pipeline, 
+      HatchTargetPipelineInterpreter interpreter,
+      INetworkTableWriter networkTableWriter,
+      RegionOfInterestTracker regionOfInterestTracker,
+      HatchTargetTracker hatchTargetTracker) {
     if (pipeline == null) {
       throw new IllegalArgumentException();
     }
     this.pipeline = pipeline;
+    this.interpreter = interpreter;
     this.networkTableWriter = networkTableWriter;
-    this.processAsyncFuture = null;
+    this.regionOfInterestTracker = regionOfInterestTracker;
+    this.hatchTargetTracker = hatchTargetTracker;
   }
 
   /**
-   * Process an image asynchronously.  Call awaitProcessCompletion to wait for completion.
-   * You can only process one image at a time.
-   * @param inputImage    The image to process
+   * Record how long interpreting takes when detecting.
+   * @param stageLatencies  Where to record, or null to stop timing
    */
-  public void processAsync(Mat inputImage)
-  {
-    if (processAsyncFuture != null) {
-      throw new IllegalAccessError("Only one process can be awaited at a time.");            
-    }
-    // Hold on the the future...use the awaiter to wait for completion
-    processAsyncFuture = executor.submit(() -> {
-      // Apply the pipeline to the image.
-      pipeline.process(inputImage);
+  public void setStageLatencies(StageLatencies stageLatencies) {
+    this.stageLatencies = stageLatencies;
+  }
 
-      // Update network table
-      networkTableWriter.write();
-      return;
-    });
+  /**
+   * Process and interpret an image on the calling thread, without writing
+   * to network tables.
+   * @param inputImage        The image to process
+   * @param cameraParameters  The parameters of the camera the image came from
+   * @return                  The interpreted frame, tracked if there is a target tracker
+   */
+  public HatchTargetFrame detect(Mat inputImage, CameraParameters cameraParameters) {
+    if (interpreter == null) {
+      throw new IllegalStateException("An interpreter is required to detect targets.");
+    }
+    interpreter.setCameraParameters(cameraParameters);
+    if (regionOfInterestTracker != null) {
+      pipeline.setRegionOfInterest(regionOfInterestTracker.getRegionOfInterest(cameraParameters));
+    }
+    pipeline.process(inputImage);
+    long interpretStart = System.nanoTime();
+    HatchTargetFrame frame = interpreter.interpret();
+    StageLatencies latencies = stageLatencies;
+    if (latencies != null) {
+      latencies.recordSince(StageLatencies.Stage.Interpret, interpretStart);
+    }
+    if (hatchTargetTracker != null) {
+      frame = hatchTargetTracker.update(frame);
+    }
+    if (regionOfInterestTracker != null) {
+      regionOfInterestTracker.update(frame);
+    }
+    return frame;
   }
 
   /**
-   * Await an image process async call to finish.
+   * Process and interpret a captured frame as often as a processing profile asks
+   * for. Frames interpreted carry the capture details of the frame. On frames the
+   * profile skips, the targets last detected from the same camera are handed on
+   * again, with the capture details of the frame they were found in. When the
+   * profile does not detect at all, no targets are found.
+   * @param capturedFrame     The frame to process
+   * @param processingProfile How much work to do on the frame
+   * @return                  The interpreted frame, or the last one
    */
-  public void awaitProcessCompletion() {
-    try {
-      processAsyncFuture.get();
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-    } catch (ExecutionException e) {
-      System.out.println(e.getMessage());
-    } catch (NullPointerException e) {
-      throw new IllegalAccessError("You must call processAsync first before awaiting completion.");
+  public HatchTargetFrame detect(PipelineFrame capturedFrame, ProcessingProfile processingProfile) {
+    CameraParameters cameraParameters = capturedFrame.getCameraParameters();
+    if (!processingProfile.isDetecting()) {
+      lastDetectedFrame = null;
+      return HatchTargetFrame.empty(cameraParameters);
+    }
+    framesSinceDetection++;
+    if (lastDetectedFrame != null 
+        && lastDetectedFrame.getCameraParameters() == cameraParameters
+        && framesSinceDetection < processingProfile.getDetectionInterval()) {
+      return lastDetectedFrame;
     }
-    // Reset our future
-    processAsyncFuture = null;
-    return;
+    framesSinceDetection = 0;
+    lastDetectedFrame = detect(capturedFrame.getImage(), cameraParameters).withCapture(
+      capturedFrame.getFrameNumber(), 
+      capturedFrame.getCaptureTimestamp(), 
+      capturedFrame.getGrabbedNanos());
+    return lastDetectedFrame;
+  }
+
+  /**
+   * Write an interpreted frame to network tables. Only the frame is read, so
+   * this can run while the next frame is detected.
+   * @param frame The interpreted frame, such as one returned from detect
+   */
+  public void publish(HatchTargetFrame frame) {
+    networkTableWriter.write(frame);
   }
-}
\ No newline at end of file
+}
@@ -6,11 +6,18 @@ import java.util.concurrent.*;
  * This class sets up the use of futures to read the next frame
  * from an opencv imageSink.
  * 
+ * <p>Given a MatPool, frames are grabbed straight into Mats leased from
+ * the pool instead of being cloned. The consumer must hand each pumped
+ * image back with release once it is done with it.
+ * 
  * @author Chuck Benedict, Mentor, Team 997
  */
 public class ImagePump {
     private CvSink imageSink;
     private Mat inputImage;
+    private final MatPool matPool;
+    // Returned when a frame could not be grabbed
+    private final Mat emptyImage;
     private ExecutorService executor = Executors.newSingleThreadExecutor();
     private Future<Mat> pumpAsyncFuture;
 
@@ -20,11 +27,24 @@ public class ImagePump {
      * @param imageSink This is the sink that will be pumped for the next frame
      */
     public ImagePump(CvSink imageSink) {
+        this(imageSink, null);
+    }
+
+    /**
+     * This class wraps up the pumping of images from an image sink into
+     * Mats leased from a pool.
+     * 
+     * @param imageSink This is the sink that will be pumped for the next frame
+     * @param matPool   The pool to lease Mats from, or null to clone each frame
+     */
+    public ImagePump(CvSink imageSink, MatPool matPool) {
         if (imageSink == null) {
             throw new IllegalArgumentException("imageSink cannot be null");
         }
         this.imageSink = imageSink;
-        this.inputImage = new Mat();
+        this.matPool = matPool;
+        this.inputImage = matPool == null ? new Mat() : null;
+        this.emptyImage = new Mat();
         this.pumpAsyncFuture = null;
     }
 
@@ -44,18 +64,51 @@ public class ImagePump {
      * Pump the image sink for the next frame.
      */
     public Mat pump() {
-        return pumpInternal();
+        try {
+            return pumpInternal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return emptyImage;
+        }
+    }
+
+    /**
+     * Hand a pumped image back once processing and the HUD are done with it.
+     * Pooled images go back to the pool; otherwise the native memory of the
+     * clone is freed now rather than when the finalizer gets to it.
+     * 
+     * @param image The image returned from pump or awaitPumpCompletion
+     */
+    public void release(Mat image) {
+        if (image == null || image == emptyImage) {
+            return;
+        }
+        if (matPool != null) {
+            matPool.release(image);
+        } else {
+            image.release();
+        }
     }
 
     /**
      * DRY up pumping.
      */
-    private Mat pumpInternal() {
+    private Mat pumpInternal() throws InterruptedException {
         long frameTime;
+        if (matPool != null) {
+            Mat pooledImage = matPool.lease();
+            frameTime = imageSink.grabFrame(pooledImage);
+            if (frameTime == 0) {
+                matPool.release(pooledImage);
+                System.out.println(imageSink.getError());
+                return emptyImage;
+            }
+            return pooledImage;
+        }
         frameTime = imageSink.grabFrame(inputImage);
         if (frameTime == 0) {
           System.out.println(imageSink.getError());
-          return new Mat();
+          return emptyImage;
         }
         return inputImage.clone();
     }
@@ -79,7 +132,7 @@ public class ImagePump {
             // Reset our future
             pumpAsyncFuture = null;
             if (pumpedImage == null) {
-                pumpedImage = new Mat();
+                pumpedImage = emptyImage;
             }
         }
         return pumpedImage;
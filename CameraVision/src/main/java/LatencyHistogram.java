@@ -0,0 +1,173 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count latencies in nanoseconds into a fixed number of buckets, so that tail
+ * percentiles such as the 99th can be read without keeping every sample.
+ * Latencies below 2^SUBBUCKETBITS nanoseconds get a bucket each; above that,
+ * every power of two is split into 2^SUBBUCKETBITS buckets, so a percentile is
+ * reported within about 6% of the latency recorded, from nanoseconds to
+ * centuries, in under 8KB.
+ *
+ * <p>Latencies are recorded on the thread doing the work and read from any
+ * other without locking. Readings taken while latencies are recorded may be a
+ * sample or so behind.
+ */
+public class LatencyHistogram {
+  private static final int SUBBUCKETBITS = 4;
+  private static final int SUBBUCKETCOUNT = 1 << SUBBUCKETBITS;
+  private static final long SUBBUCKETMASK = SUBBUCKETCOUNT - 1;
+  // Enough buckets for the largest long
+  private static final int BUCKETCOUNT = (64 - SUBBUCKETBITS) * SUBBUCKETCOUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETCOUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Count one latency.
+   *
+   * @param nanos The latency in nanoseconds. Negative latencies count as 0.
+   */
+  public void record(long nanos) {
+    long latency = Math.max(nanos, 0);
+    counts.incrementAndGet(bucketOf(latency));
+    count.incrementAndGet();
+    long currentMax;
+    while (latency > (currentMax = max.get())) {
+      if (max.compareAndSet(currentMax, latency)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Count the time since a start time.
+   *
+   * @param startNanos  The start time, from System.nanoTime().
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return  The number of latencies counted.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return  The largest latency counted in nanoseconds, exactly, or 0 if none.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get the latency that a percentage of those counted were at or under.
+   * The top of the bucket it falls in is reported, so a percentile is never
+   * under the latency recorded, but it is never over the maximum either.
+   *
+   * @param percentile  The percentage, from 0 to 100.
+   * @return            The latency in nanoseconds, or 0 if none were counted.
+   */
+  public long getPercentile(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("Percentile must be from 0 to 100.");
+    }
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETCOUNT; bucket++) {
+      total += counts.get(bucket);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil((percentile / 100) * total), 1);
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETCOUNT; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(highestInBucket(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Copy the latencies counted so far. The copy's count always matches its
+   * buckets, even while latencies are being recorded.
+   *
+   * @return  A histogram of the latencies counted so far, which later
+   *          recording does not change.
+   */
+  public LatencyHistogram snapshot() {
+    LatencyHistogram snapshot = new LatencyHistogram();
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETCOUNT; bucket++) {
+      long bucketCount = counts.get(bucket);
+      snapshot.counts.set(bucket, bucketCount);
+      total += bucketCount;
+    }
+    snapshot.count.set(total);
+    snapshot.max.set(getMax());
+    return snapshot;
+  }
+
+  /**
+   * Get the latencies counted since an earlier snapshot of this histogram,
+   * such as those of one metrics window. The maximum is the top of the
+   * highest bucket counted since, but never over this histogram's maximum.
+   *
+   * @param earlier An earlier snapshot of this histogram.
+   * @return        A histogram of the latencies counted since.
+   */
+  public LatencyHistogram since(LatencyHistogram earlier) {
+    if (earlier == null) {
+      throw new IllegalArgumentException("Earlier snapshot cannot be null.");
+    }
+    LatencyHistogram since = new LatencyHistogram();
+    long total = 0;
+    int highestBucket = -1;
+    for (int bucket = 0; bucket < BUCKETCOUNT; bucket++) {
+      long bucketCount = Math.max(counts.get(bucket) - earlier.counts.get(bucket), 0);
+      if (bucketCount > 0) {
+        since.counts.set(bucket, bucketCount);
+        total += bucketCount;
+        highestBucket = bucket;
+      }
+    }
+    since.count.set(total);
+    if (highestBucket >= 0) {
+      since.max.set(Math.min(highestInBucket(highestBucket), getMax()));
+    }
+    return since;
+  }
+
+  static int bucketOf(long latency) {
+    if (latency < SUBBUCKETCOUNT) {
+      return (int) latency;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(latency)) - SUBBUCKETBITS;
+    return ((shift + 1) << SUBBUCKETBITS) + (int) ((latency >>> shift) & SUBBUCKETMASK);
+  }
+
+  static long highestInBucket(int bucket) {
+    if (bucket < SUBBUCKETCOUNT) {
+      return bucket;
+    }
+    int shift = (bucket >> SUBBUCKETBITS) - 1;
+    long lowest = ((bucket & SUBBUCKETMASK) | SUBBUCKETCOUNT) << shift;
+    return lowest + ((1L << shift) - 1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("p50 %.2fms, p95 %.2fms, p99 %.2fms, max %.2fms (%d)",
+      getPercentile(50) / 1e6,
+      getPercentile(95) / 1e6,
+      getPercentile(99) / 1e6,
+      getMax() / 1e6,
+      getCount());
+  }
+}
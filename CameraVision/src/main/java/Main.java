@@ -10,6 +10,12 @@ import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 
 public class Main {
+  // Working var to save images at end of processing if requested.
+  private volatile boolean saveImages = false;
+  // How long each stage takes, frame by frame
+  private final StageLatencies stageLatencies = new StageLatencies();
+  // Number of the last frame captured, only touched by the capture stage
+  private long frameNumber = 0;
 
   public static void main(String ... argv) throws CameraParametersException, MalformedURLException {
     Main main = new Main();
@@ -43,7 +49,12 @@ public class Main {
     CameraParameters backCameraParameters = CameraParametersFactoryPi.getCameraParameters(runtimeSettings.getBackCameraURL(), "back");
 
     // Wire up the pipeline to use for image processing
-    IHatchTargetPipeline pipeline = new HatchTargetPipelineLifecam();
+    GripHatchTargetPipeline pipeline = new HatchTargetPipelineLifecam();
+    pipeline.setPyramidLevel(runtimeSettings.getPyramidLevel());
+    pipeline.setStageLatencies(stageLatencies);
+    if (runtimeSettings.getLookupTable()) {
+      pipeline.setPixelClassifier(new BgrLookupTableClassifier());
+    }
 
     if (!runtimeSettings.getNoNT()) {
       NetworkTable.setClientMode();
@@ -81,101 +92,158 @@ public class Main {
     // By rules, this has to be between 1180 and 1190.
     MjpegServer cvStream = new MjpegServer("HUD", 1186);
     cvStream.setSource(imageSource);
+    // Only draw the HUD as often as it is worth watching, and not at all while nobody is
+    HudRenderGate hudRenderGate = new HudRenderGate(runtimeSettings.getHudFps());
+    if (!runtimeSettings.getHudAlways()) {
+      hudRenderGate.follow(imageSource);
+    }
 
-    // Set up the image pump to grab images.
-    ImagePump frontImagePump = new ImagePump(frontImageSink);
-    ImagePump backImagePump = new ImagePump(backImageSink);
+    // Set up a grabber per camera to keep draining it into a fixed pool of Mats,
+    // one for every frame that can be in flight between the processing stages
+    // plus those each grabber holds.
+    MatPool framePool = new MatPool(StagedFrameProcessor.MAXFRAMESINFLIGHT + (2 * FrameGrabber.MAXFRAMESHELD), 
+      backCamera.getVideoMode().height, 
+      backCamera.getVideoMode().width, 
+      CvType.CV_8UC3);
+    FrameGrabber frontFrameGrabber = new FrameGrabber(frontImageSink, framePool);
+    FrameGrabber backFrameGrabber = new FrameGrabber(backImageSink, framePool);
 
-    ScoringDirectionStates scoringDirection = getScoringDirection(smartDashboardTable);
+    // Listen for the scoring direction and pan angles rather than reading them every frame
+    DashboardInputs dashboardInputs = new DashboardInputs(smartDashboardTable);
+    DashboardInputs.ScoringDirection scoringDirection = dashboardInputs.getScoringDirection();
 
     // Get pipeline interpreter
     HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(pipeline, 
-      scoringDirection == ScoringDirectionStates.Front ? frontCameraParameters : backCameraParameters);
+      scoringDirection == DashboardInputs.ScoringDirection.Front ? frontCameraParameters : backCameraParameters);
+    if (runtimeSettings.getOptimalPairing()) {
+      interpreter.setPairingStrategy(new OptimalPairingStrategy());
+    }
+    interpreter.setSlopFactor(runtimeSettings.getSlopFactor());
+
+    // The HUD draws one frame while the next is being interpreted, so it
+    // gets its own interpreter that answers from the frame it is drawing.
+    HatchTargetPipelineInterpreter hudInterpreter = new HatchTargetPipelineInterpreter(
+      scoringDirection == DashboardInputs.ScoringDirection.Front ? frontCameraParameters : backCameraParameters);
 
     // Get the image annotator
-    ImageAnnotator imageAnnotator = new ImageAnnotator(interpreter);
+    ImageAnnotator imageAnnotator = new ImageAnnotator(hudInterpreter);
+
+    // While the HUD follows one target, only the region around it is processed
+    RegionOfInterestTracker regionOfInterestTracker = new RegionOfInterestTracker();
 
-    // Flag to indicate whether to continue looping
-    boolean looping = true;
+    // The state the robot reports says how much work to do on frames
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
 
-    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotator, interpreter, publishingTable, smartDashboardTable);
+    // The targets and the HUD's selected target are written through one publisher,
+    // so only what changed is sent, flushed once the targets are written and
+    // again once the HUD has written
+    NetworkTablePublisher visionPublisher = new NetworkTablePublisher(publishingTable);
+
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotator, 
+      hudInterpreter, 
+      publishingTable, 
+      regionOfInterestTracker, 
+      stateMachine,
+      visionPublisher,
+      dashboardInputs);
+
+    NetworkTableWriter networkTableWriter = new NetworkTableWriter(interpreter, visionPublisher);
 
     // Get the image processor
     ImageProcessor imageProcessor = new ImageProcessor(
       pipeline, 
-      new NetworkTableWriter(
-        interpreter,
-        publishingTable)
+      interpreter,
+      networkTableWriter,
+      regionOfInterestTracker,
+      // Keep target IDs from frame to frame so the HUD can follow a lock by ID
+      new HatchTargetTracker()
     );
-
-    // Init these vars outside processing loop, as they are expensive to create.
-    Mat inputImage = new Mat();
-    Mat outputImage = new Mat();
-
-    System.out.println("Processing stream...");
-
-    // Prime the image pump
-    inputImage = scoringDirection == ScoringDirectionStates.Front ? frontImagePump.pump() : backImagePump.pump();
-
-    // Working var to save images at end of processing if requested.
-    boolean saveImages = false;
-
-    while (!Thread.currentThread().isInterrupted() && looping) {
-      if (!inputImage.empty()) {
-        // Process the image concurrently...
-        imageProcessor.processAsync(inputImage);
-
-        // ... while pumping the frame grabber for the next frame.
-        if (scoringDirection == ScoringDirectionStates.Front) {
-          frontImagePump.pumpAsync();
-          interpreter.setCameraParameters(frontCameraParameters);
-        } else {
-          backImagePump.pumpAsync();
-          interpreter.setCameraParameters(backCameraParameters);
+    imageProcessor.setStageLatencies(stageLatencies);
+
+    // Capture, detect, publish, and annotate overlapped on their own threads
+    StagedFrameProcessor stagedFrameProcessor = new StagedFrameProcessor(
+      // Capture the newest frame from the camera facing the scoring direction
+      () -> dashboardInputs.getScoringDirection() == DashboardInputs.ScoringDirection.Front 
+        ? capture(frontFrameGrabber, frontCameraParameters) 
+        : capture(backFrameGrabber, backCameraParameters),
+      // Detect targets as much as the current state needs
+      (frame) -> {
+        ProcessingProfile processingProfile = stateMachine.getProcessingProfile();
+        pipeline.setPyramidLevel(processingProfile.getPyramidLevel(runtimeSettings.getPyramidLevel()));
+        return frame.withTargets(imageProcessor.detect(frame, processingProfile));
+      },
+      // Publish targets to network tables
+      (frame) -> {
+        long start = System.nanoTime();
+        imageProcessor.publish(frame.getTargets());
+        // Send the targets now rather than behind the HUD update
+        visionPublisher.flush();
+        stageLatencies.recordSince(StageLatencies.Stage.NetworkTablesWrite, start);
+        stageLatencies.recordSince(StageLatencies.Stage.CaptureToPublish, frame.getGrabbedNanos());
+      },
+      // Update the HUD image with current state info and write it out
+      (frame) -> {
+        long start = System.nanoTime();
+        // Frames not streamed still go through the HUD for its network tables values
+        boolean render = stateMachine.getProcessingProfile().isStreamingHud() 
+          && hudRenderGate.shouldRender(start);
+        Mat outputImage = hud.update(frame.getImage(), frame.getTargets(), render);
+        // The HUD writes the selected target, so send that too
+        visionPublisher.flush();
+        stageLatencies.recordSince(StageLatencies.Stage.Annotate, start);
+        if (render) {
+          start = System.nanoTime();
+          imageSource.putFrame(outputImage);
+          stageLatencies.recordSince(StageLatencies.Stage.PutFrame, start);
         }
-
-        // Await image processing to finsh
-        imageProcessor.awaitProcessCompletion();
-
-        // Update the HUD image with current state info
-        outputImage = hud.update(inputImage);
-
-        // Write out the HUD image
-        imageSource.putFrame(outputImage);
-
-        // This could/should be put into a future
         // TODO: Read state from smartdashboard in order to trigger 
-        if (saveImages) {
+        if (saveImages && render) {
           saveImages = false;
-          saveImages(inputImage, outputImage);
+          saveImages(frame.getImage(), outputImage);
         }
+      },
+      // Done with this frame, so hand it back to be grabbed into again
+      (frame) -> framePool.release(frame.getImage()));
 
-        // Get the next image
-        inputImage = scoringDirection == ScoringDirectionStates.Front ? frontImagePump.awaitPumpCompletion() : backImagePump.awaitPumpCompletion();
-      } else {
-        // Get the next image, because the prior one was empty
-        inputImage = scoringDirection == ScoringDirectionStates.Front ? frontImagePump.pump() : backImagePump.pump();
-      }
+    System.out.println("Processing stream...");
 
-      // Update the scoring direction
-      scoringDirection = getScoringDirection(smartDashboardTable);
+    // Let the dashboard see when we fall behind
+    if (publishingTable != null) {
+      MetricsPublisher metricsPublisher = new MetricsPublisher(publishingTable.getSubTable("Metrics"), 
+        stageLatencies, 
+        interpreter.getPairValidationStatistics(), 
+        frontFrameGrabber, 
+        backFrameGrabber);
+      metricsPublisher.start();
     }
-  }
 
-  private enum ScoringDirectionStates {
-    None,
-    Front,
-    Back
+    frontFrameGrabber.start("Front Frame Grabber");
+    backFrameGrabber.start("Back Frame Grabber");
+    stagedFrameProcessor.start();
+    stagedFrameProcessor.awaitTermination();
   }
 
-  private ScoringDirectionStates getScoringDirection(NetworkTable smartDashboardTable) {
-    String stateString;
-
-    if (smartDashboardTable == null) {
-      return ScoringDirectionStates.Back;
-    } else {
-      stateString = smartDashboardTable.getString("Scoring Direction", "Back");
-      return Enum.valueOf(ScoringDirectionStates.class, stateString);
+  /**
+   * Take the newest frame from a grabber. The time taken, including waiting
+   * for the camera, is the capture latency.
+   * 
+   * @param frameGrabber      The grabber of the camera to capture from.
+   * @param cameraParameters  Parameters of that camera.
+   * @return                  The captured frame, or an empty one if interrupted.
+   */
+  private PipelineFrame capture(FrameGrabber frameGrabber, CameraParameters cameraParameters) {
+    try {
+      long start = System.nanoTime();
+      CapturedFrame capturedFrame = frameGrabber.take();
+      stageLatencies.recordSince(StageLatencies.Stage.Capture, start);
+      return new PipelineFrame(capturedFrame.getImage(), 
+        cameraParameters, 
+        ++frameNumber, 
+        capturedFrame.getTimestamp(), 
+        capturedFrame.getGrabbedNanos());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new PipelineFrame(new Mat(), cameraParameters);
     }
   }
 
@@ -0,0 +1,89 @@
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.opencv.core.*;
+
+/**
+ * A fixed pool of pre-allocated Mats that are leased out for a frame
+ * and handed back when the frame is done with. Grabbing frames into
+ * recycled Mats means no native memory is allocated per frame, and so
+ * nothing is left for finalizers to clean up.
+ */
+public class MatPool {
+    private final ArrayBlockingQueue<Mat> available;
+    private final Set<Mat> pooledMats;
+
+    /**
+     * Create a pool of Mats allocated to the size frames will arrive in.
+     * 
+     * @param size  The number of Mats in the pool
+     * @param rows  The height of each Mat
+     * @param cols  The width of each Mat
+     * @param type  The opencv type of each Mat, such as CvType.CV_8UC3
+     */
+    public MatPool(int size, int rows, int cols, int type) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        this.available = new ArrayBlockingQueue<Mat>(size);
+        this.pooledMats = Collections.newSetFromMap(new IdentityHashMap<Mat, Boolean>());
+        for (int i = 0; i < size; i++) {
+            Mat mat = (rows > 0 && cols > 0) ? new Mat(rows, cols, type) : new Mat();
+            pooledMats.add(mat);
+            available.add(mat);
+        }
+    }
+
+    /**
+     * Create a pool of empty Mats, which are allocated on their first use.
+     * 
+     * @param size  The number of Mats in the pool
+     */
+    public MatPool(int size) {
+        this(size, 0, 0, CvType.CV_8UC3);
+    }
+
+    /**
+     * Lease a Mat from the pool, waiting for one to be released if
+     * all of them are leased.
+     * 
+     * @return  A Mat owned by the pool
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Mat lease() throws InterruptedException {
+        return available.take();
+    }
+
+    /**
+     * Hand a leased Mat back to the pool. Mats that do not belong to the
+     * pool, such as an empty image returned on a failed grab, are ignored.
+     * 
+     * @param mat   The Mat to hand back
+     */
+    public void release(Mat mat) {
+        if (mat != null && pooledMats.contains(mat) && !available.contains(mat)) {
+            available.offer(mat);
+        }
+    }
+
+    /**
+     * Does this Mat belong to the pool?
+     * 
+     * @param mat   The Mat to check
+     * @return      True if the Mat was allocated by this pool
+     */
+    public boolean owns(Mat mat) {
+        return pooledMats.contains(mat);
+    }
+
+    /**
+     * Get the number of Mats ready to be leased.
+     * 
+     * @return  The number of Mats not leased out
+     */
+    public int available() {
+        return available.size();
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.wpi.first.wpilibj.tables.ITable;
+
+/**
+ * Write how the coprocessor is keeping up to a metrics table, such as
+ * Vision/Metrics, so the drive team and robot code can see when it is falling
+ * behind: frames processed per second, frames dropped by the camera being
+ * processed, the p50 and p99 latency of each stage in milliseconds, memory in
+ * use and CPU load.
+ *
+ * <p>Metrics are written a couple of times a second from a low priority thread
+ * of their own, so they never hold up target data. Each write covers the stage
+ * latencies recorded since the one before, taken as the difference between
+ * snapshots, so the stage latencies themselves keep counting for other readers.
+ */
+public class MetricsPublisher {
+  public static final long PUBLISHPERIODMILLIS = 500;
+  private static final double NANOSPERMILLI = 1e6;
+  private static final double BYTESPERMB = 1024 * 1024;
+
+  private final ITable metricsTable;
+  private final StageLatencies stageLatencies;
+  private final PairValidationStatistics pairValidationStatistics;
+  private final FrameGrabber[] frameGrabbers;
+  private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+  private final String[] p50Keys = new String[StageLatencies.Stage.values().length];
+  private final String[] p99Keys = new String[StageLatencies.Stage.values().length];
+  private ScheduledExecutorService scheduler;
+  private long lastPublishNanos = System.nanoTime();
+  // The first write covers everything recorded before it
+  private StageLatencies lastStageLatencies = new StageLatencies();
+  // Counts from each grabber as of the last write, only touched by publish
+  private final long[] lastTakenFrames;
+  private final long[] lastDroppedFrames;
+  private long droppedFrames = 0;
+
+  /**
+   * @param metricsTable              The table to write metrics to.
+   * @param stageLatencies            The latencies each stage records.
+   * @param pairValidationStatistics  The counts of pairs checked, or null.
+   * @param frameGrabbers             The grabbers of each camera.
+   */
+  public MetricsPublisher(ITable metricsTable,
+      StageLatencies stageLatencies,
+      PairValidationStatistics pairValidationStatistics,
+      FrameGrabber ... frameGrabbers) {
+    if (metricsTable == null) {
+      throw new IllegalArgumentException("Metrics table cannot be null.");
+    }
+    if (stageLatencies == null) {
+      throw new IllegalArgumentException("Stage latencies cannot be null.");
+    }
+    this.metricsTable = metricsTable;
+    this.stageLatencies = stageLatencies;
+    this.pairValidationStatistics = pairValidationStatistics;
+    this.frameGrabbers = frameGrabbers;
+    lastTakenFrames = new long[frameGrabbers.length];
+    lastDroppedFrames = new long[frameGrabbers.length];
+    for (StageLatencies.Stage stage : StageLatencies.Stage.values()) {
+      p50Keys[stage.ordinal()] = stage + "P50Ms";
+      p99Keys[stage.ordinal()] = stage + "P99Ms";
+    }
+  }
+
+  /**
+   * Start writing metrics every PUBLISHPERIODMILLIS.
+   */
+  public synchronized void start() {
+    if (scheduler != null) {
+      throw new IllegalStateException("Metrics publisher has already been started.");
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+      Thread thread = new Thread(runnable, "Metrics Publisher");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(() -> {
+      try {
+        publish();
+      } catch (RuntimeException e) {
+        // Keep publishing; a failed write should not stop the metrics
+        System.out.println(String.format("Metrics publish failed: %s", e.getMessage()));
+      }
+    }, PUBLISHPERIODMILLIS, PUBLISHPERIODMILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop writing metrics.
+   */
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  /**
+   * Write the metrics since the last write.
+   */
+  public void publish() {
+    long now = System.nanoTime();
+    double elapsedSeconds = (now - lastPublishNanos) / 1e9;
+    lastPublishNanos = now;
+
+    StageLatencies currentStageLatencies = stageLatencies.snapshot();
+    StageLatencies windowLatencies = currentStageLatencies.since(lastStageLatencies);
+    lastStageLatencies = currentStageLatencies;
+
+    // Every processed frame has its targets written
+    long framesProcessed = windowLatencies.getHistogram(StageLatencies.Stage.NetworkTablesWrite).getCount();
+    metricsTable.putNumber("FramesPerSecond", elapsedSeconds > 0 ? framesProcessed / elapsedSeconds : 0);
+    // A camera nobody takes from drops nearly every frame it grabs, so only
+    // count drops from cameras that frames were taken from since the last write
+    for (int grabber = 0; grabber < frameGrabbers.length; grabber++) {
+      long takenFrames = frameGrabbers[grabber].getTakenFrames();
+      long grabberDroppedFrames = frameGrabbers[grabber].getDroppedFrames();
+      if (takenFrames > lastTakenFrames[grabber]) {
+        droppedFrames += grabberDroppedFrames - lastDroppedFrames[grabber];
+      }
+      lastTakenFrames[grabber] = takenFrames;
+      lastDroppedFrames[grabber] = grabberDroppedFrames;
+    }
+    metricsTable.putNumber("DroppedFrames", droppedFrames);
+
+    for (StageLatencies.Stage stage : StageLatencies.Stage.values()) {
+      LatencyHistogram histogram = windowLatencies.getHistogram(stage);
+      metricsTable.putNumber(p50Keys[stage.ordinal()], histogram.getPercentile(50) / NANOSPERMILLI);
+      metricsTable.putNumber(p99Keys[stage.ordinal()], histogram.getPercentile(99) / NANOSPERMILLI);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    metricsTable.putNumber("HeapUsedMB", (runtime.totalMemory() - runtime.freeMemory()) / BYTESPERMB);
+    // Images live outside the heap, so the whole process is what counts
+    double residentMB = residentMB();
+    if (residentMB >= 0) {
+      metricsTable.putNumber("ResidentMB", residentMB);
+    }
+    metricsTable.putNumber("SystemLoadAverage", operatingSystem.getSystemLoadAverage());
+    if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+      metricsTable.putNumber("ProcessCpuLoad",
+        ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuLoad());
+    }
+
+    if (pairValidationStatistics != null) {
+      metricsTable.putNumber("RejectedPairs", pairValidationStatistics.getRejectedCount());
+    }
+  }
+
+  /**
+   * Get the memory resident for the whole process, heap and native, from
+   * /proc on Linux.
+   *
+   * @return  The resident memory in MB, or -1 if it cannot be read.
+   */
+  private static double residentMB() {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+        if (line.startsWith("VmRSS:")) {
+          // Such as "VmRSS:    123456 kB"
+          String[] fields = line.trim().split("\\s+");
+          return Long.parseLong(fields[1]) / 1024.0;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // Not on Linux
+    }
+    return -1;
+  }
+}
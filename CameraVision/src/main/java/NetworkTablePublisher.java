@@ -0,0 +1,361 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.tables.ITable;
+
+/**
+ * Write values to a network table only when they change, so the field radio
+ * carries what the robot needs and little else. Each key keeps the last value
+ * written, so a value the same as last frame's is not put again.
+ *
+ * <p>Critical values, those the robot steers by, are put as soon as they change
+ * and sent with an explicit flush as soon as a frame writes them, rather than
+ * waiting up to the network tables update period. Cosmetic values, those only
+ * the dashboard shows, are put at most every COSMETICPERIODMILLIS; the latest
+ * change waits for the next flush after that.
+ *
+ * <p>Subtables are looked up once and share the flush of the table they came
+ * from. A publisher may be written to from more than one processing stage.
+ */
+public class NetworkTablePublisher {
+  /**
+   * How soon a changed value needs to get to the robot.
+   */
+  public enum Priority {
+    Critical, Cosmetic
+  }
+
+  public static final long COSMETICPERIODMILLIS = 250;
+
+  private final ITable table;
+  private final Root root;
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+  private final Map<String, NetworkTablePublisher> subTables = new HashMap<String, NetworkTablePublisher>();
+
+  /**
+   * Publish to a table, flushing network tables when a critical value changed.
+   *
+   * @param table The table to write to.
+   */
+  public NetworkTablePublisher(ITable table) {
+    this(table, NetworkTable::flush, COSMETICPERIODMILLIS * 1000000);
+  }
+
+  /**
+   * @param table               The table to write to.
+   * @param flusher             Sends what has been put right away.
+   * @param cosmeticPeriodNanos How often a cosmetic value may be put.
+   */
+  NetworkTablePublisher(ITable table, Runnable flusher, long cosmeticPeriodNanos) {
+    this(table, new Root(flusher, cosmeticPeriodNanos));
+  }
+
+  private NetworkTablePublisher(ITable table, Root root) {
+    if (table == null) {
+      throw new IllegalArgumentException("Table cannot be null.");
+    }
+    this.table = table;
+    this.root = root;
+  }
+
+  /**
+   * Get a publisher for a subtable, looking the subtable up the first time only.
+   *
+   * @param key The subtable key.
+   * @return    The publisher for the subtable.
+   */
+  public NetworkTablePublisher getSubTable(String key) {
+    synchronized (root) {
+      NetworkTablePublisher subTable = subTables.get(key);
+      if (subTable == null) {
+        subTable = new NetworkTablePublisher(table.getSubTable(key), root);
+        subTables.put(key, subTable);
+      }
+      return subTable;
+    }
+  }
+
+  public void putNumber(String key, double value, Priority priority) {
+    synchronized (root) {
+      NumberEntry entry = (NumberEntry) entry(key, priority, NumberEntry::new);
+      if (!entry.published || Double.doubleToLongBits(entry.value) != Double.doubleToLongBits(value)) {
+        entry.value = value;
+        changed(entry);
+      }
+    }
+  }
+
+  public void putBoolean(String key, boolean value, Priority priority) {
+    synchronized (root) {
+      BooleanEntry entry = (BooleanEntry) entry(key, priority, BooleanEntry::new);
+      if (!entry.published || entry.value != value) {
+        entry.value = value;
+        changed(entry);
+      }
+    }
+  }
+
+  public void putString(String key, String value, Priority priority) {
+    synchronized (root) {
+      StringEntry entry = (StringEntry) entry(key, priority, StringEntry::new);
+      if (!entry.published || !entry.value.equals(value)) {
+        entry.value = value;
+        changed(entry);
+      }
+    }
+  }
+
+  /**
+   * Put the first values of an array, so the caller can reuse one array that
+   * is larger than the number of values. The values are copied.
+   *
+   * @param key       The key.
+   * @param values    The array holding the values.
+   * @param length    How many values to put from the start of the array.
+   * @param priority  How soon a change needs to get to the robot.
+   */
+  public void putNumberArray(String key, double[] values, int length, Priority priority) {
+    synchronized (root) {
+      NumberArrayEntry entry = (NumberArrayEntry) entry(key, priority, NumberArrayEntry::new);
+      if (!entry.published || !entry.equals(values, length)) {
+        if (entry.value.length != length) {
+          entry.value = new double[length];
+        }
+        System.arraycopy(values, 0, entry.value, 0, length);
+        changed(entry);
+      }
+    }
+  }
+
+  /**
+   * Put the first bytes of an array, so the caller can reuse one array that
+   * is larger than the value. The bytes are copied.
+   *
+   * @param key       The key.
+   * @param bytes     The array holding the value.
+   * @param length    How many bytes to put from the start of the array.
+   * @param priority  How soon a change needs to get to the robot.
+   */
+  public void putRaw(String key, byte[] bytes, int length, Priority priority) {
+    synchronized (root) {
+      RawEntry entry = (RawEntry) entry(key, priority, RawEntry::new);
+      if (!entry.published || !entry.equals(bytes, length)) {
+        if (entry.value.length != length) {
+          entry.value = new byte[length];
+        }
+        System.arraycopy(bytes, 0, entry.value, 0, length);
+        changed(entry);
+      }
+    }
+  }
+
+  public void putStringArray(String key, String[] values, Priority priority) {
+    synchronized (root) {
+      StringArrayEntry entry = (StringArrayEntry) entry(key, priority, StringArrayEntry::new);
+      if (!entry.published || !Arrays.equals(entry.value, values)) {
+        entry.value = values.clone();
+        changed(entry);
+      }
+    }
+  }
+
+  /**
+   * Put any cosmetic values that have waited long enough, then send right away
+   * if any critical value changed since the last flush. Call after each batch
+   * of a frame's values has been put, such as the targets and then the HUD's.
+   */
+  public void flush() {
+    synchronized (root) {
+      long now = System.nanoTime();
+      Iterator<Entry> waitingEntries = root.waitingEntries.iterator();
+      while (waitingEntries.hasNext()) {
+        Entry entry = waitingEntries.next();
+        if (now - entry.putNanos >= root.cosmeticPeriodNanos) {
+          entry.putNow(now);
+          waitingEntries.remove();
+        }
+      }
+      if (root.criticalChanged) {
+        root.criticalChanged = false;
+        root.flusher.run();
+      }
+    }
+  }
+
+  private Entry entry(String key, Priority priority, EntryFactory factory) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      entry = factory.create(table, key);
+      entries.put(key, entry);
+    }
+    entry.priority = priority;
+    return entry;
+  }
+
+  private void changed(Entry entry) {
+    long now = System.nanoTime();
+    boolean critical = entry.priority == Priority.Critical;
+    if (critical || !entry.published || now - entry.putNanos >= root.cosmeticPeriodNanos) {
+      if (entry.waiting) {
+        root.waitingEntries.remove(entry);
+      }
+      entry.putNow(now);
+      root.criticalChanged |= critical;
+    } else if (!entry.waiting) {
+      entry.waiting = true;
+      root.waitingEntries.add(entry);
+    }
+  }
+
+  /**
+   * What every publisher from the same table shares.
+   */
+  private static class Root {
+    private final Runnable flusher;
+    private final long cosmeticPeriodNanos;
+    private final List<Entry> waitingEntries = new ArrayList<Entry>();
+    private boolean criticalChanged = false;
+
+    private Root(Runnable flusher, long cosmeticPeriodNanos) {
+      this.flusher = flusher;
+      this.cosmeticPeriodNanos = cosmeticPeriodNanos;
+    }
+  }
+
+  private interface EntryFactory {
+    Entry create(ITable table, String key);
+  }
+
+  /**
+   * The last value written to a key.
+   */
+  private abstract static class Entry {
+    protected final ITable table;
+    protected final String key;
+    Priority priority;
+    boolean published = false;
+    boolean waiting = false;
+    long putNanos;
+
+    protected Entry(ITable table, String key) {
+      this.table = table;
+      this.key = key;
+    }
+
+    void putNow(long now) {
+      put();
+      published = true;
+      waiting = false;
+      putNanos = now;
+    }
+
+    protected abstract void put();
+  }
+
+  private static class NumberEntry extends Entry {
+    private double value;
+
+    private NumberEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    @Override
+    protected void put() {
+      table.putNumber(key, value);
+    }
+  }
+
+  private static class BooleanEntry extends Entry {
+    private boolean value;
+
+    private BooleanEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    @Override
+    protected void put() {
+      table.putBoolean(key, value);
+    }
+  }
+
+  private static class StringEntry extends Entry {
+    private String value;
+
+    private StringEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    @Override
+    protected void put() {
+      table.putString(key, value);
+    }
+  }
+
+  private static class NumberArrayEntry extends Entry {
+    private double[] value = new double[0];
+
+    private NumberArrayEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    private boolean equals(double[] values, int length) {
+      if (value.length != length) {
+        return false;
+      }
+      for (int index = 0; index < length; index++) {
+        if (Double.doubleToLongBits(value[index]) != Double.doubleToLongBits(values[index])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    protected void put() {
+      table.putNumberArray(key, value);
+    }
+  }
+
+  private static class RawEntry extends Entry {
+    private byte[] value = new byte[0];
+
+    private RawEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    private boolean equals(byte[] bytes, int length) {
+      if (value.length != length) {
+        return false;
+      }
+      for (int index = 0; index < length; index++) {
+        if (value[index] != bytes[index]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    protected void put() {
+      table.putRaw(key, value);
+    }
+  }
+
+  private static class StringArrayEntry extends Entry {
+    private String[] value;
+
+    private StringArrayEntry(ITable table, String key) {
+      super(table, key);
+    }
+
+    @Override
+    protected void put() {
+      table.putStringArray(key, value);
+    }
+  }
+}
@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.List;
 import edu.wpi.first.wpilibj.networktables.*;
 
 /**
@@ -11,9 +11,11 @@ import edu.wpi.first.wpilibj.networktables.*;
 public class NetworkTableWriter implements INetworkTableWriter
 {
   HatchTargetPipelineInterpreter interpreter;
-  NetworkTable publishingTable;
-  double[] angleArrayRadians;
-  double[] targetRanges;
+  NetworkTablePublisher publisher;
+  // Reused from frame to frame, and grown when there are more targets
+  double[] angleArrayRadians = new double[0];
+  double[] targetRanges = new double[0];
+  final TargetPacketEncoder targetPacketEncoder = new TargetPacketEncoder();
 
   /**
    * A network table writer needs an interpreter object to determine what has been found
@@ -25,8 +27,20 @@ public class NetworkTableWriter implements INetworkTableWriter
    * @param publishingTable   An instantiated network table that interpreted data will get written to
    */
   public NetworkTableWriter(HatchTargetPipelineInterpreter interpreter, NetworkTable publishingTable) {
+    this(interpreter, new NetworkTablePublisher(publishingTable));
+  }
+
+  /**
+   * A network table writer that writes through a publisher, which only puts
+   * values that changed and leaves flushing them to the caller, so the targets
+   * can be sent as soon as they are written.
+   * 
+   * @param interperter The interpreter class that converts blob results to interpreted data
+   * @param publisher   The publisher for the network table that interpreted data will get written to
+   */
+  public NetworkTableWriter(HatchTargetPipelineInterpreter interpreter, NetworkTablePublisher publisher) {
     this.interpreter = interpreter;
-    this.publishingTable = publishingTable;
+    this.publisher = publisher;
   }
 
   /**
@@ -37,17 +51,47 @@ public class NetworkTableWriter implements INetworkTableWriter
    * Returning values from the camera may throw communication exceptions.
    */
   public void write() {
-    publishingTable.putBoolean("targetFound", interpreter.targetsFound());
-    publishingTable.putNumber("targetCount", interpreter.targetCount());
+    write(interpreter.targetsFound(), interpreter.targetCount(), interpreter.getHatchTargets());
+  }
+
+  /**
+   * Write the values of an interpreted frame to the network table sent into 
+   * the class constructor. Only the frame is read, so this can run while the
+   * next frame is interpreted. A captured frame also writes its frame number,
+   * when it was captured in microseconds on the coprocessor clock, and how many 
+   * milliseconds ago that was, so the robot can tell how stale the targets are.
+   * Every value of the frame is also written together as one target packet, so
+   * the robot can read them all from the same frame.
+   * 
+   * @param frame   The interpreted frame to write
+   */
+  public void write(HatchTargetFrame frame) {
+    write(frame.targetsFound(), frame.targetCount(), frame.getHatchTargets());
+    if (frame.isCaptured()) {
+      publisher.putNumber(getFrameNumberKey(), frame.getFrameNumber(), NetworkTablePublisher.Priority.Critical);
+      publisher.putNumber("captureTimestampMicros", frame.getCaptureTimestamp(), NetworkTablePublisher.Priority.Critical);
+      publisher.putNumber(getLatencyMillisKey(), frame.getLatencyMillis(), NetworkTablePublisher.Priority.Critical);
+    }
+    int length = targetPacketEncoder.encode(frame);
+    publisher.putRaw(getTargetPacketKey(), targetPacketEncoder.getBytes(), length, NetworkTablePublisher.Priority.Critical);
+  }
+
+  private void write(boolean targetsFound, long targetCount, List<HatchTarget> hatchTargets) {
+    publisher.putBoolean(getTargetFoundKey(), targetsFound, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumber(getTargetCountKey(), targetCount, NetworkTablePublisher.Priority.Critical);
 
-    ArrayList<HatchTarget> hatchTargets = interpreter.getHatchTargets();
-    angleArrayRadians = new double[hatchTargets.size()];
-    targetRanges = new double[hatchTargets.size()];
-    for (int i = 0; i < hatchTargets.size(); i++) {
+    int count = hatchTargets.size();
+    if (angleArrayRadians.length < count) {
+      angleArrayRadians = new double[count];
+      targetRanges = new double[count];
+    }
+    for (int i = 0; i < count; i++) {
       angleArrayRadians[i] = hatchTargets.get(i).aspectAngleInRadians();
+      targetRanges[i] = hatchTargets.get(i).rangeInInches();
     }
-    publishingTable.putNumberArray("hatchTargetAngles", angleArrayRadians);
-    publishingTable.putNumberArray("hatchTargetRanges", targetRanges);
+    // Sent with the count, so the arrays are never older than the count they are indexed by
+    publisher.putNumberArray("hatchTargetAngles", angleArrayRadians, count, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumberArray("hatchTargetRanges", targetRanges, count, NetworkTablePublisher.Priority.Critical);
   }
 
   public String getTargetFoundKey() {
@@ -57,4 +101,16 @@ public class NetworkTableWriter implements INetworkTableWriter
   public String getTargetCountKey() {
     return "targetCount";
   }
+
+  public String getFrameNumberKey() {
+    return "frameNumber";
+  }
+
+  public String getLatencyMillisKey() {
+    return "latencyMillis";
+  }
+
+  public String getTargetPacketKey() {
+    return "targetPacket";
+  }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pair rectangles so that the frame as a whole makes the most sense: as many
+ * targets as possible and, among ways of getting that many, the best scoring.
+ *
+ * <p>Unlike greedy pairing, the tapes of a target do not have to be next to
+ * each other once sorted left to right. Up to MAXSKIPPED stray rectangles, such
+ * as reflections, can sit between them. A dynamic program over the sorted
+ * rectangles finds the best pairing in time linear in their number, using
+ * arrays that are kept from frame to frame, so a strategy is owned by one
+ * interpreter.
+ */
+public class OptimalPairingStrategy implements IPairingStrategy {
+	// Stray rectangles allowed between the two tapes of a target
+	public static final int MAXSKIPPED = 2;
+	private static final int INITIALCAPACITY = 16;
+
+	// For the first i rectangles: most targets, their best total score, 
+	// and the left rectangle paired with rectangle i - 1 or -1 if it is unpaired.
+	private int[] bestCount = new int[INITIALCAPACITY + 1];
+	private double[] bestScore = new double[INITIALCAPACITY + 1];
+	private int[] pairedLeft = new int[INITIALCAPACITY + 1];
+
+	@Override
+	public void pair(CandidateRectangles candidates, 
+			CameraParameters cameraParameters, 
+			PairValidationStatistics statistics, 
+			List<HatchTarget> hatchTargets) {
+		int count = candidates.size();
+		if (count < 2) {
+			return;
+		}
+		ensureCapacity(count + 1);
+
+		bestCount[0] = 0;
+		bestScore[0] = 0;
+		pairedLeft[0] = -1;
+		for (int end = 1; end <= count; end++) {
+			int right = end - 1;
+			// Leave the last rectangle unpaired...
+			bestCount[end] = bestCount[end - 1];
+			bestScore[end] = bestScore[end - 1];
+			pairedLeft[end] = -1;
+			// ...or pair it with one of the few to its left, skipping those in between
+			for (int left = Math.max(right - 1 - MAXSKIPPED, 0); left < right; left++) {
+				HatchTarget.PairValidation validation = HatchTarget.validate(candidates, left, right);
+				statistics.record(validation);
+				if (validation.isValid()) {
+					int pairCount = bestCount[left] + 1;
+					double pairScore = bestScore[left] + HatchTarget.score(candidates, left, right);
+					if (pairCount > bestCount[end] || (pairCount == bestCount[end] && pairScore > bestScore[end])) {
+						bestCount[end] = pairCount;
+						bestScore[end] = pairScore;
+						pairedLeft[end] = left;
+					}
+				}
+			}
+		}
+
+		// Walk back from the right to recover the pairs
+		int first = hatchTargets.size();
+		int end = count;
+		while (end > 0) {
+			int left = pairedLeft[end];
+			if (left < 0) {
+				end--;
+			} else {
+				hatchTargets.add(new HatchTarget(candidates, left, end - 1, cameraParameters));
+				end = left;
+			}
+		}
+		// They were found right to left
+		reverse(hatchTargets, first);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (bestCount.length < capacity) {
+			int newCapacity = Math.max(capacity, bestCount.length * 2);
+			bestCount = Arrays.copyOf(bestCount, newCapacity);
+			bestScore = Arrays.copyOf(bestScore, newCapacity);
+			pairedLeft = Arrays.copyOf(pairedLeft, newCapacity);
+		}
+	}
+
+	private static <T> void reverse(List<T> list, int from) {
+		for (int low = from, high = list.size() - 1; low < high; low++, high--) {
+			T swap = list.get(low);
+			list.set(low, list.get(high));
+			list.set(high, swap);
+		}
+	}
+}
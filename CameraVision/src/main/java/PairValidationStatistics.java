@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count how candidate rectangle pairs fared when checked for being a hatch
+ * target, per outcome, so that it can be seen which rule is rejecting real
+ * targets. Pairs are counted on the detect thread and the counts can be read
+ * from any other without locking.
+ */
+public class PairValidationStatistics {
+  private final AtomicLongArray counts = new AtomicLongArray(HatchTarget.PairValidation.values().length);
+
+  /**
+   * Count the outcome of checking one pair.
+   *
+   * @param validation  The outcome.
+   */
+  public void record(HatchTarget.PairValidation validation) {
+    counts.incrementAndGet(validation.ordinal());
+  }
+
+  /**
+   * Get how many pairs had an outcome.
+   *
+   * @param validation  The outcome.
+   * @return            The number of pairs counted with it.
+   */
+  public long getCount(HatchTarget.PairValidation validation) {
+    return counts.get(validation.ordinal());
+  }
+
+  /**
+   * Get how many pairs were rejected, for any reason.
+   *
+   * @return  The number of pairs counted that were not valid.
+   */
+  public long getRejectedCount() {
+    long rejected = 0;
+    for (HatchTarget.PairValidation validation : HatchTarget.PairValidation.values()) {
+      if (!validation.isValid()) {
+        rejected += getCount(validation);
+      }
+    }
+    return rejected;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (HatchTarget.PairValidation validation : HatchTarget.PairValidation.values()) {
+      if (builder.length() > 0) {
+        builder.append(", ");
+      }
+      builder.append(validation).append(": ").append(getCount(validation));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Keep the last few pan angles reported for a camera along with when they
+ * arrived, so the angle the camera was at when a frame was captured can be
+ * looked up rather than the angle it is at now. While the camera is slewing
+ * the two differ, and publishing the angle now with an older image makes the
+ * robot overshoot.
+ *
+ * <p>Samples are kept in a ring of primitive arrays, so recording one does not
+ * allocate. They are recorded from a network tables listener and read by the
+ * processing stages.
+ */
+public class PanAngleHistory {
+  public static final int DEFAULTCAPACITY = 64;
+
+  private final long[] sampleNanos;
+  private final double[] angles;
+  private final int mask;
+  // Number of samples ever recorded; the newest is at (count - 1) & mask
+  private long count = 0;
+
+  public PanAngleHistory() {
+    this(DEFAULTCAPACITY);
+  }
+
+  /**
+   * @param capacity  The number of samples to keep, a power of two.
+   */
+  public PanAngleHistory(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two of at least 2.");
+    }
+    sampleNanos = new long[capacity];
+    angles = new double[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * Record a pan angle. Samples are expected in the order they arrived.
+   *
+   * @param nanos           When the angle arrived, from System.nanoTime().
+   * @param angleInDegrees  The pan angle.
+   */
+  public synchronized void record(long nanos, double angleInDegrees) {
+    int index = (int) (count & mask);
+    sampleNanos[index] = nanos;
+    angles[index] = angleInDegrees;
+    count++;
+  }
+
+  /**
+   * Record a pan angle only if none has been recorded yet, such as an angle
+   * read when starting that a listener may already have beaten.
+   *
+   * @param nanos           When the angle was read, from System.nanoTime().
+   * @param angleInDegrees  The pan angle.
+   */
+  public synchronized void recordFirst(long nanos, double angleInDegrees) {
+    if (count == 0) {
+      record(nanos, angleInDegrees);
+    }
+  }
+
+  /**
+   * Get the pan angle at a time, interpolated between the samples either side
+   * of it. Times after the newest sample get the newest angle, and times before
+   * the oldest kept get the oldest.
+   *
+   * @param nanos         The time, from System.nanoTime().
+   * @param defaultAngle  The angle to return if none have been recorded.
+   * @return              The pan angle in degrees.
+   */
+  public synchronized double angleAt(long nanos, double defaultAngle) {
+    if (count == 0) {
+      return defaultAngle;
+    }
+    long newest = count - 1;
+    long oldest = Math.max(count - sampleNanos.length, 0);
+    // Frames are usually only a sample or two old, so walk back from the newest
+    long later = newest;
+    if (nanos - sampleNanos[(int) (later & mask)] >= 0) {
+      return angles[(int) (later & mask)];
+    }
+    while (later > oldest) {
+      int laterIndex = (int) (later & mask);
+      int earlierIndex = (int) ((later - 1) & mask);
+      if (nanos - sampleNanos[earlierIndex] >= 0) {
+        long span = sampleNanos[laterIndex] - sampleNanos[earlierIndex];
+        if (span <= 0) {
+          return angles[laterIndex];
+        }
+        double fraction = (double) (nanos - sampleNanos[earlierIndex]) / span;
+        return angles[earlierIndex] + fraction * (angles[laterIndex] - angles[earlierIndex]);
+      }
+      later--;
+    }
+    return angles[(int) (oldest & mask)];
+  }
+}
@@ -0,0 +1,126 @@
+import org.opencv.core.Mat;
+
+/**
+ * A frame moving through the staged frame processor: the captured image,
+ * the parameters of the camera it came from, its number, when it was captured
+ * and grabbed and, once detected, the interpreted hatch targets. A stage that adds to a frame hands on a new
+ * instance rather than changing the one it was given.
+ */
+public class PipelineFrame {
+  private final Mat image;
+  private final CameraParameters cameraParameters;
+  private final long frameNumber;
+  private final long captureTimestamp;
+  private final long grabbedNanos;
+  private final HatchTargetFrame targets;
+
+  /**
+   * Construct a captured frame that has not been detected yet, grabbed now.
+   * 
+   * @param image             The captured image.
+   * @param cameraParameters  Parameters of the camera the image came from.
+   */
+  public PipelineFrame(Mat image, CameraParameters cameraParameters) {
+    this(image, cameraParameters, 0, 0, System.nanoTime());
+  }
+
+  /**
+   * Construct a captured frame that has not been detected yet.
+   * 
+   * @param image             The captured image.
+   * @param cameraParameters  Parameters of the camera the image came from.
+   * @param frameNumber       Number of the frame, counting captured frames from 1.
+   * @param captureTimestamp  The cscore capture time, in microseconds.
+   * @param grabbedNanos      When the image was grabbed, from System.nanoTime().
+   */
+  public PipelineFrame(Mat image, 
+      CameraParameters cameraParameters, 
+      long frameNumber, 
+      long captureTimestamp, 
+      long grabbedNanos) {
+    this(image, cameraParameters, frameNumber, captureTimestamp, grabbedNanos, null);
+  }
+
+  private PipelineFrame(Mat image, 
+      CameraParameters cameraParameters, 
+      long frameNumber, 
+      long captureTimestamp, 
+      long grabbedNanos, 
+      HatchTargetFrame targets) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image cannot be null.");
+    }
+    if (cameraParameters == null) {
+      throw new IllegalArgumentException("Camera parameters cannot be null.");
+    }
+    this.image = image;
+    this.cameraParameters = cameraParameters;
+    this.frameNumber = frameNumber;
+    this.captureTimestamp = captureTimestamp;
+    this.grabbedNanos = grabbedNanos;
+    this.targets = targets;
+  }
+
+  /**
+   * Get this frame with the hatch targets detected in it.
+   * 
+   * @param targets The interpreted result of the image.
+   * @return        A new frame carrying the targets.
+   */
+  public PipelineFrame withTargets(HatchTargetFrame targets) {
+    return new PipelineFrame(image, cameraParameters, frameNumber, captureTimestamp, grabbedNanos, targets);
+  }
+
+  public Mat getImage() {
+    return image;
+  }
+
+  public CameraParameters getCameraParameters() {
+    return cameraParameters;
+  }
+
+  /**
+   * Get the number of the frame, counting captured frames from 1.
+   * 
+   * @return  The frame number, or 0 if it was not numbered.
+   */
+  public long getFrameNumber() {
+    return frameNumber;
+  }
+
+  /**
+   * Get when cscore says the image was captured.
+   * 
+   * @return  The capture time in microseconds, or 0 if not known.
+   */
+  public long getCaptureTimestamp() {
+    return captureTimestamp;
+  }
+
+  /**
+   * Get when the image was grabbed from the camera.
+   * 
+   * @return  The time from System.nanoTime().
+   */
+  public long getGrabbedNanos() {
+    return grabbedNanos;
+  }
+
+  /**
+   * Get the hatch targets detected in this frame.
+   * 
+   * @return  The interpreted result, or null if not detected yet.
+   */
+  public HatchTargetFrame getTargets() {
+    return targets;
+  }
+
+  /**
+   * Was nothing captured for this frame?
+   * 
+   * @return  True if the image is empty.
+   */
+  public boolean isEmpty() {
+    return image.empty();
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * How much work to do on frames while the camera control state machine is in
+ * a state: whether targets are detected at all, on how many of the frames,
+ * at what resolution, and whether the HUD is streamed. While nobody is
+ * following a target, detecting on every frame at full resolution only heats
+ * up the coprocessor.
+ *
+ * Instances are immutable.
+ */
+public class ProcessingProfile {
+  /**
+   * Detect on every frame and stream the HUD, for following a target.
+   */
+  public static final ProcessingProfile FULLRATE = new ProcessingProfile(true, 1, 0, true);
+  /**
+   * Detect on every other frame and stream the HUD, for picking a target.
+   */
+  public static final ProcessingProfile REDUCEDRATE = new ProcessingProfile(true, 2, 0, true);
+  /**
+   * Do not detect, but stream the HUD, for states that do no target work.
+   */
+  public static final ProcessingProfile NODETECTION = new ProcessingProfile(false, 1, 0, true);
+
+  private final boolean detecting;
+  private final int detectionInterval;
+  private final int pyramidLevel;
+  private final boolean streamingHud;
+
+  /**
+   * @param detecting         Detect targets at all.
+   * @param detectionInterval Detect on one frame in this many, 1 for every frame.
+   * @param pyramidLevel      The coarsest pyramid level to detect at, 0 to keep the one configured.
+   * @param streamingHud      Stream the annotated HUD image.
+   */
+  public ProcessingProfile(boolean detecting, int detectionInterval, int pyramidLevel, boolean streamingHud) {
+    if (detectionInterval < 1) {
+      throw new IllegalArgumentException("Detection interval must be at least 1.");
+    }
+    if (pyramidLevel < 0 || pyramidLevel > GripHatchTargetPipeline.MAXPYRAMIDLEVEL) {
+      throw new IllegalArgumentException(String.format("Pyramid level must be from 0 to %d.", GripHatchTargetPipeline.MAXPYRAMIDLEVEL));
+    }
+    this.detecting = detecting;
+    this.detectionInterval = detectionInterval;
+    this.pyramidLevel = pyramidLevel;
+    this.streamingHud = streamingHud;
+  }
+
+  public boolean isDetecting() {
+    return detecting;
+  }
+
+  public int getDetectionInterval() {
+    return detectionInterval;
+  }
+
+  public int getPyramidLevel() {
+    return pyramidLevel;
+  }
+
+  public boolean isStreamingHud() {
+    return streamingHud;
+  }
+
+  /**
+   * Get the pyramid level to detect at, no finer than the one configured.
+   *
+   * @param configuredPyramidLevel  The pyramid level set at startup.
+   * @return                        The pyramid level to use.
+   */
+  public int getPyramidLevel(int configuredPyramidLevel) {
+    return Math.max(configuredPyramidLevel, pyramidLevel);
+  }
+}
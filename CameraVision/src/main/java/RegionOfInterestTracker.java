@@ -0,0 +1,156 @@
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.RotatedRect;
+
+/**
+ * Work out which part of the next frame to process while the HUD is
+ * following a single target. Once the HUD is slewing to, locked on, or
+ * driving to a target, only the area around where that target was last
+ * seen matters, so thresholding and finding contours over the whole frame
+ * is wasted work. The region is the bounds of the last target found plus a
+ * margin for how far it might move between frames.
+ *
+ * <p>If the target is missing from the region for more than a few frames
+ * in a row, the whole frame is processed again so it can be found wherever
+ * it went.
+ *
+ * <p>When frames are tracked, a target can be followed by its tracked ID
+ * instead. The region is then moved to where the tracker predicts the target
+ * will be in the next frame, rather than where it was last seen.
+ *
+ * <p>The HUD says what to track from its thread; the region is worked out
+ * and read on the detect thread.
+ */
+public class RegionOfInterestTracker {
+  // Grow the last target bounds by this fraction of their size on every side
+  private static final double MARGINFACTOR = 0.5;
+  // Frames in a row a target can go missing before processing the full frame
+  private static final int MISSLIMIT = 3;
+
+  private static final int NOTARGET = -1;
+
+  private volatile Point trackedPoint;
+  private volatile int trackedTargetId = NOTARGET;
+  // Only touched by the detect thread
+  private Rect regionOfInterest;
+  private CameraParameters regionCameraParameters;
+  private int misses;
+
+  /**
+   * Follow the target containing a point.
+   *
+   * @param point The point, such as the HUD slew point.
+   */
+  public void track(Point point) {
+    trackedTargetId = NOTARGET;
+    trackedPoint = point == null ? null : point.clone();
+  }
+
+  /**
+   * Follow a tracked target.
+   *
+   * @param targetId  The ID the tracker gave the target.
+   */
+  public void track(int targetId) {
+    trackedPoint = null;
+    trackedTargetId = targetId;
+  }
+
+  /**
+   * Stop following a target, so whole frames are processed.
+   */
+  public void stopTracking() {
+    trackedPoint = null;
+    trackedTargetId = NOTARGET;
+  }
+
+  /**
+   * Is a target being followed?
+   *
+   * @return  True if a point or a tracked target is being tracked.
+   */
+  public boolean isTracking() {
+    return trackedPoint != null || trackedTargetId != NOTARGET;
+  }
+
+  /**
+   * Get the part of the next frame to process.
+   *
+   * @param cameraParameters  Parameters of the camera the next frame is from.
+   * @return                  The region to process, or null to process the whole frame.
+   */
+  public Rect getRegionOfInterest(CameraParameters cameraParameters) {
+    if (!isTracking() || regionOfInterest == null || cameraParameters != regionCameraParameters) {
+      return null;
+    }
+    return regionOfInterest;
+  }
+
+  /**
+   * Move the region to where the tracked target was found in a frame.
+   *
+   * @param frame The interpreted frame.
+   */
+  public void update(HatchTargetFrame frame) {
+    int targetId = trackedTargetId;
+    if (targetId != NOTARGET && frame.isTracked()) {
+      TrackedTarget trackedTarget = frame.getTrackedTarget(targetId);
+      if (trackedTarget == null) {
+        missed();
+      } else {
+        found(predictedBounds(trackedTarget), frame);
+      }
+      return;
+    }
+    Point point = trackedPoint;
+    if (point == null) {
+      regionOfInterest = null;
+      misses = 0;
+      return;
+    }
+    try {
+      HatchTarget hatchTarget = frame.getHatchTargetFromPoint(point);
+      found(hatchTarget.targetRectangle().boundingRect(), frame);
+    } catch (TargetNotFoundException e) {
+      missed();
+    }
+  }
+
+  private void found(Rect bounds, HatchTargetFrame frame) {
+    regionOfInterest = expand(bounds, frame.getCameraParameters());
+    regionCameraParameters = frame.getCameraParameters();
+    misses = 0;
+  }
+
+  private void missed() {
+    misses++;
+    if (misses > MISSLIMIT) {
+      regionOfInterest = null;
+    }
+  }
+
+  /**
+   * Move the bounds of the target last seen to where its center is predicted to be next.
+   */
+  private Rect predictedBounds(TrackedTarget trackedTarget) {
+    RotatedRect targetRectangle = trackedTarget.getHatchTarget().targetRectangle();
+    Rect bounds = targetRectangle.boundingRect();
+    Point predictedCenter = trackedTarget.getPredictedCenter();
+    bounds.x += (int) Math.round(predictedCenter.x - targetRectangle.center.x);
+    bounds.y += (int) Math.round(predictedCenter.y - targetRectangle.center.y);
+    return bounds;
+  }
+
+  /**
+   * Grow target bounds by the margin, kept within the field of view.
+   */
+  private Rect expand(Rect bounds, CameraParameters cameraParameters) {
+    int marginX = (int) Math.ceil(bounds.width * MARGINFACTOR);
+    int marginY = (int) Math.ceil(bounds.height * MARGINFACTOR);
+    int left = Math.max(bounds.x - marginX, 0);
+    int top = Math.max(bounds.y - marginY, 0);
+    int right = Math.min(bounds.x + bounds.width + marginX, (int) cameraParameters.getFOVPixelWidth());
+    int bottom = Math.min(bounds.y + bounds.height + marginY, (int) cameraParameters.getFOVPixelHeight());
+    return new Rect(left, top, Math.max(right - left, 0), Math.max(bottom - top, 0));
+  }
+}
@@ -29,6 +29,24 @@ public class RuntimeSettings {
     @Parameter(names={"--backcameraurl", "-b"},  
         description="Use specified MJPEG over http streaming source for back camera")
     private String backCameraURL = "";
+    @Parameter(names={"--pyramidlevel", "-p"},  
+        description="Find targets on a downsample first, 1 for half or 2 for quarter resolution, then refine them at full resolution")
+    private int pyramidLevel = 0;
+    @Parameter(names={"--lookuptable", "-l"},  
+        description="Classify pixels with a quantized BGR lookup table instead of converting each frame to HSV")
+    private boolean lookupTable = false;
+    @Parameter(names={"--optimalpairing", "-o"},  
+        description="Pair target tapes for the best frame as a whole, allowing stray rectangles between them, instead of greedily left to right")
+    private boolean optimalPairing = false;
+    @Parameter(names={"--slopfactor", "-s"},  
+        description="Upsize targets by this factor when finding the target the HUD is following")
+    private double slopFactor = HatchTargetFrame.DEFAULTSLOPFACTOR;
+    @Parameter(names={"--hudfps", "-r"},  
+        description="Annotate and stream the HUD at most this many frames per second")
+    private double hudFps = HudRenderGate.DEFAULTFPS;
+    @Parameter(names={"--hudalways", "-a"},  
+        description="Annotate and stream the HUD even while no client is streaming it")
+    private boolean hudAlways = false;
     @Parameter(names = "--help", help = true)
     private boolean help = false;
 
@@ -55,6 +73,10 @@ public class RuntimeSettings {
         // parse command line args
         try {
             jc.parse(argv);
+            if (pyramidLevel < 0 || pyramidLevel > GripHatchTargetPipeline.MAXPYRAMIDLEVEL) {
+                throw new ParameterException(String.format("--pyramidlevel must be from 0 to %d.", 
+                    GripHatchTargetPipeline.MAXPYRAMIDLEVEL));
+            }
             return true;
         } catch (ParameterException pe) {
             // print the parameter error, show the usage, and bail
@@ -92,6 +114,30 @@ public class RuntimeSettings {
         return backCameraURL;
     }
 
+    public int getPyramidLevel() {
+        return pyramidLevel;
+    }
+
+    public boolean getLookupTable() {
+        return lookupTable;
+    }
+
+    public boolean getOptimalPairing() {
+        return optimalPairing;
+    }
+
+    public double getSlopFactor() {
+        return slopFactor;
+    }
+
+    public double getHudFps() {
+        return hudFps;
+    }
+
+    public boolean getHudAlways() {
+        return hudAlways;
+    }
+
     public boolean getHelp() {
         return help;
     }
@@ -1,8 +1,11 @@
 import edu.wpi.first.wpilibj.networktables.NetworkTable;
-import edu.wpi.first.wpilibj.tables.ITable;
 
+/**
+ * Write the target the HUD has selected to the SelectedTarget subtable. The
+ * robot steers by these values, so they are all critical.
+ */
 public class SelectedTarget {
-  private final NetworkTable visionNetworkTable;
+  private final NetworkTablePublisher visionPublisher;
   private final static String SELECTEDTARGETKEY = "SelectedTarget";
   private final static String RANGEININCHESKEY = "RangeInInches";
   private final static String CAMERAANGLEINDEGREES = "CameraAngleInDegrees";
@@ -11,9 +14,18 @@ public class SelectedTarget {
   private final static String ACTIVE = "Enabled";
   private final static String NORMALIZEDPOINTFROMCENTERX = "X";
   private final static String NORMALIZEDPOINTFROMCENTERY = "Y";
+  private final static String FRAMENUMBER = "FrameNumber";
+  private final static String CAPTURETIMESTAMPMICROS = "CaptureTimestampMicros";
+  private final static String LATENCYMILLIS = "LatencyMillis";
+
+  private final static NetworkTablePublisher.Priority CRITICAL = NetworkTablePublisher.Priority.Critical;
 
   public SelectedTarget(NetworkTable visionNetworkTable) {
-    this.visionNetworkTable = visionNetworkTable;
+    this(new NetworkTablePublisher(visionNetworkTable));
+  }
+
+  public SelectedTarget(NetworkTablePublisher visionPublisher) {
+    this.visionPublisher = visionPublisher;
   }
 
   public void write(
@@ -22,24 +34,46 @@ public class SelectedTarget {
       double angleToTargetInDegrees, 
       double normalizedPointFromCenterX, 
       double normalizedPointFromCenterY) {
-    ITable selectedTargetTable = visionNetworkTable.getSubTable(SELECTEDTARGETKEY);
-    selectedTargetTable.putNumber(RANGEININCHESKEY, rangeInInches);
-    selectedTargetTable.putNumber(CAMERAANGLEINDEGREES, cameraAngleInDegrees);
-    selectedTargetTable.putNumber(ANGLETOTARGETINDEGREES, angleToTargetInDegrees);
-    ITable normalizedPointFromCenterTable = selectedTargetTable.getSubTable(NORMALIZEDPOINTFROMCENTER);
-    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERX, normalizedPointFromCenterX);
-    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERY, normalizedPointFromCenterY);
-    selectedTargetTable.putBoolean(ACTIVE, true);
+    NetworkTablePublisher selectedTargetTable = visionPublisher.getSubTable(SELECTEDTARGETKEY);
+    selectedTargetTable.putNumber(RANGEININCHESKEY, rangeInInches, CRITICAL);
+    selectedTargetTable.putNumber(CAMERAANGLEINDEGREES, cameraAngleInDegrees, CRITICAL);
+    selectedTargetTable.putNumber(ANGLETOTARGETINDEGREES, angleToTargetInDegrees, CRITICAL);
+    NetworkTablePublisher normalizedPointFromCenterTable = selectedTargetTable.getSubTable(NORMALIZEDPOINTFROMCENTER);
+    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERX, normalizedPointFromCenterX, CRITICAL);
+    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERY, normalizedPointFromCenterY, CRITICAL);
+    selectedTargetTable.putBoolean(ACTIVE, true, CRITICAL);
+  }
+
+  /**
+   * Write the selected target along with the capture details of the frame it
+   * was found in, so the robot can tell how old the target is.
+   */
+  public void write(
+      double rangeInInches, 
+      double cameraAngleInDegrees, 
+      double angleToTargetInDegrees, 
+      double normalizedPointFromCenterX, 
+      double normalizedPointFromCenterY,
+      HatchTargetFrame frame) {
+    NetworkTablePublisher selectedTargetTable = visionPublisher.getSubTable(SELECTEDTARGETKEY);
+    selectedTargetTable.putNumber(FRAMENUMBER, frame.getFrameNumber(), CRITICAL);
+    selectedTargetTable.putNumber(CAPTURETIMESTAMPMICROS, frame.getCaptureTimestamp(), CRITICAL);
+    selectedTargetTable.putNumber(LATENCYMILLIS, frame.getLatencyMillis(), CRITICAL);
+    write(rangeInInches, 
+      cameraAngleInDegrees, 
+      angleToTargetInDegrees, 
+      normalizedPointFromCenterX, 
+      normalizedPointFromCenterY);
   }
 
   public void clear() {
-    ITable selectedTargetTable = visionNetworkTable.getSubTable(SELECTEDTARGETKEY);
-    selectedTargetTable.putBoolean(ACTIVE, false);
-    selectedTargetTable.putNumber(RANGEININCHESKEY, 0.0);
-    selectedTargetTable.putNumber(CAMERAANGLEINDEGREES, 0.0);
-    selectedTargetTable.putNumber(ANGLETOTARGETINDEGREES, 0.0);
-    ITable normalizedPointFromCenterTable = selectedTargetTable.getSubTable(NORMALIZEDPOINTFROMCENTER);
-    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERX, 0.0);
-    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERY, 0.0);
+    NetworkTablePublisher selectedTargetTable = visionPublisher.getSubTable(SELECTEDTARGETKEY);
+    selectedTargetTable.putBoolean(ACTIVE, false, CRITICAL);
+    selectedTargetTable.putNumber(RANGEININCHESKEY, 0.0, CRITICAL);
+    selectedTargetTable.putNumber(CAMERAANGLEINDEGREES, 0.0, CRITICAL);
+    selectedTargetTable.putNumber(ANGLETOTARGETINDEGREES, 0.0, CRITICAL);
+    NetworkTablePublisher normalizedPointFromCenterTable = selectedTargetTable.getSubTable(NORMALIZEDPOINTFROMCENTER);
+    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERX, 0.0, CRITICAL);
+    normalizedPointFromCenterTable.putNumber(NORMALIZEDPOINTFROMCENTERY, 0.0, CRITICAL);
   }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/**
+ * A latency histogram for each stage of getting a frame from the camera to
+ * the robot and the HUD. Stages time themselves with System.nanoTime() and
+ * record here, so that the tail of each can be watched; one slow frame makes
+ * the robot overshoot, and an average hides it.
+ */
+public class StageLatencies {
+  /**
+   * The stages that are timed. CaptureToPublish is not a stage of its own but
+   * the time from grabbing a frame until its targets are written.
+   */
+  public enum Stage {
+    Capture, Threshold, Contours, Filter, Interpret, NetworkTablesWrite, Annotate, PutFrame, CaptureToPublish
+  }
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+  public StageLatencies() {
+    for (int stage = 0; stage < histograms.length; stage++) {
+      histograms[stage] = new LatencyHistogram();
+    }
+  }
+
+  private StageLatencies(LatencyHistogram[] histograms) {
+    System.arraycopy(histograms, 0, this.histograms, 0, histograms.length);
+  }
+
+  /**
+   * Record how long a stage took.
+   *
+   * @param stage The stage.
+   * @param nanos How long it took in nanoseconds.
+   */
+  public void record(Stage stage, long nanos) {
+    histograms[stage.ordinal()].record(nanos);
+  }
+
+  /**
+   * Record how long a stage took since it started.
+   *
+   * @param stage       The stage.
+   * @param startNanos  When it started, from System.nanoTime().
+   */
+  public void recordSince(Stage stage, long startNanos) {
+    histograms[stage.ordinal()].recordSince(startNanos);
+  }
+
+  /**
+   * @param stage The stage.
+   * @return      The histogram of latencies recorded for it.
+   */
+  public LatencyHistogram getHistogram(Stage stage) {
+    return histograms[stage.ordinal()];
+  }
+
+  /**
+   * @return  A copy of the latencies recorded so far for every stage.
+   */
+  public StageLatencies snapshot() {
+    LatencyHistogram[] snapshots = new LatencyHistogram[histograms.length];
+    for (int stage = 0; stage < histograms.length; stage++) {
+      snapshots[stage] = histograms[stage].snapshot();
+    }
+    return new StageLatencies(snapshots);
+  }
+
+  /**
+   * Get the latencies recorded since an earlier snapshot, leaving these
+   * alone so that other readers still see every latency recorded.
+   *
+   * @param earlier An earlier snapshot of these latencies.
+   * @return        The latencies recorded for every stage since.
+   */
+  public StageLatencies since(StageLatencies earlier) {
+    if (earlier == null) {
+      throw new IllegalArgumentException("Earlier snapshot cannot be null.");
+    }
+    LatencyHistogram[] window = new LatencyHistogram[histograms.length];
+    for (int stage = 0; stage < histograms.length; stage++) {
+      window[stage] = histograms[stage].since(earlier.histograms[stage]);
+    }
+    return new StageLatencies(window);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Stage stage : Stage.values()) {
+      builder.append(String.format("%-18s %s%n", stage, getHistogram(stage)));
+    }
+    return builder.toString();
+  }
+}
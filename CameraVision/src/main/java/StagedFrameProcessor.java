@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs frames through four stages, each on its own thread: capture, detect,
+ * publish to network tables, and annotate and stream the HUD. Stages hand
+ * frames to the next through small bounded queues, so while the HUD for one
+ * frame is drawn, the next frame is being detected and the one after that
+ * captured. Throughput is then set by the slowest stage rather than the sum
+ * of all of them. A stage waits when the queue after it is full.
+ * 
+ * <p>Frames are immutable once handed on. When the last stage is done with a
+ * frame it is released, so a pooled image can be grabbed into again.
+ */
+public class StagedFrameProcessor {
+  // Frames each hand-off queue holds before the stage feeding it waits
+  private static final int QUEUECAPACITY = 1;
+  /**
+   * The most frames in flight at once: one in each of the four stages plus
+   * those waiting in the three queues between them. Size frame pools to this.
+   */
+  public static final int MAXFRAMESINFLIGHT = 4 + (3 * QUEUECAPACITY);
+
+  private final Supplier<PipelineFrame> capture;
+  private final Function<PipelineFrame, PipelineFrame> detect;
+  private final Consumer<PipelineFrame> publish;
+  private final Consumer<PipelineFrame> annotate;
+  private final Consumer<PipelineFrame> release;
+  private final BlockingQueue<PipelineFrame> capturedFrames = new ArrayBlockingQueue<PipelineFrame>(QUEUECAPACITY);
+  private final BlockingQueue<PipelineFrame> detectedFrames = new ArrayBlockingQueue<PipelineFrame>(QUEUECAPACITY);
+  private final BlockingQueue<PipelineFrame> publishedFrames = new ArrayBlockingQueue<PipelineFrame>(QUEUECAPACITY);
+  private final List<Thread> stageThreads = new ArrayList<Thread>();
+
+  /**
+   * Wire up the work each stage does.
+   * 
+   * @param capture   Grab the next frame. Empty frames are released and skipped.
+   * @param detect    Find the targets in a frame, returning the frame with its targets.
+   * @param publish   Write the targets of a frame to network tables.
+   * @param annotate  Draw and stream the HUD for a frame.
+   * @param release   Hand back a frame's image once every stage is done with it.
+   */
+  public StagedFrameProcessor(Supplier<PipelineFrame> capture,
+      Function<PipelineFrame, PipelineFrame> detect,
+      Consumer<PipelineFrame> publish,
+      Consumer<PipelineFrame> annotate,
+      Consumer<PipelineFrame> release) {
+    if (capture == null || detect == null || publish == null || annotate == null || release == null) {
+      throw new IllegalArgumentException("Stages cannot be null.");
+    }
+    this.capture = capture;
+    this.detect = detect;
+    this.publish = publish;
+    this.annotate = annotate;
+    this.release = release;
+  }
+
+  /**
+   * Start a thread for each stage.
+   */
+  public synchronized void start() {
+    if (!stageThreads.isEmpty()) {
+      throw new IllegalStateException("Stages have already been started.");
+    }
+    stageThreads.add(startStage("Capture", null, (frame) -> capture.get(), capturedFrames));
+    stageThreads.add(startStage("Detect", capturedFrames, detect, detectedFrames));
+    stageThreads.add(startStage("Publish", detectedFrames, (frame) -> {
+      publish.accept(frame);
+      return frame;
+    }, publishedFrames));
+    stageThreads.add(startStage("Annotate", publishedFrames, (frame) -> {
+      annotate.accept(frame);
+      return frame;
+    }, null));
+  }
+
+  /**
+   * Stop every stage. Frames waiting in queues are released.
+   */
+  public synchronized void stop() {
+    for (Thread stageThread : stageThreads) {
+      stageThread.interrupt();
+    }
+    awaitTermination();
+    releaseAll(capturedFrames);
+    releaseAll(detectedFrames);
+    releaseAll(publishedFrames);
+  }
+
+  /**
+   * Wait for every stage to finish, which happens once they are interrupted.
+   */
+  public void awaitTermination() {
+    List<Thread> threads;
+    synchronized (this) {
+      threads = new ArrayList<Thread>(stageThreads);
+    }
+    for (Thread stageThread : threads) {
+      try {
+        stageThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private Thread startStage(String name, 
+      BlockingQueue<PipelineFrame> input, 
+      Function<PipelineFrame, PipelineFrame> work, 
+      BlockingQueue<PipelineFrame> output) {
+    Thread stageThread = new Thread(() -> runStage(name, input, work, output), String.format("%s Stage", name));
+    stageThread.setDaemon(true);
+    stageThread.start();
+    return stageThread;
+  }
+
+  /**
+   * Take frames from the input queue, do the work of the stage, and put the result
+   * on the output queue until interrupted. The first stage has no input queue
+   * and the last stage has no output queue; it releases frames when done.
+   */
+  private void runStage(String name, 
+      BlockingQueue<PipelineFrame> input, 
+      Function<PipelineFrame, PipelineFrame> work, 
+      BlockingQueue<PipelineFrame> output) {
+    while (!Thread.currentThread().isInterrupted()) {
+      PipelineFrame frame = null;
+      try {
+        if (input != null) {
+          frame = input.take();
+        }
+        PipelineFrame result = work.apply(frame);
+        // Whatever happens from here, it is the result that has to be released
+        frame = result;
+        if (result == null || result.isEmpty() || output == null) {
+          releaseFrame(result);
+        } else {
+          output.put(result);
+        }
+        frame = null;
+      } catch (InterruptedException e) {
+        releaseFrame(frame);
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        System.out.println(String.format("%s stage failed: %s", name, e.getMessage()));
+        releaseFrame(frame);
+      }
+    }
+  }
+
+  private void releaseFrame(PipelineFrame frame) {
+    if (frame != null) {
+      release.accept(frame);
+    }
+  }
+
+  private void releaseAll(BlockingQueue<PipelineFrame> queue) {
+    PipelineFrame frame;
+    while ((frame = queue.poll()) != null) {
+      releaseFrame(frame);
+    }
+  }
+}
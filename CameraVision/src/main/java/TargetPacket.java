@@ -0,0 +1,176 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// TODO: Put this in common project shared between this and robot application
+/**
+ * The targets found in one frame, as written to the targetPacket raw entry of
+ * the Vision table. Reading the one entry gives every value from the same
+ * frame, where reading targetFound, targetCount, and the target arrays one at
+ * a time can mix values from two frames.
+ *
+ * <p>This class only uses the JDK, so robot code can copy it as is and decode
+ * packets with {@link #decode(byte[])}.
+ *
+ * <p>A packet is big-endian. It starts with a header:
+ * <pre>
+ * byte   version                 VERSION
+ * byte   headerBytes             HEADERBYTES, the size of this header
+ * byte   targetBytes             TARGETBYTES, the size of each target
+ * long   frameNumber             counting from 1, or 0 if not captured
+ * long   captureTimestampMicros  on the coprocessor clock
+ * float  latencyMillis           from capture to writing the packet
+ * short  targetCount
+ * </pre>
+ * followed by targetCount targets, left to right:
+ * <pre>
+ * int    id                      tracked ID, or -1 if not tracked
+ * float  centerX, centerY        pixels
+ * float  width, height, angle    target rectangle, pixels and degrees
+ * float  rangeInInches
+ * float  aspectAngleInRadians
+ * </pre>
+ * A later version may add fields to the end of the header or of each target,
+ * and says so in headerBytes and targetBytes, so decoders skip what they do
+ * not know.
+ */
+public class TargetPacket {
+  public static final byte VERSION = 1;
+  public static final int HEADERBYTES = 1 + 1 + 1 + 8 + 8 + 4 + 2;
+  public static final int TARGETBYTES = 4 + (7 * 4);
+  public static final int NOID = -1;
+
+  /**
+   * A target in a packet.
+   */
+  public static class Target {
+    private final int id;
+    private final float centerX;
+    private final float centerY;
+    private final float width;
+    private final float height;
+    private final float angle;
+    private final float rangeInInches;
+    private final float aspectAngleInRadians;
+
+    public Target(int id,
+        float centerX,
+        float centerY,
+        float width,
+        float height,
+        float angle,
+        float rangeInInches,
+        float aspectAngleInRadians) {
+      this.id = id;
+      this.centerX = centerX;
+      this.centerY = centerY;
+      this.width = width;
+      this.height = height;
+      this.angle = angle;
+      this.rangeInInches = rangeInInches;
+      this.aspectAngleInRadians = aspectAngleInRadians;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public float getCenterX() {
+      return centerX;
+    }
+
+    public float getCenterY() {
+      return centerY;
+    }
+
+    public float getWidth() {
+      return width;
+    }
+
+    public float getHeight() {
+      return height;
+    }
+
+    public float getAngle() {
+      return angle;
+    }
+
+    public float getRangeInInches() {
+      return rangeInInches;
+    }
+
+    public float getAspectAngleInRadians() {
+      return aspectAngleInRadians;
+    }
+  }
+
+  private final long frameNumber;
+  private final long captureTimestampMicros;
+  private final float latencyMillis;
+  private final List<Target> targets;
+
+  public TargetPacket(long frameNumber, long captureTimestampMicros, float latencyMillis, List<Target> targets) {
+    this.frameNumber = frameNumber;
+    this.captureTimestampMicros = captureTimestampMicros;
+    this.latencyMillis = latencyMillis;
+    this.targets = Collections.unmodifiableList(targets);
+  }
+
+  /**
+   * Decode a packet.
+   *
+   * @param packet  The bytes of the targetPacket entry.
+   * @return        The packet.
+   * @throws IllegalArgumentException If the packet is of a version this does
+   *                                  not know, or is cut short.
+   */
+  public static TargetPacket decode(byte[] packet) {
+    if (packet == null || packet.length < HEADERBYTES) {
+      throw new IllegalArgumentException("Target packet is too short.");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(packet);
+    byte version = buffer.get();
+    int headerBytes = buffer.get() & 0xFF;
+    int targetBytes = buffer.get() & 0xFF;
+    if (version < VERSION || headerBytes < HEADERBYTES || targetBytes < TARGETBYTES) {
+      throw new IllegalArgumentException(String.format("Target packet version %d is not supported.", version));
+    }
+    long frameNumber = buffer.getLong();
+    long captureTimestampMicros = buffer.getLong();
+    float latencyMillis = buffer.getFloat();
+    int targetCount = buffer.getShort();
+    if (targetCount < 0 || packet.length < headerBytes + (targetCount * targetBytes)) {
+      throw new IllegalArgumentException("Target packet is cut short.");
+    }
+    ArrayList<Target> targets = new ArrayList<Target>(targetCount);
+    for (int target = 0; target < targetCount; target++) {
+      buffer.position(headerBytes + (target * targetBytes));
+      targets.add(new Target(buffer.getInt(),
+        buffer.getFloat(),
+        buffer.getFloat(),
+        buffer.getFloat(),
+        buffer.getFloat(),
+        buffer.getFloat(),
+        buffer.getFloat(),
+        buffer.getFloat()));
+    }
+    return new TargetPacket(frameNumber, captureTimestampMicros, latencyMillis, targets);
+  }
+
+  public long getFrameNumber() {
+    return frameNumber;
+  }
+
+  public long getCaptureTimestampMicros() {
+    return captureTimestampMicros;
+  }
+
+  public float getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public List<Target> getTargets() {
+    return targets;
+  }
+}
@@ -0,0 +1,59 @@
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.opencv.core.Point;
+import org.opencv.core.RotatedRect;
+
+/**
+ * Encode the targets of an interpreted frame as a {@link TargetPacket}. The
+ * buffer is reused from frame to frame and only grows when there are more
+ * targets than before.
+ */
+public class TargetPacketEncoder {
+  private ByteBuffer buffer = ByteBuffer.allocate(TargetPacket.HEADERBYTES);
+
+  /**
+   * Encode a frame.
+   *
+   * @param frame The interpreted frame.
+   * @return      The number of bytes of {@link #getBytes()} the packet takes.
+   */
+  public int encode(HatchTargetFrame frame) {
+    List<HatchTarget> hatchTargets = frame.getHatchTargets();
+    int targetCount = Math.min(hatchTargets.size(), Short.MAX_VALUE);
+    int length = TargetPacket.HEADERBYTES + (targetCount * TargetPacket.TARGETBYTES);
+    if (buffer.capacity() < length) {
+      buffer = ByteBuffer.allocate(length);
+    }
+    buffer.clear();
+    buffer.put(TargetPacket.VERSION);
+    buffer.put((byte) TargetPacket.HEADERBYTES);
+    buffer.put((byte) TargetPacket.TARGETBYTES);
+    buffer.putLong(frame.getFrameNumber());
+    buffer.putLong(frame.getCaptureTimestamp());
+    buffer.putFloat((float) frame.getLatencyMillis());
+    buffer.putShort((short) targetCount);
+    for (int target = 0; target < targetCount; target++) {
+      HatchTarget hatchTarget = hatchTargets.get(target);
+      TrackedTarget trackedTarget = frame.getTrackedTarget(hatchTarget);
+      Point center = hatchTarget.center();
+      RotatedRect targetRectangle = hatchTarget.targetRectangle();
+      buffer.putInt(trackedTarget == null ? TargetPacket.NOID : trackedTarget.getId());
+      buffer.putFloat((float) center.x);
+      buffer.putFloat((float) center.y);
+      buffer.putFloat((float) targetRectangle.size.width);
+      buffer.putFloat((float) targetRectangle.size.height);
+      buffer.putFloat((float) targetRectangle.angle);
+      buffer.putFloat((float) hatchTarget.rangeInInches());
+      buffer.putFloat((float) hatchTarget.aspectAngleInRadians());
+    }
+    return length;
+  }
+
+  /**
+   * @return  The bytes of the last packet encoded, and possibly more after it.
+   */
+  public byte[] getBytes() {
+    return buffer.array();
+  }
+}
@@ -0,0 +1,86 @@
+import org.opencv.core.Point;
+
+/**
+ * A hatch target as the tracker knows it in one frame: an ID that stays the
+ * same from frame to frame, a smoothed position and velocity, and the hatch
+ * target last seen for it. While a target is missing from a few frames it is
+ * coasted, so its position keeps moving at the velocity it had but its hatch
+ * target is the one last seen.
+ *
+ * Instances are immutable.
+ */
+public class TrackedTarget {
+  private final int id;
+  private final HatchTarget hatchTarget;
+  private final double centerX;
+  private final double centerY;
+  private final double velocityX;
+  private final double velocityY;
+  private final int misses;
+
+  /**
+   * @param id          The ID of the target.
+   * @param hatchTarget The hatch target last seen for it.
+   * @param centerX     The smoothed center x, in pixels.
+   * @param centerY     The smoothed center y, in pixels.
+   * @param velocityX   The x velocity, in pixels per frame.
+   * @param velocityY   The y velocity, in pixels per frame.
+   * @param misses      Frames in a row it has been missing, 0 if seen in this one.
+   */
+  public TrackedTarget(int id,
+      HatchTarget hatchTarget,
+      double centerX,
+      double centerY,
+      double velocityX,
+      double velocityY,
+      int misses) {
+    this.id = id;
+    this.hatchTarget = hatchTarget;
+    this.centerX = centerX;
+    this.centerY = centerY;
+    this.velocityX = velocityX;
+    this.velocityY = velocityY;
+    this.misses = misses;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public HatchTarget getHatchTarget() {
+    return hatchTarget;
+  }
+
+  /**
+   * @return  The smoothed center of the target in this frame.
+   */
+  public Point getCenter() {
+    return new Point(centerX, centerY);
+  }
+
+  /**
+   * @return  Where the center of the target should be in the next frame.
+   */
+  public Point getPredictedCenter() {
+    return new Point(centerX + velocityX, centerY + velocityY);
+  }
+
+  public double getVelocityX() {
+    return velocityX;
+  }
+
+  public double getVelocityY() {
+    return velocityY;
+  }
+
+  public int getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return  True if the target was not seen in this frame.
+   */
+  public boolean isCoasting() {
+    return misses > 0;
+  }
+}
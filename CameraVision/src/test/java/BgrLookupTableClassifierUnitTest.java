@@ -0,0 +1,75 @@
+import java.io.File;
+
+import org.junit.*;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the lookup table classifier produces the same masks as the
+ * GRIP HSV threshold, to within its quantization.
+ */
+public class BgrLookupTableClassifierUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  // Thresholds of the Lifecam pipelines
+  private static final double[] HUE = {33.99280575539568, 100.13651877133105};
+  private static final double[] SAT = {0.0, 255.0};
+  private static final double[] VAL = {121.53776978417265, 255.0};
+  // Thresholds of the ELP550 pipeline
+  private static final double[] ELPHUE = {46.94244604316547, 121.63822525597269};
+  private static final double[] ELPVAL = {107.77877697841726, 207.1331058020478};
+
+  private Mat testCase(String name) {
+    Mat image = Imgcodecs.imread(new File("src/test/resource/test_cases", name).getPath());
+    assertFalse(String.format("Could not read %s", name), image.empty());
+    return image;
+  }
+
+  private double differingPixelFraction(Mat image, IPixelClassifier classifier, double[] hue, double[] sat, double[] val) {
+    Mat expected = new Mat();
+    Mat actual = new Mat();
+    Mat difference = new Mat();
+    new HsvThresholdClassifier().classify(image, hue, sat, val, expected);
+    classifier.classify(image, hue, sat, val, actual);
+    assertEquals(expected.size(), actual.size());
+    assertEquals(expected.type(), actual.type());
+    Core.absdiff(expected, actual, difference);
+    return Core.countNonZero(difference) / (double) (image.rows() * image.cols());
+  }
+
+  @Test
+  public void itMatchesTheHsvThresholdOnTheTestCasesWithinTolerance() {
+    BgrLookupTableClassifier classifier = new BgrLookupTableClassifier();
+    for (int testCase = 1; testCase <= 9; testCase++) {
+      Mat image = testCase(String.format("%d.jpg", testCase));
+      assertEquals(0, differingPixelFraction(image, classifier, HUE, SAT, VAL), 0.01);
+      assertEquals(0, differingPixelFraction(image, classifier, ELPHUE, SAT, ELPVAL), 0.01);
+    }
+  }
+
+  @Test
+  public void itMatchesTheHsvThresholdExactlyWithoutQuantization() {
+    Mat image = testCase("1.jpg");
+    assertEquals(0, differingPixelFraction(image, new BgrLookupTableClassifier(8), HUE, SAT, VAL), 0);
+  }
+
+  @Test
+  public void itRecompilesWhenThresholdsChange() {
+    Mat image = testCase("1.jpg");
+    BgrLookupTableClassifier classifier = new BgrLookupTableClassifier(8);
+    differingPixelFraction(image, classifier, HUE, SAT, VAL);
+    assertEquals(0, differingPixelFraction(image, classifier, ELPHUE, SAT, ELPVAL), 0);
+  }
+
+  @Test
+  public void itClassifiesARegionOfAnImage() {
+    Mat image = testCase("1.jpg");
+    Mat region = image.submat(new Rect(100, 50, 200, 150));
+    assertEquals(0, differingPixelFraction(region, new BgrLookupTableClassifier(8), HUE, SAT, VAL), 0);
+  }
+}
@@ -0,0 +1,76 @@
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the state machine follows the state it is told and picks the
+ * processing profile of that state.
+ */
+public class CameraControlStateMachineUnitTest {
+  @Test
+  public void itShouldStartIdentifyingTargetsAtAReducedRate() {
+    // Assemble
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+
+    // Act
+    ProcessingProfile processingProfile = stateMachine.getProcessingProfile();
+
+    // Assert
+    assertEquals(CameraControlStateMachine.State.IdentifyingTargets, stateMachine.getState());
+    assertSame(ProcessingProfile.REDUCEDRATE, processingProfile);
+    assertFalse(stateMachine.isFollowingTarget());
+  }
+
+  @Test
+  public void itShouldDetectEveryFrameWhileFollowingATarget() {
+    // Assemble
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+
+    // Act
+    stateMachine.setState(CameraControlStateMachine.State.TargetLocked);
+
+    // Assert
+    assertTrue(stateMachine.isFollowingTarget());
+    assertSame(ProcessingProfile.FULLRATE, stateMachine.getProcessingProfile());
+  }
+
+  @Test
+  public void itShouldNotDetectWhileCalibrating() {
+    // Assemble
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+
+    // Act
+    stateMachine.setState(CameraControlStateMachine.State.Calibrating);
+
+    // Assert
+    assertFalse(stateMachine.getProcessingProfile().isDetecting());
+  }
+
+  @Test
+  public void itShouldOnlyFireTriggersThatMoveTheCurrentState() {
+    // Assemble
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+
+    // Act
+    stateMachine.setState(CameraControlStateMachine.State.SlewingToTarget);
+
+    // Assert
+    assertTrue(stateMachine.canFire(CameraControlStateMachine.Trigger.FailedToLock));
+    assertFalse(stateMachine.canFire(CameraControlStateMachine.Trigger.LoseLock));
+  }
+
+  @Test
+  public void itShouldUseAProfileSetForAState() {
+    // Assemble
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+    ProcessingProfile coarse = new ProcessingProfile(true, 4, GripHatchTargetPipeline.MAXPYRAMIDLEVEL, false);
+
+    // Act
+    stateMachine.setProcessingProfile(CameraControlStateMachine.State.IdentifyingTargets, coarse);
+
+    // Assert
+    assertSame(coarse, stateMachine.getProcessingProfile());
+    assertEquals(GripHatchTargetPipeline.MAXPYRAMIDLEVEL, coarse.getPyramidLevel(0));
+    assertThrows(IllegalArgumentException.class, () -> new ProcessingProfile(true, 0, 0, true));
+  }
+}
@@ -0,0 +1,89 @@
+import org.junit.*;
+import org.mockito.ArgumentCaptor;
+
+import edu.wpi.first.wpilibj.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.tables.ITableListener;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that dashboard inputs are read once and follow the listeners,
+ * and that a scoring direction that is not one is ignored.
+ */
+public class DashboardInputsUnitTest {
+  @Test
+  public void itShouldFollowTheScoringDirection() {
+    // Assemble
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("Front");
+    DashboardInputs dashboardInputs = new DashboardInputs(smartDashboardMock);
+    ArgumentCaptor<ITableListener> listener = ArgumentCaptor.forClass(ITableListener.class);
+    verify(smartDashboardMock).addTableListener(eq("Scoring Direction"), listener.capture(), anyBoolean());
+
+    // Act and Assert
+    assertEquals(DashboardInputs.ScoringDirection.Front, dashboardInputs.getScoringDirection());
+    listener.getValue().valueChanged(smartDashboardMock, "Scoring Direction", "Back", false);
+    assertEquals(DashboardInputs.ScoringDirection.Back, dashboardInputs.getScoringDirection());
+    listener.getValue().valueChanged(smartDashboardMock, "Scoring Direction", "Sideways", false);
+    listener.getValue().valueChanged(smartDashboardMock, "Scoring Direction", 1D, false);
+    assertEquals(DashboardInputs.ScoringDirection.Back, dashboardInputs.getScoringDirection());
+    verify(smartDashboardMock, times(1)).getString("Scoring Direction", "Back");
+  }
+
+  @Test
+  public void itShouldKeepAChangeHeardWhileStarting() {
+    // Assemble a change that arrives after adding the listener but before the read
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    doAnswer((invocation) -> {
+      ITableListener listener = invocation.getArgument(1);
+      listener.valueChanged(smartDashboardMock, invocation.getArgument(0), "Front", true);
+      return null;
+    }).when(smartDashboardMock).addTableListener(eq("Scoring Direction"), any(ITableListener.class), anyBoolean());
+    doAnswer((invocation) -> {
+      ITableListener listener = invocation.getArgument(1);
+      listener.valueChanged(smartDashboardMock, invocation.getArgument(0), 120D, true);
+      return null;
+    }).when(smartDashboardMock).addTableListener(eq("Front Camera Pan Angle"), any(ITableListener.class), anyBoolean());
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("Back");
+    when(smartDashboardMock.getNumber("Front Camera Pan Angle", 90)).thenReturn(90D);
+
+    // Act
+    DashboardInputs dashboardInputs = new DashboardInputs(smartDashboardMock);
+
+    // Assert
+    assertEquals(DashboardInputs.ScoringDirection.Front, dashboardInputs.getScoringDirection());
+    assertEquals(120, dashboardInputs.getPanAngleHistory(DashboardInputs.ScoringDirection.Front).angleAt(System.nanoTime(), 90), 1e-9);
+  }
+
+  @Test
+  public void itShouldStartFromTheDashboardPanAngles() {
+    // Assemble
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("");
+    when(smartDashboardMock.getNumber("Front Camera Pan Angle", 90)).thenReturn(45D);
+    when(smartDashboardMock.getNumber("Back Camera Pan Angle", 90)).thenReturn(135D);
+
+    // Act
+    DashboardInputs dashboardInputs = new DashboardInputs(smartDashboardMock);
+
+    // Assert
+    assertEquals(DashboardInputs.ScoringDirection.Back, dashboardInputs.getScoringDirection());
+    assertEquals(45, dashboardInputs.getPanAngleHistory(DashboardInputs.ScoringDirection.Front).angleAt(System.nanoTime(), 90), 1e-9);
+    assertEquals(135, dashboardInputs.getPanAngleHistory(DashboardInputs.ScoringDirection.Back).angleAt(System.nanoTime(), 90), 1e-9);
+    assertNull(dashboardInputs.getPanAngleHistory(DashboardInputs.ScoringDirection.None));
+  }
+
+  @Test
+  public void itShouldScoreBackWithoutADashboard() {
+    // Act
+    DashboardInputs dashboardInputs = new DashboardInputs(null);
+
+    // Assert
+    assertEquals(DashboardInputs.ScoringDirection.Back, dashboardInputs.getScoringDirection());
+    assertEquals(90, dashboardInputs.getPanAngleHistory(DashboardInputs.ScoringDirection.Front).angleAt(System.nanoTime(), 90), 1e-9);
+  }
+}
@@ -0,0 +1,125 @@
+import edu.wpi.cscore.*;
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that the FrameGrabber keeps only the newest frame grabbed from
+ * an image sink and counts what it drops and skips.
+ */
+public class FrameGrabberUnitTest 
+{
+    // This must be done in order to call opencv classes
+    static {
+        System.loadLibrary("opencv_java310");
+    }
+
+    /**
+     * Fake a sink that delivers frames with the given timestamps and then
+     * waits, as a camera would between frames, until interrupted.
+     */
+    private CvSink sinkDelivering(long... timestamps) {
+        CvSink imageSinkMock = mock(CvSink.class);
+        doAnswer(new Answer<Long>() {
+            private int index = 0;
+
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                if (index < timestamps.length) {
+                    Mat mat = (Mat) invocation.getArguments()[0];
+                    Mat.ones(3, 3, CvType.CV_8U).copyTo(mat);
+                    return timestamps[index++];
+                }
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0L;
+            }
+        }).when(imageSinkMock).grabFrame(any(Mat.class));
+        return imageSinkMock;
+    }
+
+    private void awaitGrabbed(FrameGrabber frameGrabber, long frames) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (frameGrabber.getGrabbedFrames() + frameGrabber.getDuplicateFrames() < frames 
+            && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void itKeepsOnlyTheNewestFrame() throws InterruptedException {
+        // Assemble
+        MatPool matPool = new MatPool(3);
+        FrameGrabber frameGrabber = new FrameGrabber(sinkDelivering(1L, 2L, 3L), matPool);
+
+        // Act
+        frameGrabber.start("Test Frame Grabber");
+        awaitGrabbed(frameGrabber, 3);
+        CapturedFrame frame = frameGrabber.take();
+        CapturedFrame nextFrame = frameGrabber.poll();
+        frameGrabber.stop();
+
+        // Assert
+        assertEquals(3L, frame.getTimestamp());
+        assertTrue(matPool.owns(frame.getImage()));
+        assertNull(nextFrame);
+        assertEquals(3, frameGrabber.getGrabbedFrames());
+        assertEquals(2, frameGrabber.getDroppedFrames());
+        assertEquals(1, frameGrabber.getTakenFrames());
+        // Only the taken frame is still leased
+        assertEquals(2, matPool.available());
+    }
+
+    @Test
+    public void itSkipsFramesWithATimestampAlreadySeen() throws InterruptedException {
+        // Assemble
+        MatPool matPool = new MatPool(3);
+        FrameGrabber frameGrabber = new FrameGrabber(sinkDelivering(5L, 5L), matPool);
+
+        // Act
+        frameGrabber.start("Test Frame Grabber");
+        awaitGrabbed(frameGrabber, 2);
+        CapturedFrame frame = frameGrabber.take();
+        frameGrabber.release(frame.getImage());
+        frameGrabber.stop();
+
+        // Assert
+        assertEquals(5L, frame.getTimestamp());
+        assertEquals(1, frameGrabber.getGrabbedFrames());
+        assertEquals(1, frameGrabber.getDuplicateFrames());
+        assertEquals(0, frameGrabber.getDroppedFrames());
+        assertEquals(3, matPool.available());
+    }
+
+    @Test
+    public void itWaitsForTheNextFrame() throws InterruptedException {
+        // Assemble
+        MatPool matPool = new MatPool(3);
+        FrameGrabber frameGrabber = new FrameGrabber(sinkDelivering(1L), matPool);
+
+        // Act
+        CapturedFrame[] taken = new CapturedFrame[1];
+        Thread takerThread = new Thread(() -> {
+            try {
+                taken[0] = frameGrabber.take();
+            } catch (InterruptedException e) {
+                // test fails below
+            }
+        });
+        takerThread.start();
+        frameGrabber.start("Test Frame Grabber");
+        takerThread.join(5000);
+        frameGrabber.stop();
+
+        // Assert
+        assertNotNull(taken[0]);
+        assertEquals(1L, taken[0].getTimestamp());
+    }
+}
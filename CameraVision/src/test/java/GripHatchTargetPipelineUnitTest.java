@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+
+import org.junit.*;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the GRIP pipeline steps shared by the camera specific pipelines.
+ */
+public class GripHatchTargetPipelineUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  /**
+   * Draw a pair of green tapes tilted toward each other on a black frame.
+   */
+  private Mat frameWithTapes() {
+    Mat image = Mat.zeros(480, 640, CvType.CV_8UC3);
+    drawTape(image, new RotatedRect(new Point(400, 300), new Size(110, 40), -75.5));
+    drawTape(image, new RotatedRect(new Point(520, 300), new Size(40, 110), -14.5));
+    return image;
+  }
+
+  private void drawTape(Mat image, RotatedRect tape) {
+    Point[] vertices = new Point[4];
+    tape.points(vertices);
+    Imgproc.fillConvexPoly(image, new MatOfPoint(vertices), new Scalar(0, 255, 0));
+  }
+
+  private ArrayList<Point[]> contourPoints(ArrayList<MatOfPoint> contours) {
+    ArrayList<Point[]> points = new ArrayList<Point[]>();
+    for (MatOfPoint contour : contours) {
+      points.add(contour.toArray());
+    }
+    return points;
+  }
+
+  @Test
+  public void itFindsTheSameContoursInARegionOfInterest() {
+    // Assemble
+    Mat image = frameWithTapes();
+    GripHatchTargetPipeline pipeline = new Lifecam5000HatchTargetPipeline();
+    pipeline.process(image);
+    ArrayList<Point[]> fullFrameContours = contourPoints(pipeline.filterContoursOutput());
+
+    // Act
+    pipeline.setRegionOfInterest(new Rect(320, 200, 280, 200));
+    pipeline.process(image);
+    ArrayList<Point[]> regionContours = contourPoints(pipeline.filterContoursOutput());
+
+    // Assert
+    assertEquals(2, fullFrameContours.size());
+    assertEquals(fullFrameContours.size(), regionContours.size());
+    for (int index = 0; index < fullFrameContours.size(); index++) {
+      assertArrayEquals(fullFrameContours.get(index), regionContours.get(index));
+    }
+    assertEquals(new Size(280, 200), pipeline.hsvThresholdOutput().size());
+  }
+
+  @Test
+  public void itProcessesTheWholeFrameWhenTheRegionIsOutsideIt() {
+    // Assemble
+    Mat image = frameWithTapes();
+    GripHatchTargetPipeline pipeline = new Lifecam5000HatchTargetPipeline();
+
+    // Act
+    pipeline.setRegionOfInterest(new Rect(700, 500, 100, 100));
+    pipeline.process(image);
+
+    // Assert
+    assertEquals(2, pipeline.filterContoursOutput().size());
+    assertEquals(image.size(), pipeline.hsvThresholdOutput().size());
+  }
+
+  @Test
+  public void itFindsTheSameContoursCoarseToFine() {
+    // Assemble
+    Mat image = frameWithTapes();
+    GripHatchTargetPipeline pipeline = new Lifecam5000HatchTargetPipeline();
+    pipeline.process(image);
+    ArrayList<Point[]> fullResolutionContours = contourPoints(pipeline.filterContoursOutput());
+
+    for (int level = 1; level <= GripHatchTargetPipeline.MAXPYRAMIDLEVEL; level++) {
+      // Act
+      pipeline.setPyramidLevel(level);
+      pipeline.process(image);
+      ArrayList<Point[]> coarseToFineContours = contourPoints(pipeline.filterContoursOutput());
+
+      // Assert
+      assertEquals(2, coarseToFineContours.size());
+      for (int index = 0; index < fullResolutionContours.size(); index++) {
+        assertArrayEquals(fullResolutionContours.get(index), coarseToFineContours.get(index));
+      }
+      assertEquals(image.cols() >> level, pipeline.hsvThresholdOutput().cols());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itRejectsPyramidLevelsItDoesNotSupport() {
+    new Lifecam5000HatchTargetPipeline().setPyramidLevel(GripHatchTargetPipeline.MAXPYRAMIDLEVEL + 1);
+  }
+
+  @Test
+  public void itRecordsHowLongEachStepTakesPerFrame() {
+    // Assemble
+    Mat image = frameWithTapes();
+    GripHatchTargetPipeline pipeline = new Lifecam5000HatchTargetPipeline();
+    StageLatencies stageLatencies = new StageLatencies();
+    pipeline.setStageLatencies(stageLatencies);
+
+    // Act
+    pipeline.process(image);
+    pipeline.setPyramidLevel(1);
+    pipeline.process(image);
+
+    // Assert
+    assertEquals(2, stageLatencies.getHistogram(StageLatencies.Stage.Threshold).getCount());
+    assertEquals(2, stageLatencies.getHistogram(StageLatencies.Stage.Contours).getCount());
+    assertEquals(2, stageLatencies.getHistogram(StageLatencies.Stage.Filter).getCount());
+    assertTrue(stageLatencies.getHistogram(StageLatencies.Stage.Threshold).getMax() > 0);
+    assertEquals(0, stageLatencies.getHistogram(StageLatencies.Stage.Interpret).getCount());
+  }
+}
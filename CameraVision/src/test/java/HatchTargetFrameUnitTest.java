@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test finding the hatch target containing a point from a frame's index of
+ * upsized target bounds. Tapes are 2x5.5 inches at 20 pixels per inch.
+ */
+public class HatchTargetFrameUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  private final CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+
+  private HatchTarget target(double left, double y) throws HatchTarget.TargetRectanglesException {
+    return new HatchTarget(
+      new RotatedRect(new Point(left + 45.6, y), new Size(110, 40), -75.5),
+      new RotatedRect(new Point(left + 274.4, y), new Size(40, 110), -14.5),
+      cameraParameters);
+  }
+
+  private HatchTargetFrame frame(double slopFactor, HatchTarget ... hatchTargets) {
+    ArrayList<HatchTarget> targets = new ArrayList<HatchTarget>();
+    for (HatchTarget hatchTarget : hatchTargets) {
+      targets.add(hatchTarget);
+    }
+    return new HatchTargetFrame(1, cameraParameters, new ArrayList<RotatedRect>(), targets, slopFactor);
+  }
+
+  /**
+   * Find a target without the index: scan the targets left to right for the
+   * first upsized bounds containing the point.
+   */
+  private HatchTarget scan(HatchTargetFrame frame, Point point) {
+    for (HatchTarget hatchTarget : frame.getHatchTargets()) {
+      RotatedRect rectangle = hatchTarget.targetRectangle();
+      RotatedRect upsized = new RotatedRect(rectangle.center,
+        new Size(rectangle.size.width * frame.getSlopFactor(), rectangle.size.height * frame.getSlopFactor()),
+        rectangle.angle);
+      if (upsized.boundingRect().contains(point)) {
+        return hatchTarget;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void itShouldFindTheTargetContainingAPoint() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTarget leftTarget = target(0, 240);
+    HatchTarget rightTarget = target(330, 240);
+    HatchTargetFrame frame = frame(HatchTargetFrame.DEFAULTSLOPFACTOR, leftTarget, rightTarget);
+
+    // Act and Assert
+    assertSame(leftTarget, frame.getHatchTargetFromPoint(leftTarget.center()));
+    assertSame(rightTarget, frame.getHatchTargetFromPoint(rightTarget.center()));
+    assertThrows(TargetNotFoundException.class, () -> frame.getHatchTargetFromPoint(new Point(160, 20)));
+  }
+
+  @Test
+  public void itShouldNotFindATargetFromNoPoint() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetFrame frame = frame(HatchTargetFrame.DEFAULTSLOPFACTOR, target(0, 240));
+    HatchTargetFrame emptyFrame = frame(HatchTargetFrame.DEFAULTSLOPFACTOR);
+
+    // Act and Assert
+    assertThrows(TargetNotFoundException.class, () -> frame.getHatchTargetFromPoint(null));
+    assertThrows(TargetNotFoundException.class, () -> emptyFrame.getHatchTargetFromPoint(null));
+  }
+
+  @Test
+  public void itShouldUpsizeTargetsByTheSlopFactor() throws HatchTarget.TargetRectanglesException {
+    // Assemble a point just above the target bounds
+    HatchTarget hatchTarget = target(100, 240);
+    Rect bounds = hatchTarget.targetRectangle().boundingRect();
+    Point point = new Point(hatchTarget.center().x, bounds.y - 2);
+
+    // Act and Assert
+    assertSame(hatchTarget, frame(HatchTargetFrame.DEFAULTSLOPFACTOR, hatchTarget).getHatchTargetFromPoint(point));
+    assertThrows(TargetNotFoundException.class, () -> frame(1, hatchTarget).getHatchTargetFromPoint(point));
+    assertThrows(IllegalArgumentException.class, () -> frame(0, hatchTarget));
+  }
+
+  @Test
+  public void itShouldFindWhatAScanFinds() throws HatchTarget.TargetRectanglesException {
+    // Assemble overlapping targets at different heights
+    HatchTargetFrame frame = frame(HatchTargetFrame.DEFAULTSLOPFACTOR,
+      target(0, 200), target(150, 260), target(300, 220), target(330, 300));
+    Random random = new Random(997);
+
+    for (int sample = 0; sample < 10000; sample++) {
+      Point point = new Point(random.nextDouble() * 700, random.nextDouble() * 480);
+      HatchTarget expected = scan(frame, point);
+      try {
+        assertSame(expected, frame.getHatchTargetFromPoint(point));
+      } catch (TargetNotFoundException e) {
+        assertNull(expected);
+      }
+    }
+  }
+
+  @Test
+  public void itShouldKeepItsTargetsWhenStampedWithItsCapture() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetFrame frame = new HatchTargetTracker().update(frame(HatchTargetFrame.DEFAULTSLOPFACTOR, target(0, 240)));
+    long grabbedNanos = System.nanoTime() - 5000000;
+
+    // Act
+    HatchTargetFrame capturedFrame = frame.withCapture(7, 123456, grabbedNanos);
+
+    // Assert
+    assertFalse(frame.isCaptured());
+    assertTrue(capturedFrame.isCaptured());
+    assertEquals(7, capturedFrame.getFrameNumber());
+    assertEquals(123456, capturedFrame.getCaptureTimestamp());
+    assertTrue(capturedFrame.getLatencyMillis() >= 5);
+    assertTrue(capturedFrame.isTracked());
+    assertEquals(frame.getTrackedTargets(), capturedFrame.getTrackedTargets());
+    assertSame(frame.getHatchTargets().get(0), capturedFrame.getHatchTargets().get(0));
+  }
+}
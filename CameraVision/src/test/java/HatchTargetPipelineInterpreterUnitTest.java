@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that the interpreter builds one result per processed frame and
+ * answers every query from it.
+ */
+public class HatchTargetPipelineInterpreterUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  @Test
+  public void itShouldReadThePipelineOncePerFrame() {
+    // Assemble
+    IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
+    when(pipelineMock.filterContoursOutput()).thenReturn(new ArrayList<MatOfPoint>());
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(pipelineMock, new Lifecam5000CameraParameters());
+
+    // Act
+    interpreter.interpret();
+    interpreter.targetsFound();
+    interpreter.targetCount();
+    interpreter.getHatchTargets();
+    interpreter.getHatchTargetCenters();
+    interpreter.getHatchTargetCentersClosestToFOVCenter();
+
+    // Assert
+    verify(pipelineMock, times(1)).filterContoursOutput();
+  }
+
+  @Test
+  public void itShouldNumberEachInterpretedFrame() {
+    // Assemble
+    IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
+    when(pipelineMock.filterContoursOutput()).thenReturn(new ArrayList<MatOfPoint>());
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(pipelineMock, new Lifecam5000CameraParameters());
+
+    // Act
+    HatchTargetFrame firstFrame = interpreter.interpret();
+    HatchTargetFrame secondFrame = interpreter.interpret();
+
+    // Assert
+    assertEquals(1, firstFrame.getSequenceNumber());
+    assertEquals(2, secondFrame.getSequenceNumber());
+    assertEquals(2, interpreter.getFrameSequenceNumber());
+  }
+
+  @Test
+  public void itShouldAnswerFromTheFrameItIsGiven() {
+    // Assemble
+    CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(cameraParameters);
+    HatchTargetFrame frame = new HatchTargetFrame(7, cameraParameters, new ArrayList<RotatedRect>(), new ArrayList<HatchTarget>());
+
+    // Act
+    interpreter.setFrame(frame);
+
+    // Assert
+    assertSame(frame, interpreter.getFrame());
+    assertFalse(interpreter.targetsFound());
+    assertEquals(0, interpreter.targetCount());
+  }
+
+  @Test
+  public void itShouldCountWhyPairsWereRejected() {
+    // Assemble an upright stray to the left of a valid pair of tapes at 20 px/inch
+    ArrayList<MatOfPoint> contours = new ArrayList<MatOfPoint>();
+    contours.add(toContour(new RotatedRect(new Point(100, 240), new Size(40, 110), 0)));
+    contours.add(toContour(new RotatedRect(new Point(205.6, 240), new Size(110, 40), -75.5)));
+    contours.add(toContour(new RotatedRect(new Point(434.4, 240), new Size(40, 110), -14.5)));
+    IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
+    when(pipelineMock.filterContoursOutput()).thenReturn(contours);
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(pipelineMock, new Lifecam5000CameraParameters());
+
+    // Act
+    HatchTargetFrame frame = interpreter.interpret();
+
+    // Assert
+    PairValidationStatistics statistics = interpreter.getPairValidationStatistics();
+    assertEquals(1, frame.targetCount());
+    assertEquals(1, statistics.getCount(HatchTarget.PairValidation.Valid));
+    assertEquals(1, statistics.getCount(HatchTarget.PairValidation.NotTilted));
+    assertEquals(1, statistics.getRejectedCount());
+  }
+
+  private MatOfPoint toContour(RotatedRect rectangle) {
+    Point[] vertices = new Point[4];
+    rectangle.points(vertices);
+    for (Point vertex : vertices) {
+      vertex.x = Math.round(vertex.x);
+      vertex.y = Math.round(vertex.y);
+    }
+    return new MatOfPoint(vertices);
+  }
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that tracked targets keep their IDs as they move, coast through a
+ * few missing frames, and are predicted ahead. Tapes are 2x5.5 inches at
+ * 20 pixels per inch, so targets are about 320 pixels wide.
+ */
+public class HatchTargetTrackerUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  private final CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+
+  private HatchTarget target(double left, double y) throws HatchTarget.TargetRectanglesException {
+    return new HatchTarget(
+      new RotatedRect(new Point(left + 45.6, y), new Size(110, 40), -75.5),
+      new RotatedRect(new Point(left + 274.4, y), new Size(40, 110), -14.5),
+      cameraParameters);
+  }
+
+  private HatchTargetFrame frame(long sequenceNumber, HatchTarget ... hatchTargets) {
+    ArrayList<HatchTarget> targets = new ArrayList<HatchTarget>();
+    for (HatchTarget hatchTarget : hatchTargets) {
+      targets.add(hatchTarget);
+    }
+    return new HatchTargetFrame(sequenceNumber, cameraParameters, new ArrayList<RotatedRect>(), targets);
+  }
+
+  @Test
+  public void itShouldKeepIdsAsTargetsMove() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    HatchTargetFrame first = tracker.update(frame(1, target(0, 240), target(400, 240)));
+    int leftId = first.getTrackedTarget(first.getHatchTargets().get(0)).getId();
+    int rightId = first.getTrackedTarget(first.getHatchTargets().get(1)).getId();
+
+    // Act
+    HatchTargetFrame second = tracker.update(frame(2, target(20, 245), target(420, 245)));
+
+    // Assert
+    assertTrue(second.isTracked());
+    assertNotEquals(leftId, rightId);
+    assertEquals(leftId, second.getTrackedTarget(second.getHatchTargets().get(0)).getId());
+    assertEquals(rightId, second.getTrackedTarget(second.getHatchTargets().get(1)).getId());
+  }
+
+  @Test
+  public void itShouldGiveANewTargetANewId() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    HatchTargetFrame first = tracker.update(frame(1, target(0, 240)));
+    int firstId = first.getTrackedTargets().get(0).getId();
+
+    // Act
+    HatchTargetFrame second = tracker.update(frame(2, target(0, 240), target(400, 240)));
+
+    // Assert
+    assertEquals(2, second.getTrackedTargets().size());
+    assertEquals(firstId, second.getTrackedTarget(second.getHatchTargets().get(0)).getId());
+    assertNotEquals(firstId, second.getTrackedTarget(second.getHatchTargets().get(1)).getId());
+  }
+
+  @Test
+  public void itShouldCoastThroughMissingFramesThenDrop() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    HatchTargetFrame first = tracker.update(frame(1, target(0, 240)));
+    int id = first.getTrackedTargets().get(0).getId();
+
+    // Act and Assert
+    long sequenceNumber = 2;
+    for (int miss = 1; miss <= HatchTargetTracker.COASTLIMIT; miss++) {
+      TrackedTarget coasting = tracker.update(frame(sequenceNumber++)).getTrackedTarget(id);
+      assertNotNull(coasting);
+      assertTrue(coasting.isCoasting());
+      assertEquals(miss, coasting.getMisses());
+    }
+    assertNull(tracker.update(frame(sequenceNumber++)).getTrackedTarget(id));
+  }
+
+  @Test
+  public void itShouldKeepTheIdWhenATargetComesBackFromCoasting() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    HatchTargetFrame first = tracker.update(frame(1, target(0, 240)));
+    int id = first.getTrackedTargets().get(0).getId();
+    tracker.update(frame(2));
+
+    // Act
+    HatchTargetFrame third = tracker.update(frame(3, target(5, 240)));
+
+    // Assert
+    TrackedTarget trackedTarget = third.getTrackedTarget(third.getHatchTargets().get(0));
+    assertEquals(id, trackedTarget.getId());
+    assertFalse(trackedTarget.isCoasting());
+  }
+
+  @Test
+  public void itShouldPredictAMovingTarget() throws HatchTarget.TargetRectanglesException {
+    // Assemble a target moving 10 pixels right every frame
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    TrackedTarget trackedTarget = null;
+
+    // Act
+    for (int step = 0; step < 20; step++) {
+      HatchTargetFrame tracked = tracker.update(frame(step + 1, target(step * 10, 240)));
+      trackedTarget = tracked.getTrackedTargets().get(0);
+    }
+
+    // Assert the filter has settled on the velocity
+    assertEquals(10, trackedTarget.getVelocityX(), 0.5);
+    assertEquals(0, trackedTarget.getVelocityY(), 0.001);
+    assertEquals(160 + (20 * 10), trackedTarget.getPredictedCenter().x, 1);
+  }
+
+  @Test
+  public void itShouldStartOverForAnotherCamera() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    tracker.update(frame(1, target(0, 240)));
+
+    // Act
+    HatchTargetFrame otherCamera = tracker.update(HatchTargetFrame.empty(new Lifecam5000CameraParameters()));
+
+    // Assert
+    assertTrue(otherCamera.isTracked());
+    assertTrue(otherCamera.getTrackedTargets().isEmpty());
+  }
+}
@@ -2,11 +2,17 @@ import org.junit.*;
 import org.mockito.internal.stubbing.answers.Returns;
 import org.opencv.core.*;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class HatchTargetUnitTest {
+    // This must be done in order to call opencv classes
+    static {
+        System.loadLibrary("opencv_java310");
+    }
 
     private double pxPerInch;
     private double inchesBetweenRectangles;
@@ -37,6 +43,59 @@ public class HatchTargetUnitTest {
         assertThrows(HatchTarget.TargetRectanglesException.class, () -> {HatchTarget hatchTarget = new HatchTarget(leftRectangleMock, rightRectangleMock, parameters);});
     }
 
+    /**
+     * Makes sure candidate pairs are judged the same way as constructed targets.
+     */
+    @Test
+    public void ItShouldPairCandidatesLikeTheConstructor() throws HatchTarget.TargetRectanglesException {
+        pxPerInch = 10.0;
+        CameraParameters parameters = new Lifecam5000CameraParameters();
+        CandidateRectangles candidates = new CandidateRectangles();
+        // A valid pair, with centers ~11.4 inches apart
+        int left = candidates.add(new RotatedRect(new Point(toPx(2.28), toPx(10)), new Size(toPx(5.5), toPx(2)), -75.5));
+        int right = candidates.add(new RotatedRect(new Point(toPx(13.72), toPx(10)), new Size(toPx(2), toPx(5.5)), -14.5));
+        // The same right rectangle, much too far over
+        int farRight = candidates.add(new RotatedRect(new Point(toPx(40), toPx(10)), new Size(toPx(2), toPx(5.5)), -14.5));
+
+        assertEquals(HatchTarget.PairValidation.Valid, HatchTarget.validate(candidates, left, right));
+        assertEquals(HatchTarget.PairValidation.TooFarApart, HatchTarget.validate(candidates, left, farRight));
+        assertEquals(HatchTarget.PairValidation.NotTilted, HatchTarget.validate(candidates, right, left));
+
+        HatchTarget fromCandidates = new HatchTarget(candidates, left, right, parameters);
+        HatchTarget fromRectangles = new HatchTarget(
+            new RotatedRect(new Point(toPx(2.28), toPx(10)), new Size(toPx(5.5), toPx(2)), -75.5),
+            new RotatedRect(new Point(toPx(13.72), toPx(10)), new Size(toPx(2), toPx(5.5)), -14.5),
+            parameters);
+        assertEquals(fromRectangles.center(), fromCandidates.center());
+        assertEquals(fromRectangles.rangeInInches(), fromCandidates.rangeInInches(), 0);
+        assertEquals(fromRectangles.aspectAngleInRadians(), fromCandidates.aspectAngleInRadians(), 0);
+    }
+
+    /**
+     * Makes sure derived values are worked out once and cannot be changed by callers.
+     */
+    @Test
+    public void ItShouldKeepDerivedValuesUnchanged() throws HatchTarget.TargetRectanglesException {
+        pxPerInch = 10.0;
+        HatchTarget hatchTarget = new HatchTarget(
+            new RotatedRect(new Point(toPx(2.28), toPx(10)), new Size(toPx(5.5), toPx(2)), -75.5),
+            new RotatedRect(new Point(toPx(13.72), toPx(10)), new Size(toPx(2), toPx(5.5)), -14.5),
+            new Lifecam5000CameraParameters());
+        RotatedRect targetRectangle = hatchTarget.targetRectangle();
+        Point center = hatchTarget.center();
+        double range = hatchTarget.rangeInInches();
+
+        // Scribble on what was handed out
+        targetRectangle.center.x = 0;
+        targetRectangle.size.width = 0;
+        center.x = 0;
+
+        assertNotSame(targetRectangle, hatchTarget.targetRectangle());
+        assertEquals(toPx(8), hatchTarget.targetRectangle().center.x, 1);
+        assertEquals(toPx(8), hatchTarget.center().x, 0);
+        assertEquals(range, hatchTarget.rangeInInches(), 0);
+    }
+
     public double toPx(double inches) {
         return (inches * pxPerInch);
     }
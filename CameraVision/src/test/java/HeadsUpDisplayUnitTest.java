@@ -1,18 +1,26 @@
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+
 import org.opencv.core.Mat;
 import org.opencv.core.Point;
 import org.opencv.core.RotatedRect;
+import org.opencv.core.Size;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import edu.wpi.first.wpilibj.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.tables.ITable;
+import edu.wpi.first.wpilibj.tables.ITableListener;
 
 public class HeadsUpDisplayUnitTest {
 	// This must be done in order to call opencv classes
@@ -123,4 +131,223 @@ public class HeadsUpDisplayUnitTest {
     // Assert
     verify(selectedTargetSubTableMock, times(1)).putNumber("CameraAngleInDegrees", -60D);
   }
-}
\ No newline at end of file
+
+  @Test
+  /**
+   * While the camera pans, the angle written is the one it was at when the
+   * frame was captured, not the one it has reached since.
+   */
+  public void itShouldWriteThePanAngleWhenTheFrameWasCaptured() throws InterruptedException {
+    // Assemble
+    ImageAnnotator imageAnnotatorMock = mock(ImageAnnotator.class);
+    HatchTargetPipelineInterpreter hatchTargetPipelineInterpreterMock = mock(HatchTargetPipelineInterpreter.class);
+    NetworkTable visionNetworkTableMock = mock(NetworkTable.class);
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    Mat inputImageMock = mock(Mat.class);
+    HatchTarget hatchTargetMock = mock(HatchTarget.class);
+    ITable selectedTargetSubTableMock = mock(ITable.class);
+    ITable normalizedPointSubtable = mock(ITable.class);
+    when(hatchTargetMock.targetRectangle()).thenReturn(new RotatedRect());
+    when(hatchTargetMock.aspectAngleInRadians()).thenReturn(0D);
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("Front");
+    when(smartDashboardMock.getNumber("Front Camera Pan Angle", 90)).thenReturn(90D);
+    when(hatchTargetPipelineInterpreterMock.getHatchTargetFromPoint(null)).thenReturn(hatchTargetMock);
+    when(hatchTargetPipelineInterpreterMock.getNormalizedTargetPositionFromCenter(isA(Point.class))).thenReturn(new Point());
+    when(visionNetworkTableMock.getSubTable("SelectedTarget")).thenReturn(selectedTargetSubTableMock);
+    when(selectedTargetSubTableMock.getSubTable("NormalizedPointFromCenter")).thenReturn(normalizedPointSubtable);
+
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotatorMock, 
+      hatchTargetPipelineInterpreterMock, 
+      visionNetworkTableMock, 
+      smartDashboardMock);
+    ArgumentCaptor<ITableListener> panAngleListener = ArgumentCaptor.forClass(ITableListener.class);
+    verify(smartDashboardMock).addTableListener(eq("Front Camera Pan Angle"), panAngleListener.capture(), anyBoolean());
+
+    // The camera is at 120 degrees when the frame is captured, then pans on to 150
+    panAngleListener.getValue().valueChanged(smartDashboardMock, "Front Camera Pan Angle", 120D, false);
+    Thread.sleep(1);
+    HatchTargetFrame frame = HatchTargetFrame.empty(new Lifecam5000CameraParameters()).withCapture(1, 0, System.nanoTime());
+    Thread.sleep(1);
+    panAngleListener.getValue().valueChanged(smartDashboardMock, "Front Camera Pan Angle", 120D, false);
+    Thread.sleep(1);
+    panAngleListener.getValue().valueChanged(smartDashboardMock, "Front Camera Pan Angle", 150D, false);
+
+    hud.setState(CameraControlStateMachine.State.AutoLocked);
+
+    // Act
+    hud.update(inputImageMock, frame);
+
+    // Assert
+    verify(selectedTargetSubTableMock, times(1)).putNumber("CameraAngleInDegrees", 30D);
+  }
+
+  @Test
+  /**
+   * A state written by the robot is applied when the next frame is displayed,
+   * not on the network tables thread, and values that are not a state or
+   * trigger are ignored.
+   */
+  public void itShouldApplyStateChangesBetweenFrames() {
+    // Assemble
+    ImageAnnotator imageAnnotatorMock = mock(ImageAnnotator.class);
+    HatchTargetPipelineInterpreter hatchTargetPipelineInterpreterMock = mock(HatchTargetPipelineInterpreter.class);
+    NetworkTable visionNetworkTableMock = mock(NetworkTable.class);
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    Mat inputImageMock = mock(Mat.class);
+    ITable selectedTargetSubTableMock = mock(ITable.class);
+    when(visionNetworkTableMock.getSubTable("SelectedTarget")).thenReturn(selectedTargetSubTableMock);
+    when(selectedTargetSubTableMock.getSubTable("NormalizedPointFromCenter")).thenReturn(mock(ITable.class));
+    CameraControlStateMachine stateMachine = new CameraControlStateMachine();
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotatorMock, 
+      hatchTargetPipelineInterpreterMock, 
+      visionNetworkTableMock, 
+      smartDashboardMock, 
+      null, 
+      stateMachine);
+    ArgumentCaptor<ITableListener> stateListener = ArgumentCaptor.forClass(ITableListener.class);
+    verify(visionNetworkTableMock).addTableListener(eq("State"), stateListener.capture(), anyBoolean());
+
+    // Act and Assert
+    stateListener.getValue().valueChanged(visionNetworkTableMock, new String("State"), "Calibrating", false);
+    stateListener.getValue().valueChanged(visionNetworkTableMock, "Trigger", "NotAButton", false);
+    assertEquals(CameraControlStateMachine.State.IdentifyingTargets, stateMachine.getState());
+    hud.update(inputImageMock);
+    assertEquals(CameraControlStateMachine.State.Calibrating, stateMachine.getState());
+    stateListener.getValue().valueChanged(visionNetworkTableMock, "State", "Confused", false);
+    stateListener.getValue().valueChanged(visionNetworkTableMock, "State", "", false);
+    hud.update(inputImageMock);
+    assertEquals(CameraControlStateMachine.State.IdentifyingTargets, stateMachine.getState());
+  }
+
+  @Test
+  /**
+   * A frame nobody will see is not annotated, but the selected target is still
+   * written for the robot.
+   */
+  public void itShouldWriteTheSelectedTargetWithoutAnnotating() {
+    // Assemble
+    ImageAnnotator imageAnnotatorMock = mock(ImageAnnotator.class);
+    HatchTargetPipelineInterpreter hatchTargetPipelineInterpreterMock = mock(HatchTargetPipelineInterpreter.class);
+    NetworkTable visionNetworkTableMock = mock(NetworkTable.class);
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    Mat inputImageMock = mock(Mat.class);
+    HatchTarget hatchTargetMock = mock(HatchTarget.class);
+    ITable selectedTargetSubTableMock = mock(ITable.class);
+    ITable normalizedPointSubtable = mock(ITable.class);
+    when(hatchTargetMock.targetRectangle()).thenReturn(new RotatedRect());
+    when(hatchTargetMock.aspectAngleInRadians()).thenReturn(0D);
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("Front");
+    when(smartDashboardMock.getNumber("Front Camera Pan Angle", 90)).thenReturn(30D);
+    when(hatchTargetPipelineInterpreterMock.getHatchTargetFromPoint(null)).thenReturn(hatchTargetMock);
+    when(hatchTargetPipelineInterpreterMock.getNormalizedTargetPositionFromCenter(isA(Point.class))).thenReturn(new Point());
+    when(visionNetworkTableMock.getSubTable("SelectedTarget")).thenReturn(selectedTargetSubTableMock);
+    when(selectedTargetSubTableMock.getSubTable("NormalizedPointFromCenter")).thenReturn(normalizedPointSubtable);
+
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotatorMock, 
+      hatchTargetPipelineInterpreterMock, 
+      visionNetworkTableMock, 
+      smartDashboardMock);
+
+    hud.setState(CameraControlStateMachine.State.AutoLocked);
+
+    // Act
+    Mat outputImage = hud.update(inputImageMock, HatchTargetFrame.empty(new Lifecam5000CameraParameters()), false);
+
+    // Assert
+    assertEquals(inputImageMock, outputImage);
+    verify(imageAnnotatorMock, never()).beginAnnotation(isA(Mat.class));
+    verify(imageAnnotatorMock).skipAnnotation();
+    verify(selectedTargetSubTableMock, times(1)).putNumber("CameraAngleInDegrees", -60D);
+  }
+
+  @Test
+  /**
+   * The robot can set a locked state before any target was selected on the HUD.
+   * With no point to find the target from, the lock is lost rather than the
+   * update failing.
+   */
+  public void itShouldLoseLockWhenLockedWithoutASelectedTarget() {
+    // Assemble
+    ImageAnnotator imageAnnotatorMock = mock(ImageAnnotator.class);
+    CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(cameraParameters);
+    NetworkTable visionNetworkTableMock = mock(NetworkTable.class);
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    Mat inputImageMock = mock(Mat.class);
+
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotatorMock, 
+      interpreter, 
+      visionNetworkTableMock, 
+      smartDashboardMock);
+
+    hud.setState(CameraControlStateMachine.State.TargetLocked);
+
+    // Act
+    for (int frame = 0; frame < 10; frame++) {
+      hud.update(inputImageMock, HatchTargetFrame.empty(cameraParameters), false);
+    }
+
+    // Assert
+    verify(visionNetworkTableMock, times(1)).putString("Fire", "LoseLock");
+  }
+
+  private HatchTargetFrame frameWithTarget(long sequenceNumber, CameraParameters cameraParameters) throws HatchTarget.TargetRectanglesException {
+    ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
+    hatchTargets.add(new HatchTarget(
+      new RotatedRect(new Point(205.6, 240), new Size(110, 40), -75.5),
+      new RotatedRect(new Point(434.4, 240), new Size(40, 110), -14.5),
+      cameraParameters));
+    return new HatchTargetFrame(sequenceNumber, cameraParameters, new ArrayList<RotatedRect>(), hatchTargets);
+  }
+
+  @Test
+  /**
+   * A locked target in tracked frames is followed by its ID while the tracker
+   * coasts it, and the lock is lost as soon as the tracker drops it, without
+   * waiting out the retries.
+   */
+  public void itShouldFollowATrackedTargetByIdUntilItIsDropped() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    ImageAnnotator imageAnnotatorMock = mock(ImageAnnotator.class);
+    HatchTargetPipelineInterpreter hatchTargetPipelineInterpreterMock = mock(HatchTargetPipelineInterpreter.class);
+    NetworkTable visionNetworkTableMock = mock(NetworkTable.class);
+    NetworkTable smartDashboardMock = mock(NetworkTable.class);
+    Mat inputImageMock = mock(Mat.class);
+    ITable selectedTargetSubTableMock = mock(ITable.class);
+    ITable normalizedPointSubtable = mock(ITable.class);
+    when(smartDashboardMock.getString("Scoring Direction", "Back")).thenReturn("Front");
+    when(smartDashboardMock.getNumber("Front Camera Pan Angle", 90)).thenReturn(90D);
+    when(visionNetworkTableMock.getSubTable("SelectedTarget")).thenReturn(selectedTargetSubTableMock);
+    when(selectedTargetSubTableMock.getSubTable("NormalizedPointFromCenter")).thenReturn(normalizedPointSubtable);
+
+    CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+    HatchTargetTracker tracker = new HatchTargetTracker();
+    HatchTargetFrame frame = tracker.update(frameWithTarget(1, cameraParameters));
+    ArrayList<Point> centers = new ArrayList<Point>();
+    centers.add(frame.getHatchTargets().get(0).center());
+    when(hatchTargetPipelineInterpreterMock.getHatchTargetCenters()).thenReturn(centers);
+    when(hatchTargetPipelineInterpreterMock.getHatchTargetCentersClosestToFOVCenter()).thenReturn(centers);
+
+    HeadsUpDisplay hud = new HeadsUpDisplay(imageAnnotatorMock, 
+      hatchTargetPipelineInterpreterMock, 
+      visionNetworkTableMock, 
+      smartDashboardMock);
+    hud.update(inputImageMock, frame);
+    hud.selectTarget(CameraControlStateMachine.Trigger.AButton);
+    hud.setState(CameraControlStateMachine.State.TargetLocked);
+
+    // Act and Assert
+    long sequenceNumber = 2;
+    hud.update(inputImageMock, tracker.update(frameWithTarget(sequenceNumber++, cameraParameters)));
+    for (int miss = 0; miss < HatchTargetTracker.COASTLIMIT; miss++) {
+      hud.update(inputImageMock, tracker.update(HatchTargetFrame.empty(cameraParameters)));
+    }
+    verify(visionNetworkTableMock, never()).putString("Fire", "LoseLock");
+    // Unchanged values are only written once, and the target is only cleared
+    // while identifying targets, not while coasting
+    verify(selectedTargetSubTableMock, times(1)).putBoolean("Enabled", true);
+    verify(selectedTargetSubTableMock, times(1)).putBoolean("Enabled", false);
+    hud.update(inputImageMock, tracker.update(HatchTargetFrame.empty(cameraParameters)));
+    verify(visionNetworkTableMock, times(1)).putString("Fire", "LoseLock");
+  }
+}
@@ -0,0 +1,69 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the HUD renders no more often than its frame rate, and not at all
+ * while nobody is watching.
+ */
+public class HudRenderGateUnitTest {
+  @Test
+  public void itShouldRenderAtMostOnceAPeriod() {
+    // Assemble
+    HudRenderGate hudRenderGate = new HudRenderGate(10);
+
+    // Act and Assert
+    assertTrue(hudRenderGate.shouldRender(1000000000L));
+    assertFalse(hudRenderGate.shouldRender(1050000000L));
+    assertFalse(hudRenderGate.shouldRender(1099999999L));
+    assertTrue(hudRenderGate.shouldRender(1100000000L));
+    assertFalse(hudRenderGate.shouldRender(1150000000L));
+  }
+
+  @Test
+  public void itShouldNotRenderWhileUnwatched() {
+    // Assemble
+    HudRenderGate hudRenderGate = new HudRenderGate(10);
+
+    // Act and Assert
+    hudRenderGate.setWatched(false);
+    assertFalse(hudRenderGate.shouldRender(1000000000L));
+    assertFalse(hudRenderGate.shouldRender(2000000000L));
+    hudRenderGate.setWatched(true);
+    assertTrue(hudRenderGate.shouldRender(2000000001L));
+  }
+
+  @Test
+  public void itShouldBeWatchedUntilFollowingASource() {
+    // Assemble
+    HudRenderGate hudRenderGate = new HudRenderGate(10);
+
+    // Act and Assert
+    assertTrue(hudRenderGate.isWatched());
+    assertTrue(hudRenderGate.shouldRender(1000000000L));
+  }
+
+  @Test
+  public void itShouldRenderOnlyWhileTheFollowedSourceIsWatched() {
+    // Assemble
+    AtomicBoolean sourceEnabled = new AtomicBoolean(false);
+    HudRenderGate hudRenderGate = new HudRenderGate(10);
+    hudRenderGate.follow(sourceEnabled::get);
+
+    // Act and Assert
+    assertFalse(hudRenderGate.shouldRender(1000000000L));
+    // A client connects
+    sourceEnabled.set(true);
+    assertTrue(hudRenderGate.shouldRender(1000000001L));
+    // The last client leaves
+    sourceEnabled.set(false);
+    assertFalse(hudRenderGate.shouldRender(2000000000L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itShouldThrowIllegalArgumentExceptionWhenFrameRateIsNotPositive() {
+    new HudRenderGate(0);
+  }
+}
@@ -1,4 +1,5 @@
 import org.junit.*;
+import org.mockito.InOrder;
 import org.opencv.core.*;
 import static org.mockito.Mockito.*;
 
@@ -19,31 +20,32 @@ public class ImageProcessorUnitTest
 	}
 
 	/**
-	 * Test that the ImageProcessor calls the process method, asynchronously,
-	 * of the passed in pipeline. For this test, we do not care what the pipeline
+	 * Test that the ImageProcessor calls the process method of the passed in
+	 * pipeline when detecting. For this test, we do not care what the pipeline
 	 * itself actually does.
 	 */
 	@Test
 	public void itShouldProcessMyPipeline() {
 		// Assemble
-		// use Mockito to mock a pipeline and network table writer object
+		// use Mockito to mock a pipeline and interpreter object
 		IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
-		INetworkTableWriter networkTableWriterMock = mock(INetworkTableWriter.class);
-		ImageProcessor imageProcessor = new ImageProcessor(pipelineMock, networkTableWriterMock);
+		HatchTargetPipelineInterpreter interpreterMock = mock(HatchTargetPipelineInterpreter.class);
+		CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+		when(interpreterMock.interpret()).thenReturn(HatchTargetFrame.empty(cameraParameters));
+		ImageProcessor imageProcessor = new ImageProcessor(pipelineMock, interpreterMock, null);
 		Mat emptyImage = new Mat();
 
 		// Act
-		imageProcessor.processAsync(emptyImage);
-		imageProcessor.awaitProcessCompletion();
+		imageProcessor.detect(emptyImage, cameraParameters);
 
 		//Assert
 		verify(pipelineMock, times(1)).process(emptyImage);
 	}
 
 	/**
-	 * Test that the ImageProcessor calls the write method, asynchronously,
-	 * of the passed in networkTablesWriter. For this test, we do not care what the write
-	 * itself actually does.
+	 * Test that the ImageProcessor calls the write method of the passed in
+	 * networkTablesWriter when publishing. For this test, we do not care what
+	 * the write itself actually does.
 	 */
 	@Test
 	public void itShouldWriteToNetworkTables() {
@@ -52,13 +54,73 @@ public class ImageProcessorUnitTest
 		IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
 		INetworkTableWriter networkTableWriterMock = mock(INetworkTableWriter.class);
 		ImageProcessor imageProcessor = new ImageProcessor(pipelineMock, networkTableWriterMock);
+		HatchTargetFrame frame = HatchTargetFrame.empty(new Lifecam5000CameraParameters());
+
+		// Act
+		imageProcessor.publish(frame);
+
+		//Assert
+		verify(networkTableWriterMock, times(1)).write(frame);
+	}
+
+	/**
+	 * Test that the ImageProcessor interprets the processed pipeline once when
+	 * detecting, and that the interpreted frame is what gets written to network
+	 * tables when it is published.
+	 */
+	@Test
+	public void itShouldInterpretBeforeWritingToNetworkTables() {
+		// Assemble
+		IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
+		HatchTargetPipelineInterpreter interpreterMock = mock(HatchTargetPipelineInterpreter.class);
+		INetworkTableWriter networkTableWriterMock = mock(INetworkTableWriter.class);
+		CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+		HatchTargetFrame interpretedFrame = HatchTargetFrame.empty(cameraParameters);
+		when(interpreterMock.interpret()).thenReturn(interpretedFrame);
+		ImageProcessor imageProcessor = new ImageProcessor(pipelineMock, interpreterMock, networkTableWriterMock);
 		Mat emptyImage = new Mat();
 
 		// Act
-		imageProcessor.processAsync(emptyImage);
-		imageProcessor.awaitProcessCompletion();
+		HatchTargetFrame frame = imageProcessor.detect(emptyImage, cameraParameters);
+		imageProcessor.publish(frame);
 
 		//Assert
-		verify(networkTableWriterMock, times(1)).write();
+		InOrder inOrder = inOrder(pipelineMock, interpreterMock, networkTableWriterMock);
+		inOrder.verify(pipelineMock).process(emptyImage);
+		inOrder.verify(interpreterMock, times(1)).interpret();
+		inOrder.verify(networkTableWriterMock).write(interpretedFrame);
+		verify(networkTableWriterMock, never()).write();
+	}
+
+	/**
+	 * Test that detecting with a reduced rate profile only processes every
+	 * few frames, handing on the last targets in between, and that a profile
+	 * that does not detect processes nothing.
+	 */
+	@Test
+	public void itShouldDetectAsOftenAsTheProfileAsks() {
+		// Assemble
+		IHatchTargetPipeline pipelineMock = mock(IHatchTargetPipeline.class);
+		HatchTargetPipelineInterpreter interpreterMock = mock(HatchTargetPipelineInterpreter.class);
+		CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+		when(interpreterMock.interpret()).thenAnswer((invocation) -> HatchTargetFrame.empty(cameraParameters));
+		ImageProcessor imageProcessor = new ImageProcessor(pipelineMock, interpreterMock, null);
+		ProcessingProfile everyThirdFrame = new ProcessingProfile(true, 3, 0, true);
+		Mat emptyImage = new Mat();
+
+		// Act
+		HatchTargetFrame first = imageProcessor.detect(new PipelineFrame(emptyImage, cameraParameters, 1, 100, 1000), everyThirdFrame);
+		HatchTargetFrame second = imageProcessor.detect(new PipelineFrame(emptyImage, cameraParameters, 2, 200, 2000), everyThirdFrame);
+		imageProcessor.detect(new PipelineFrame(emptyImage, cameraParameters, 3, 300, 3000), everyThirdFrame);
+		HatchTargetFrame fourth = imageProcessor.detect(new PipelineFrame(emptyImage, cameraParameters, 4, 400, 4000), everyThirdFrame);
+		imageProcessor.detect(new PipelineFrame(emptyImage, cameraParameters, 5, 500, 5000), ProcessingProfile.NODETECTION);
+
+		// Assert
+		verify(pipelineMock, times(2)).process(emptyImage);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, second.getFrameNumber());
+		Assert.assertEquals(100, second.getCaptureTimestamp());
+		Assert.assertEquals(4, fourth.getFrameNumber());
+		Assert.assertEquals(4000, fourth.getGrabbedNanos());
 	}
-}
\ No newline at end of file
+}
@@ -101,4 +101,56 @@ public class ImagePumpUnitTest
         // Assert
         assertEquals(image.size(), mockedImage.size());
     }
+
+    /**
+     * Test that a pooled ImagePump grabs frames straight into Mats from the pool
+     * and that releasing a pumped image makes it available to be grabbed into again.
+     */
+    @Test
+    public void itPumpsIntoRecycledPoolMats() {
+        // Assemble
+        Mat mockedImage = Mat.ones(3, 3, CvType.CV_8U);
+        CvSink imageSinkMock = mock(CvSink.class);
+        doAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                Mat mat = (Mat) invocation.getArguments()[0];
+                mockedImage.copyTo(mat);
+                return 1L;
+            }
+        }).when(imageSinkMock).grabFrame(any(Mat.class));
+        MatPool matPool = new MatPool(1);
+        ImagePump imagePump = new ImagePump(imageSinkMock, matPool);
+
+        // Act
+        Mat firstImage = imagePump.pump();
+        imagePump.release(firstImage);
+        Mat secondImage = imagePump.pump();
+
+        // Assert
+        assertTrue(matPool.owns(firstImage));
+        assertSame(firstImage, secondImage);
+        assertEquals(mockedImage.size(), secondImage.size());
+    }
+
+    /**
+     * Test that a failed grab hands the leased Mat back to the pool and
+     * returns an empty image.
+     */
+    @Test
+    public void itReturnsPoolMatWhenGrabFails() {
+        // Assemble
+        CvSink imageSinkMock = mock(CvSink.class);
+        when(imageSinkMock.grabFrame(any(Mat.class))).thenReturn(0L);
+        MatPool matPool = new MatPool(1);
+        ImagePump imagePump = new ImagePump(imageSinkMock, matPool);
+
+        // Act
+        Mat image = imagePump.pump();
+
+        // Assert
+        assertTrue(image.empty());
+        assertFalse(matPool.owns(image));
+        assertEquals(1, matPool.available());
+    }
 }
@@ -0,0 +1,104 @@
+import java.util.Random;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that latency percentiles are read back within the precision of the
+ * buckets, and that recording from several threads at once loses nothing.
+ */
+public class LatencyHistogramUnitTest {
+  @Test
+  public void itShouldHaveNoGapsBetweenBuckets() {
+    for (int bucket = 0; bucket < 900; bucket++) {
+      long highest = LatencyHistogram.highestInBucket(bucket);
+      assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+      assertEquals(bucket + 1, LatencyHistogram.bucketOf(highest + 1));
+    }
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestInBucket(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void itShouldReportPercentilesWithinTheBucketPrecision() {
+    // Assemble 1 to 10000 microseconds
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 10000; micros++) {
+      histogram.record(micros * 1000);
+    }
+
+    // Act and Assert
+    assertEquals(10000, histogram.getCount());
+    assertEquals(10000000, histogram.getMax());
+    assertEquals(5000000, histogram.getPercentile(50), 5000000 / 16.0);
+    assertEquals(9900000, histogram.getPercentile(99), 9900000 / 16.0);
+    assertTrue(histogram.getPercentile(99) >= 9900000);
+    assertEquals(histogram.getMax(), histogram.getPercentile(100));
+  }
+
+  @Test
+  public void itShouldShowASingleHitchInTheTail() {
+    // Assemble 99 frames at 10ms and one at 200ms
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int frame = 0; frame < 99; frame++) {
+      histogram.record(10000000);
+    }
+    histogram.record(200000000);
+
+    // Act and Assert
+    assertEquals(10000000, histogram.getPercentile(99), 10000000 / 16.0);
+    assertEquals(200000000, histogram.getMax());
+  }
+
+  @Test
+  public void itShouldCountOnlyLatenciesSinceASnapshot() {
+    // Assemble
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(200000000);
+    histogram.record(1000);
+    LatencyHistogram snapshot = histogram.snapshot();
+    histogram.record(10000000);
+    histogram.record(10000000);
+
+    // Act
+    LatencyHistogram since = histogram.since(snapshot);
+
+    // Assert
+    assertEquals(2, snapshot.getCount());
+    assertEquals(2, since.getCount());
+    assertEquals(10000000, since.getPercentile(99), 10000000 / 16.0);
+    assertTrue(since.getMax() < 200000000);
+    // The histogram itself keeps counting everything
+    assertEquals(4, histogram.getCount());
+    assertEquals(200000000, histogram.getMax());
+    assertEquals(0, histogram.since(histogram.snapshot()).getPercentile(99));
+  }
+
+  @Test
+  public void itShouldCountEveryLatencyRecordedAtOnce() throws InterruptedException {
+    // Assemble
+    LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[4];
+    for (int thread = 0; thread < threads.length; thread++) {
+      long seed = thread;
+      threads[thread] = new Thread(() -> {
+        Random random = new Random(seed);
+        for (int sample = 0; sample < 100000; sample++) {
+          histogram.record(random.nextInt(1000000));
+        }
+      });
+    }
+
+    // Act
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // Assert
+    assertEquals(400000, histogram.getCount());
+    assertEquals(histogram.getMax(), histogram.getPercentile(100));
+  }
+}
@@ -0,0 +1,54 @@
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the MatPool recycles a fixed set of Mats.
+ */
+public class MatPoolUnitTest {
+    // This must be done in order to call opencv classes
+    static {
+        System.loadLibrary("opencv_java310");
+    }
+
+    @Test
+    public void itPreallocatesMatsToFrameSize() throws InterruptedException {
+        // Assemble
+        MatPool matPool = new MatPool(2, 480, 640, CvType.CV_8UC3);
+
+        // Act
+        Mat mat = matPool.lease();
+
+        // Assert
+        assertEquals(new Size(640, 480), mat.size());
+        assertEquals(CvType.CV_8UC3, mat.type());
+        assertEquals(1, matPool.available());
+    }
+
+    @Test
+    public void itRecyclesReleasedMats() throws InterruptedException {
+        // Assemble
+        MatPool matPool = new MatPool(1);
+
+        // Act
+        Mat first = matPool.lease();
+        matPool.release(first);
+        Mat second = matPool.lease();
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    public void itIgnoresMatsItDoesNotOwn() {
+        // Assemble
+        MatPool matPool = new MatPool(1);
+
+        // Act
+        matPool.release(new Mat());
+
+        // Assert
+        assertEquals(1, matPool.available());
+    }
+}
@@ -0,0 +1,86 @@
+import org.junit.*;
+
+import edu.wpi.first.wpilibj.tables.ITable;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that metrics are written to the metrics table and that each write
+ * covers only the latencies since the one before.
+ */
+public class MetricsPublisherUnitTest {
+  @Test
+  public void itShouldWriteStageLatenciesInMilliseconds() {
+    // Assemble
+    ITable metricsTableMock = mock(ITable.class);
+    StageLatencies stageLatencies = new StageLatencies();
+    for (int frame = 0; frame < 100; frame++) {
+      stageLatencies.record(StageLatencies.Stage.Threshold, 4000000);
+    }
+    MetricsPublisher metricsPublisher = new MetricsPublisher(metricsTableMock, stageLatencies, null);
+
+    // Act
+    metricsPublisher.publish();
+    metricsPublisher.publish();
+
+    // Assert
+    verify(metricsTableMock).putNumber("ThresholdP50Ms", 4D);
+    verify(metricsTableMock).putNumber("ThresholdP99Ms", 4D);
+    // Nothing was recorded in the second window
+    verify(metricsTableMock).putNumber("ThresholdP99Ms", 0D);
+    verify(metricsTableMock, times(2)).putNumber("FilterP99Ms", 0D);
+    verify(metricsTableMock, times(2)).putNumber(eq("HeapUsedMB"), anyDouble());
+    // The stage latencies still hold every latency for other readers
+    assertEquals(100, stageLatencies.getHistogram(StageLatencies.Stage.Threshold).getCount());
+  }
+
+  @Test
+  public void itShouldWriteDroppedFramesOnlyOfCamerasTakenFrom() {
+    // Assemble
+    ITable metricsTableMock = mock(ITable.class);
+    FrameGrabber frontFrameGrabberMock = mock(FrameGrabber.class);
+    FrameGrabber backFrameGrabberMock = mock(FrameGrabber.class);
+    when(frontFrameGrabberMock.getTakenFrames()).thenReturn(10L);
+    when(frontFrameGrabberMock.getDroppedFrames()).thenReturn(3L);
+    // Nobody takes from the back camera, so it drops everything it grabs
+    when(backFrameGrabberMock.getTakenFrames()).thenReturn(0L);
+    when(backFrameGrabberMock.getDroppedFrames()).thenReturn(12L);
+    MetricsPublisher metricsPublisher = new MetricsPublisher(metricsTableMock,
+      new StageLatencies(),
+      null,
+      frontFrameGrabberMock,
+      backFrameGrabberMock);
+
+    // Act
+    metricsPublisher.publish();
+    // Switch to taking from the back camera
+    when(frontFrameGrabberMock.getDroppedFrames()).thenReturn(20L);
+    when(backFrameGrabberMock.getTakenFrames()).thenReturn(5L);
+    when(backFrameGrabberMock.getDroppedFrames()).thenReturn(14L);
+    metricsPublisher.publish();
+
+    // Assert
+    verify(metricsTableMock).putNumber("DroppedFrames", 3D);
+    verify(metricsTableMock).putNumber("DroppedFrames", 5D);
+    verify(metricsTableMock, never()).putNumber(eq("RejectedPairs"), anyDouble());
+  }
+
+  @Test
+  public void itShouldWriteRejectedPairs() {
+    // Assemble
+    ITable metricsTableMock = mock(ITable.class);
+    PairValidationStatistics pairValidationStatistics = new PairValidationStatistics();
+    pairValidationStatistics.record(HatchTarget.PairValidation.TooFarApart);
+    pairValidationStatistics.record(HatchTarget.PairValidation.Valid);
+    MetricsPublisher metricsPublisher = new MetricsPublisher(metricsTableMock, new StageLatencies(), pairValidationStatistics);
+
+    // Act
+    metricsPublisher.publish();
+
+    // Assert
+    verify(metricsTableMock).putNumber("RejectedPairs", 1D);
+  }
+}
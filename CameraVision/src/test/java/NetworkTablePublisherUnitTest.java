@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import edu.wpi.first.wpilibj.tables.ITable;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that only changed values are put, that critical changes are flushed
+ * once and cosmetic ones are held back, and that subtables are looked up once.
+ */
+public class NetworkTablePublisherUnitTest {
+  private static final long NEVER = Long.MAX_VALUE / 2;
+
+  @Test
+  public void itShouldOnlyPutValuesThatChanged() {
+    // Assemble
+    ITable tableMock = mock(ITable.class);
+    NetworkTablePublisher publisher = new NetworkTablePublisher(tableMock, () -> { }, NEVER);
+    double[] angles = new double[] { 1, 2, 99 };
+
+    // Act
+    publisher.putNumber("targetCount", 2, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumber("targetCount", 2, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumber("targetCount", 3, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumberArray("hatchTargetAngles", angles, 2, NetworkTablePublisher.Priority.Critical);
+    angles[2] = 5;
+    publisher.putNumberArray("hatchTargetAngles", angles, 2, NetworkTablePublisher.Priority.Critical);
+
+    // Assert
+    verify(tableMock, times(1)).putNumber("targetCount", 2);
+    verify(tableMock, times(1)).putNumber("targetCount", 3);
+    verify(tableMock, times(1)).putNumberArray("hatchTargetAngles", new double[] { 1, 2 });
+  }
+
+  @Test
+  public void itShouldFlushOnlyWhenACriticalValueChanged() {
+    // Assemble
+    ITable tableMock = mock(ITable.class);
+    AtomicInteger flushes = new AtomicInteger();
+    NetworkTablePublisher publisher = new NetworkTablePublisher(tableMock, flushes::incrementAndGet, NEVER);
+
+    // Act and Assert
+    publisher.putBoolean("targetFound", true, NetworkTablePublisher.Priority.Critical);
+    publisher.putNumber("targetCount", 1, NetworkTablePublisher.Priority.Critical);
+    publisher.flush();
+    assertEquals(1, flushes.get());
+    publisher.putBoolean("targetFound", true, NetworkTablePublisher.Priority.Critical);
+    publisher.putStringArray("SelectableTargetTriggers", new String[] { "AButton" }, NetworkTablePublisher.Priority.Cosmetic);
+    publisher.flush();
+    assertEquals(1, flushes.get());
+  }
+
+  @Test
+  public void itShouldHoldBackCosmeticChangesUntilTheirPeriodIsUp() throws InterruptedException {
+    // Assemble
+    ITable tableMock = mock(ITable.class);
+    long periodNanos = 20000000;
+    NetworkTablePublisher publisher = new NetworkTablePublisher(tableMock, () -> { }, periodNanos);
+
+    // Act and Assert
+    publisher.putStringArray("SelectableTargetTriggers", new String[] { "AButton" }, NetworkTablePublisher.Priority.Cosmetic);
+    publisher.putStringArray("SelectableTargetTriggers", new String[] { "BButton" }, NetworkTablePublisher.Priority.Cosmetic);
+    publisher.putStringArray("SelectableTargetTriggers", new String[] { "XButton" }, NetworkTablePublisher.Priority.Cosmetic);
+    publisher.flush();
+    verify(tableMock, times(1)).putStringArray(eq("SelectableTargetTriggers"), any(String[].class));
+    Thread.sleep(periodNanos / 1000000 + 5);
+    publisher.flush();
+    verify(tableMock, times(1)).putStringArray("SelectableTargetTriggers", new String[] { "XButton" });
+    verify(tableMock, never()).putStringArray("SelectableTargetTriggers", new String[] { "BButton" });
+  }
+
+  @Test
+  public void itShouldLookUpSubTablesOnce() {
+    // Assemble
+    ITable tableMock = mock(ITable.class);
+    ITable subTableMock = mock(ITable.class);
+    when(tableMock.getSubTable("SelectedTarget")).thenReturn(subTableMock);
+    NetworkTablePublisher publisher = new NetworkTablePublisher(tableMock, () -> { }, NEVER);
+
+    // Act
+    publisher.getSubTable("SelectedTarget").putBoolean("Enabled", true, NetworkTablePublisher.Priority.Critical);
+    publisher.getSubTable("SelectedTarget").putBoolean("Enabled", false, NetworkTablePublisher.Priority.Critical);
+
+    // Assert
+    verify(tableMock, times(1)).getSubTable("SelectedTarget");
+    verify(subTableMock, times(1)).putBoolean("Enabled", true);
+    verify(subTableMock, times(1)).putBoolean("Enabled", false);
+  }
+}
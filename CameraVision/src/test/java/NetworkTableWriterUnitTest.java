@@ -1,5 +1,11 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import edu.wpi.first.wpilibj.networktables.*;
 import org.junit.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -67,4 +73,61 @@ public class NetworkTableWriterUnitTest {
         // Assert
         verify(networkTableMock, times(1)).putNumber(networkTableWriter.getTargetCountKey(), ballCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the target ranges are written with every change of the target
+     * count, so the robot never indexes ranges older than the count.
+     */
+    @Test
+    public void itWritesTargetRangesWithTheCount() {
+        // Assemble
+        HatchTarget hatchTargetMock = mock(HatchTarget.class);
+        when(hatchTargetMock.rangeInInches()).thenReturn(36D);
+        HatchTargetPipelineInterpreter interpreterMock = mock(HatchTargetPipelineInterpreter.class);
+        when(interpreterMock.getHatchTargets()).thenReturn(
+            new ArrayList<HatchTarget>(), 
+            new ArrayList<HatchTarget>(Arrays.asList(hatchTargetMock)));
+        when(interpreterMock.targetCount()).thenReturn(0L, 1L);
+
+        // Mock up a network table to write to
+        NetworkTable networkTableMock = mock(NetworkTable.class);
+
+        // Wire up class under test
+        NetworkTableWriter networkTableWriter = new NetworkTableWriter(interpreterMock, networkTableMock);
+
+        // Act
+        networkTableWriter.write();
+        networkTableWriter.write();
+
+        // Assert
+        verify(networkTableMock, times(1)).putNumber(networkTableWriter.getTargetCountKey(), 1);
+        verify(networkTableMock, times(1)).putNumberArray("hatchTargetRanges", new double[] {});
+        verify(networkTableMock, times(1)).putNumberArray("hatchTargetRanges", new double[] {36});
+    }
+
+    /**
+     * Test that the NetworkTableWriter class writes the frame number and latency
+     * of a captured frame, so the robot can tell how old the targets are.
+     */
+    @Test
+    public void itWritesFrameNumberAndLatencyOfCapturedFrame() {
+        // Assemble
+        CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+        HatchTargetFrame frame = HatchTargetFrame.empty(cameraParameters).withCapture(42, 1000, System.nanoTime());
+
+        // Mock up a network table to write to
+        NetworkTable networkTableMock = mock(NetworkTable.class);
+
+        // Wire up class under test
+        NetworkTableWriter networkTableWriter = new NetworkTableWriter(null, networkTableMock);
+
+        // Act
+        networkTableWriter.write(frame);
+
+        // Assert
+        verify(networkTableMock, times(1)).putNumber(networkTableWriter.getFrameNumberKey(), 42);
+        verify(networkTableMock, times(1)).putNumber("captureTimestampMicros", 1000);
+        verify(networkTableMock, times(1)).putNumber(eq(networkTableWriter.getLatencyMillisKey()), anyDouble());
+        verify(networkTableMock, times(1)).putRaw(eq(networkTableWriter.getTargetPacketKey()), any(byte[].class));
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that optimal pairing finds what greedy pairing does on clean frames,
+ * and does better when stray rectangles get in the way. Tapes are 2x5.5 inches
+ * at 20 pixels per inch.
+ */
+public class OptimalPairingStrategyUnitTest {
+  private final CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+
+  private void addLeftTape(CandidateRectangles candidates, double x, double y) {
+    candidates.add(x, y, 110, 40, -75.5);
+  }
+
+  private void addRightTape(CandidateRectangles candidates, double x, double y) {
+    candidates.add(x, y, 40, 110, -14.5);
+  }
+
+  private void addStray(CandidateRectangles candidates, double x, double y) {
+    candidates.add(x, y, 40, 110, -90);
+  }
+
+  private ArrayList<HatchTarget> pair(IPairingStrategy strategy, CandidateRectangles candidates) {
+    ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
+    strategy.pair(candidates, cameraParameters, new PairValidationStatistics(), hatchTargets);
+    return hatchTargets;
+  }
+
+  @Test
+  public void itShouldPairCleanFramesLikeGreedy() {
+    // Assemble
+    CandidateRectangles candidates = new CandidateRectangles();
+    addLeftTape(candidates, 50, 240);
+    addRightTape(candidates, 278.8, 240);
+    addLeftTape(candidates, 350, 240);
+    addRightTape(candidates, 578.8, 240);
+
+    // Act
+    ArrayList<HatchTarget> greedyTargets = pair(new GreedyPairingStrategy(), candidates);
+    ArrayList<HatchTarget> optimalTargets = pair(new OptimalPairingStrategy(), candidates);
+
+    // Assert
+    assertEquals(2, greedyTargets.size());
+    assertEquals(greedyTargets.size(), optimalTargets.size());
+    for (int index = 0; index < greedyTargets.size(); index++) {
+      assertEquals(greedyTargets.get(index).center(), optimalTargets.get(index).center());
+    }
+  }
+
+  @Test
+  public void itShouldPairAcrossAStrayRectangle() {
+    // Assemble
+    CandidateRectangles candidates = new CandidateRectangles();
+    addLeftTape(candidates, 205.6, 240);
+    addStray(candidates, 320, 200);
+    addRightTape(candidates, 434.4, 240);
+
+    // Act
+    ArrayList<HatchTarget> greedyTargets = pair(new GreedyPairingStrategy(), candidates);
+    ArrayList<HatchTarget> optimalTargets = pair(new OptimalPairingStrategy(), candidates);
+
+    // Assert
+    assertEquals(0, greedyTargets.size());
+    assertEquals(1, optimalTargets.size());
+    assertEquals(320, optimalTargets.get(0).center().x, 0.001);
+  }
+
+  @Test
+  public void itShouldPreferTheBetterScoringPair() {
+    // Assemble a second, lower left tape that greedy pairing settles for
+    CandidateRectangles candidates = new CandidateRectangles();
+    addLeftTape(candidates, 205.6, 240);
+    addLeftTape(candidates, 250, 260);
+    addRightTape(candidates, 434.4, 240);
+
+    // Act
+    ArrayList<HatchTarget> greedyTargets = pair(new GreedyPairingStrategy(), candidates);
+    ArrayList<HatchTarget> optimalTargets = pair(new OptimalPairingStrategy(), candidates);
+
+    // Assert
+    assertEquals(1, greedyTargets.size());
+    assertEquals(250, greedyTargets.get(0).center().y, 0.001);
+    assertEquals(1, optimalTargets.size());
+    assertEquals(240, optimalTargets.get(0).center().y, 0.001);
+  }
+
+  @Test
+  public void itShouldReuseItsArraysForBiggerFrames() {
+    // Assemble more rectangles than the initial capacity
+    OptimalPairingStrategy strategy = new OptimalPairingStrategy();
+    CandidateRectangles candidates = new CandidateRectangles();
+    for (int target = 0; target < 20; target++) {
+      addLeftTape(candidates, target * 300, 240);
+      addRightTape(candidates, (target * 300) + 228.8, 240);
+    }
+
+    // Act
+    ArrayList<HatchTarget> hatchTargets = pair(strategy, candidates);
+
+    // Assert
+    assertEquals(20, hatchTargets.size());
+    assertEquals(114.4, hatchTargets.get(0).center().x, 0.001);
+    assertEquals((19 * 300) + 114.4, hatchTargets.get(19).center().x, 0.001);
+  }
+}
@@ -0,0 +1,60 @@
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that pan angles are looked up at the time asked for, interpolating
+ * between the samples either side, and that old samples are forgotten.
+ */
+public class PanAngleHistoryUnitTest {
+  @Test
+  public void itShouldInterpolateBetweenSamples() {
+    // Assemble
+    PanAngleHistory panAngleHistory = new PanAngleHistory();
+    panAngleHistory.record(1000, 90);
+    panAngleHistory.record(2000, 100);
+    panAngleHistory.record(3000, 120);
+
+    // Act and Assert
+    assertEquals(90, panAngleHistory.angleAt(1000, 0), 1e-9);
+    assertEquals(95, panAngleHistory.angleAt(1500, 0), 1e-9);
+    assertEquals(115, panAngleHistory.angleAt(2750, 0), 1e-9);
+    assertEquals(120, panAngleHistory.angleAt(3000, 0), 1e-9);
+  }
+
+  @Test
+  public void itShouldHoldTheEndsOutsideTheSamples() {
+    // Assemble
+    PanAngleHistory panAngleHistory = new PanAngleHistory();
+    panAngleHistory.record(1000, 90);
+    panAngleHistory.record(2000, 100);
+
+    // Act and Assert
+    assertEquals(90, panAngleHistory.angleAt(500, 0), 1e-9);
+    assertEquals(100, panAngleHistory.angleAt(5000, 0), 1e-9);
+  }
+
+  @Test
+  public void itShouldReturnTheDefaultWhenNothingIsRecorded() {
+    assertEquals(90, new PanAngleHistory().angleAt(1000, 90), 1e-9);
+  }
+
+  @Test
+  public void itShouldForgetTheOldestSamplesOnceFull() {
+    // Assemble
+    PanAngleHistory panAngleHistory = new PanAngleHistory(4);
+    for (int sample = 1; sample <= 6; sample++) {
+      panAngleHistory.record(sample * 1000, sample * 10);
+    }
+
+    // Act and Assert, samples 1 and 2 are gone
+    assertEquals(30, panAngleHistory.angleAt(1000, 0), 1e-9);
+    assertEquals(35, panAngleHistory.angleAt(3500, 0), 1e-9);
+    assertEquals(60, panAngleHistory.angleAt(7000, 0), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void itShouldOnlyTakeAPowerOfTwoCapacity() {
+    new PanAngleHistory(6);
+  }
+}
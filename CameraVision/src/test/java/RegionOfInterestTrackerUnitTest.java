@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that the tracker narrows processing to the target being followed
+ * and goes back to the whole frame when it loses it.
+ */
+public class RegionOfInterestTrackerUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  private static final double PXPERINCH = 20;
+  private final CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+
+  /**
+   * Two 2x5.5 inch tapes tilted toward each other, 12 inches apart, centered on the frame.
+   */
+  private HatchTargetFrame frameWithTarget(long sequenceNumber) throws HatchTarget.TargetRectanglesException {
+    double left = (cameraParameters.getFOVPixelWidth() - toPx(16)) / 2;
+    double y = cameraParameters.getFOVPixelHeight() / 2;
+    RotatedRect leftRectangle = new RotatedRect(
+      new Point(left + toPx(2) + toPx(0.2796026292), y),
+      new Size(toPx(5.5), toPx(2)),
+      -75.5);
+    RotatedRect rightRectangle = new RotatedRect(
+      new Point(left + toPx(14) - toPx(0.2796026292), y),
+      new Size(toPx(2), toPx(5.5)),
+      -14.5);
+    ArrayList<RotatedRect> rectangles = new ArrayList<RotatedRect>();
+    rectangles.add(leftRectangle);
+    rectangles.add(rightRectangle);
+    ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
+    hatchTargets.add(new HatchTarget(leftRectangle, rightRectangle, cameraParameters));
+    return new HatchTargetFrame(sequenceNumber, cameraParameters, rectangles, hatchTargets);
+  }
+
+  private double toPx(double inches) {
+    return inches * PXPERINCH;
+  }
+
+  @Test
+  public void itProcessesTheWholeFrameWhenNotTracking() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+
+    // Act
+    tracker.update(frameWithTarget(1));
+
+    // Assert
+    assertNull(tracker.getRegionOfInterest(cameraParameters));
+  }
+
+  @Test
+  public void itFollowsTheTrackedTargetWithAMargin() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+    HatchTargetFrame frame = frameWithTarget(1);
+    HatchTarget hatchTarget = frame.getHatchTargets().get(0);
+    Rect targetBounds = hatchTarget.targetRectangle().boundingRect();
+
+    // Act
+    tracker.track(hatchTarget.center());
+    tracker.update(frame);
+    Rect regionOfInterest = tracker.getRegionOfInterest(cameraParameters);
+
+    // Assert
+    assertNotNull(regionOfInterest);
+    assertTrue(regionOfInterest.contains(targetBounds.tl()));
+    assertTrue(regionOfInterest.contains(new Point(targetBounds.br().x - 1, targetBounds.br().y - 1)));
+    assertTrue(regionOfInterest.area() < cameraParameters.getFOVPixelArea());
+    assertTrue(regionOfInterest.area() > targetBounds.area());
+  }
+
+  @Test
+  public void itFallsBackToTheWholeFrameAfterMisses() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+    HatchTargetFrame frame = frameWithTarget(1);
+    HatchTargetFrame emptyFrame = HatchTargetFrame.empty(cameraParameters);
+    tracker.track(frame.getHatchTargets().get(0).center());
+    tracker.update(frame);
+
+    // Act
+    for (int miss = 0; miss < 3; miss++) {
+      tracker.update(emptyFrame);
+    }
+    Rect regionAfterFewMisses = tracker.getRegionOfInterest(cameraParameters);
+    tracker.update(emptyFrame);
+    Rect regionAfterTooManyMisses = tracker.getRegionOfInterest(cameraParameters);
+
+    // Assert
+    assertNotNull(regionAfterFewMisses);
+    assertNull(regionAfterTooManyMisses);
+  }
+
+  @Test
+  public void itFollowsATrackedTargetToWhereItIsPredicted() throws HatchTarget.TargetRectanglesException {
+    // Assemble a target tracked over two frames
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+    HatchTargetTracker hatchTargetTracker = new HatchTargetTracker();
+    HatchTargetFrame first = hatchTargetTracker.update(frameWithTarget(1));
+    tracker.track(first.getTrackedTargets().get(0).getId());
+    HatchTargetFrame second = hatchTargetTracker.update(frameWithTarget(2));
+    Rect boundsSeen = second.getHatchTargets().get(0).targetRectangle().boundingRect();
+    TrackedTarget trackedTarget = second.getTrackedTargets().get(0);
+
+    // Act
+    tracker.update(second);
+    Rect regionOfInterest = tracker.getRegionOfInterest(cameraParameters);
+
+    // Assert the region is centered on the prediction
+    assertTrue(tracker.isTracking());
+    assertNotNull(regionOfInterest);
+    assertTrue(regionOfInterest.area() > boundsSeen.area());
+    assertEquals(trackedTarget.getPredictedCenter().y, regionOfInterest.y + (regionOfInterest.height / 2.0), 1);
+  }
+
+  @Test
+  public void itStopsFollowingATrackedTarget() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+    HatchTargetFrame frame = new HatchTargetTracker().update(frameWithTarget(1));
+    tracker.track(frame.getTrackedTargets().get(0).getId());
+    tracker.update(frame);
+
+    // Act
+    tracker.stopTracking();
+
+    // Assert
+    assertFalse(tracker.isTracking());
+    assertNull(tracker.getRegionOfInterest(cameraParameters));
+  }
+
+  @Test
+  public void itProcessesTheWholeFrameFromAnotherCamera() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    RegionOfInterestTracker tracker = new RegionOfInterestTracker();
+    HatchTargetFrame frame = frameWithTarget(1);
+    tracker.track(frame.getHatchTargets().get(0).center());
+    tracker.update(frame);
+
+    // Act
+    Rect regionOfInterest = tracker.getRegionOfInterest(new Lifecam5000CameraParameters());
+
+    // Assert
+    assertNull(regionOfInterest);
+  }
+}
@@ -75,6 +75,111 @@ public class RuntimeSettingsUnitTest
         assertEquals("localhost", settings.getNTHost());
     }
 
+    @Test
+    public void itShouldParsePyramidLevel()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "--pyramidlevel", "2"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertEquals(2, settings.getPyramidLevel());
+    }
+
+    @Test
+    public void itShouldErrorWithPyramidLevelOutOfRange()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "--pyramidlevel", "3"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertFalse(parseResult);
+        assertEquals("--pyramidlevel must be from 0 to 2.", settings.getParseErrorMessage());
+    }
+
+    @Test
+    public void itShouldParseLookupTable()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "-l"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertTrue(settings.getLookupTable());
+    }
+
+    @Test
+    public void itShouldParseOptimalPairing()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "-o"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertTrue(settings.getOptimalPairing());
+    }
+
+    @Test
+    public void itShouldParseSlopFactor()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "-s", "1.5"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertEquals(1.5, settings.getSlopFactor(), 0);
+    }
+
+    @Test
+    public void itShouldParseHudFps()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "-r", "10"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertEquals(10, settings.getHudFps(), 0);
+    }
+
+    @Test
+    public void itShouldParseHudAlways()
+    {
+        // Assemble
+        String[] argv = {"-t", "997", "-a"};
+        RuntimeSettings settings = new RuntimeSettings(argv);
+
+        // Act
+        boolean parseResult = settings.parse();
+
+        // Assert
+        assertTrue(parseResult);
+        assertTrue(settings.getHudAlways());
+    }
+
     @Test
     public void itShouldSpewUsageToSysout()
     {
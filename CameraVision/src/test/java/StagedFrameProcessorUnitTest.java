@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that frames flow through every stage in order and are released
+ * once the last stage is done with them.
+ */
+public class StagedFrameProcessorUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  @Test
+  public void itShouldRunEachFrameThroughEveryStageThenReleaseIt() throws InterruptedException {
+    // Assemble
+    CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+    HatchTargetFrame targets = HatchTargetFrame.empty(cameraParameters);
+    List<String> stagesRun = Collections.synchronizedList(new ArrayList<String>());
+    CountDownLatch released = new CountDownLatch(1);
+    AtomicInteger captures = new AtomicInteger();
+    StagedFrameProcessor stagedFrameProcessor = new StagedFrameProcessor(
+      () -> {
+        // Capture just the one frame
+        if (captures.getAndIncrement() == 0) {
+          stagesRun.add("capture");
+          return new PipelineFrame(new Mat(1, 1, CvType.CV_8UC3), cameraParameters);
+        } 
+        return new PipelineFrame(new Mat(), cameraParameters);
+      },
+      (frame) -> { stagesRun.add("detect"); return frame.withTargets(targets); },
+      (frame) -> { assertSame(targets, frame.getTargets()); stagesRun.add("publish"); },
+      (frame) -> { assertSame(targets, frame.getTargets()); stagesRun.add("annotate"); },
+      (frame) -> { 
+        if (!frame.isEmpty()) {
+          stagesRun.add("release"); 
+          released.countDown(); 
+        }
+      });
+
+    // Act
+    stagedFrameProcessor.start();
+    boolean done = released.await(5, TimeUnit.SECONDS);
+    stagedFrameProcessor.stop();
+
+    // Assert
+    assertTrue(done);
+    assertEquals(5, stagesRun.size());
+    assertEquals("capture", stagesRun.get(0));
+    assertEquals("detect", stagesRun.get(1));
+    assertEquals("publish", stagesRun.get(2));
+    assertEquals("annotate", stagesRun.get(3));
+    assertEquals("release", stagesRun.get(4));
+  }
+
+  @Test
+  public void itShouldReleaseEmptyCapturesWithoutDetectingThem() throws InterruptedException {
+    // Assemble
+    CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+    AtomicInteger detections = new AtomicInteger();
+    CountDownLatch released = new CountDownLatch(3);
+    StagedFrameProcessor stagedFrameProcessor = new StagedFrameProcessor(
+      () -> new PipelineFrame(new Mat(), cameraParameters),
+      (frame) -> { detections.incrementAndGet(); return frame; },
+      (frame) -> {},
+      (frame) -> {},
+      (frame) -> released.countDown());
+
+    // Act
+    stagedFrameProcessor.start();
+    boolean done = released.await(5, TimeUnit.SECONDS);
+    stagedFrameProcessor.stop();
+
+    // Assert
+    assertTrue(done);
+    assertEquals(0, detections.get());
+  }
+}
@@ -0,0 +1,105 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.*;
+import org.opencv.core.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that a target packet decodes to the frame it was encoded from, and
+ * that decoding copes with packets from a later version.
+ */
+public class TargetPacketUnitTest {
+  // This must be done in order to call opencv classes
+  static {
+    System.loadLibrary("opencv_java310");
+  }
+
+  private final CameraParameters cameraParameters = new Lifecam5000CameraParameters();
+
+  private HatchTarget target(double left, double y) throws HatchTarget.TargetRectanglesException {
+    return new HatchTarget(
+      new RotatedRect(new Point(left + 45.6, y), new Size(110, 40), -75.5),
+      new RotatedRect(new Point(left + 274.4, y), new Size(40, 110), -14.5),
+      cameraParameters);
+  }
+
+  @Test
+  public void itShouldDecodeWhatWasEncoded() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
+    hatchTargets.add(target(0, 240));
+    hatchTargets.add(target(330, 200));
+    HatchTargetFrame frame = new HatchTargetTracker()
+      .update(new HatchTargetFrame(1, cameraParameters, new ArrayList<RotatedRect>(), hatchTargets))
+      .withCapture(12, 345678, System.nanoTime());
+    TargetPacketEncoder encoder = new TargetPacketEncoder();
+
+    // Act
+    int length = encoder.encode(frame);
+    TargetPacket packet = TargetPacket.decode(Arrays.copyOf(encoder.getBytes(), length));
+
+    // Assert
+    assertEquals(TargetPacket.HEADERBYTES + (2 * TargetPacket.TARGETBYTES), length);
+    assertEquals(12, packet.getFrameNumber());
+    assertEquals(345678, packet.getCaptureTimestampMicros());
+    assertEquals(2, packet.getTargets().size());
+    for (int target = 0; target < 2; target++) {
+      HatchTarget hatchTarget = frame.getHatchTargets().get(target);
+      TargetPacket.Target decoded = packet.getTargets().get(target);
+      assertEquals(frame.getTrackedTarget(hatchTarget).getId(), decoded.getId());
+      assertEquals(hatchTarget.center().x, decoded.getCenterX(), 1e-3);
+      assertEquals(hatchTarget.center().y, decoded.getCenterY(), 1e-3);
+      assertEquals(hatchTarget.targetRectangle().size.width, decoded.getWidth(), 1e-3);
+      assertEquals(hatchTarget.rangeInInches(), decoded.getRangeInInches(), 1e-3);
+      assertEquals(hatchTarget.aspectAngleInRadians(), decoded.getAspectAngleInRadians(), 1e-6);
+    }
+  }
+
+  @Test
+  public void itShouldSkipFieldsAddedByALaterVersion() {
+    // Assemble a version 2 packet with a 4 byte field added to the header and each target
+    ByteBuffer buffer = ByteBuffer.allocate(TargetPacket.HEADERBYTES + 4 + TargetPacket.TARGETBYTES + 4);
+    buffer.put((byte) 2);
+    buffer.put((byte) (TargetPacket.HEADERBYTES + 4));
+    buffer.put((byte) (TargetPacket.TARGETBYTES + 4));
+    buffer.putLong(7);
+    buffer.putLong(1000);
+    buffer.putFloat(20);
+    buffer.putShort((short) 1);
+    buffer.putInt(99);
+    buffer.putInt(3);
+    buffer.putFloat(160);
+    buffer.putFloat(120);
+    buffer.putFloat(200);
+    buffer.putFloat(100);
+    buffer.putFloat(-5);
+    buffer.putFloat(48);
+    buffer.putFloat(0.25F);
+    buffer.putInt(99);
+
+    // Act
+    TargetPacket packet = TargetPacket.decode(buffer.array());
+
+    // Assert
+    assertEquals(7, packet.getFrameNumber());
+    assertEquals(20, packet.getLatencyMillis(), 1e-6);
+    assertEquals(3, packet.getTargets().get(0).getId());
+    assertEquals(48, packet.getTargets().get(0).getRangeInInches(), 1e-6);
+  }
+
+  @Test
+  public void itShouldRejectAPacketCutShort() throws HatchTarget.TargetRectanglesException {
+    // Assemble
+    TargetPacketEncoder encoder = new TargetPacketEncoder();
+    ArrayList<HatchTarget> hatchTargets = new ArrayList<HatchTarget>();
+    hatchTargets.add(target(0, 240));
+    int length = encoder.encode(new HatchTargetFrame(1, cameraParameters, new ArrayList<RotatedRect>(), hatchTargets));
+
+    // Act and Assert
+    assertThrows(IllegalArgumentException.class, () -> TargetPacket.decode(Arrays.copyOf(encoder.getBytes(), length - 1)));
+    assertThrows(IllegalArgumentException.class, () -> TargetPacket.decode(new byte[] { 0 }));
+  }
+}
@@ -0,0 +1,62 @@
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import edu.wpi.first.wpilibj.networktables.NetworkTable;
+import visionbenchmark.AnnotationOperations;
+
+/**
+ * Draws the HUD on a processed frame for AnnotationBenchmark.
+ */
+public class AnnotationFixture implements AnnotationOperations {
+  private static boolean networkTablesInitialized = false;
+  private Mat image;
+  private ImageAnnotator imageAnnotator;
+  private HeadsUpDisplay hud;
+
+  static {
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+  }
+
+  @Override
+  public void setUp(String imagePath) {
+    image = Imgcodecs.imread(imagePath);
+    if (image.empty()) {
+      throw new IllegalArgumentException(String.format("Could not read %s.", imagePath));
+    }
+    IHatchTargetPipeline pipeline = new HatchTargetPipelineLifecam();
+    pipeline.process(image);
+    HatchTargetPipelineInterpreter interpreter = new HatchTargetPipelineInterpreter(pipeline, new Lifecam5000CameraParameters());
+    interpreter.interpret();
+    imageAnnotator = new ImageAnnotator(interpreter);
+    hud = new HeadsUpDisplay(imageAnnotator, interpreter, getTable("Vision"), getTable("SmartDashboard"));
+  }
+
+  @Override
+  public Object annotate() {
+    imageAnnotator.beginAnnotation(image);
+    imageAnnotator.drawTargetingRectangles();
+    imageAnnotator.drawHatchTargetRectangles();
+    imageAnnotator.printTargetInfo(0);
+    return imageAnnotator.getCompletedAnnotation();
+  }
+
+  @Override
+  public Object updateHud() {
+    return hud.update(image);
+  }
+
+  /**
+   * The HUD writes to network tables. Run as a client of a server that
+   * is not there, so that writes stay local.
+   */
+  private static synchronized NetworkTable getTable(String key) {
+    if (!networkTablesInitialized) {
+      NetworkTable.setClientMode();
+      NetworkTable.setIPAddress("localhost");
+      NetworkTable.initialize();
+      networkTablesInitialized = true;
+    }
+    return NetworkTable.getTable(key);
+  }
+}
@@ -0,0 +1,50 @@
+import org.opencv.core.Core;
+import org.opencv.core.Point;
+import org.opencv.core.RotatedRect;
+import org.opencv.core.Size;
+
+import visionbenchmark.HatchTargetOperations;
+
+/**
+ * Holds a valid hatch target for HatchTargetBenchmark: two 2x5.5 inch
+ * tapes tilted toward each other, 12 inches apart at 20 pixels per inch.
+ */
+public class HatchTargetFixture implements HatchTargetOperations {
+  private static final double PXPERINCH = 20;
+  private HatchTarget hatchTarget;
+
+  static {
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+  }
+
+  @Override
+  public void setUp() {
+    RotatedRect leftRectangle = new RotatedRect(
+      new Point(toPx(2) + toPx(0.2796026292), 0),
+      new Size(toPx(5.5), toPx(2)),
+      -75.5);
+    RotatedRect rightRectangle = new RotatedRect(
+      new Point(toPx(14) - toPx(0.2796026292), 0),
+      new Size(toPx(2), toPx(5.5)),
+      -14.5);
+    try {
+      hatchTarget = new HatchTarget(leftRectangle, rightRectangle, new Lifecam5000CameraParameters());
+    } catch (HatchTarget.TargetRectanglesException e) {
+      throw new IllegalStateException("Benchmark hatch target is not valid.", e);
+    }
+  }
+
+  @Override
+  public double rangeInInches() {
+    return hatchTarget.rangeInInches();
+  }
+
+  @Override
+  public Object targetRectangle() {
+    return hatchTarget.targetRectangle();
+  }
+
+  private double toPx(double inches) {
+    return inches * PXPERINCH;
+  }
+}
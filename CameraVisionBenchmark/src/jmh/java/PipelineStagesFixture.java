@@ -0,0 +1,89 @@
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import visionbenchmark.PipelineStages;
+
+/**
+ * Runs the stages of a GRIP pipeline for PipelineStageBenchmark.
+ */
+public class PipelineStagesFixture implements PipelineStages {
+  private GripHatchTargetPipeline pipeline;
+  private HatchTargetPipelineInterpreter interpreter;
+  private Mat image;
+  private final Mat hsvThresholdOutput = new Mat();
+
+  static {
+    System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+  }
+
+  @Override
+  public void setUp(String pipelineClassName, String imagePath) {
+    image = Imgcodecs.imread(imagePath);
+    if (image.empty()) {
+      throw new IllegalArgumentException(String.format("Could not read %s.", imagePath));
+    }
+    try {
+      pipeline = (GripHatchTargetPipeline)Class.forName(pipelineClassName).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException(String.format("Could not create pipeline %s.", pipelineClassName), e);
+    }
+    // Run the whole pipeline once so each stage has real input
+    pipeline.process(image);
+    pipeline.hsvThresholdOutput().copyTo(hsvThresholdOutput);
+    interpreter = new HatchTargetPipelineInterpreter(pipeline, new Lifecam5000CameraParameters());
+  }
+
+  @Override
+  public void setPixelClassifier(String pixelClassifierClassName) {
+    try {
+      pipeline.setPixelClassifier((IPixelClassifier)Class.forName(pixelClassifierClassName).getDeclaredConstructor().newInstance());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException(String.format("Could not create pixel classifier %s.", pixelClassifierClassName), e);
+    }
+  }
+
+  @Override
+  public Object hsvThreshold() {
+    pipeline.processHsvThreshold(image);
+    return pipeline.hsvThresholdOutput();
+  }
+
+  @Override
+  public Object findContours() {
+    hsvThresholdOutput.copyTo(pipeline.hsvThresholdOutput());
+    pipeline.processFindContours();
+    return pipeline.findContoursOutput();
+  }
+
+  @Override
+  public Object filterContours() {
+    pipeline.processFilterContours();
+    return pipeline.filterContoursOutput();
+  }
+
+  @Override
+  public Object interpret() {
+    return interpreter.interpret();
+  }
+
+  @Override
+  public void setPairingStrategy(String pairingStrategyClassName) {
+    try {
+      interpreter.setPairingStrategy((IPairingStrategy)Class.forName(pairingStrategyClassName).getDeclaredConstructor().newInstance());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException(String.format("Could not create pairing strategy %s.", pairingStrategyClassName), e);
+    }
+  }
+
+  @Override
+  public void setPyramidLevel(int pyramidLevel) {
+    pipeline.setPyramidLevel(pyramidLevel);
+  }
+
+  @Override
+  public Object process() {
+    pipeline.process(image);
+    return pipeline.filterContoursOutput();
+  }
+}
@@ -0,0 +1,34 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time drawing the HUD on a processed frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnnotationBenchmark {
+  @Param({"1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg", "7.jpg", "8.jpg", "9.jpg"})
+  public String image;
+
+  private AnnotationOperations annotation;
+
+  @Setup
+  public void setUp() {
+    annotation = VisionFixtures.create("AnnotationFixture", AnnotationOperations.class);
+    annotation.setUp(VisionFixtures.testCase(image));
+  }
+
+  @Benchmark
+  public Object annotate() {
+    return annotation.annotate();
+  }
+
+  @Benchmark
+  public Object updateHud() {
+    return annotation.updateHud();
+  }
+}
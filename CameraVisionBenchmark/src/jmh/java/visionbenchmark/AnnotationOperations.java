@@ -0,0 +1,17 @@
+package visionbenchmark;
+
+/**
+ * Drawing the HUD on a processed frame.
+ */
+public interface AnnotationOperations {
+  /**
+   * Load and process a frame so there is something to annotate.
+   * 
+   * @param imagePath The frame to annotate.
+   */
+  void setUp(String imagePath);
+
+  Object annotate();
+
+  Object updateHud();
+}
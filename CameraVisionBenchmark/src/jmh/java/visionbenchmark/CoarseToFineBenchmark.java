@@ -0,0 +1,37 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time a whole GRIP pipeline at full resolution against finding candidates
+ * on a half or quarter resolution downsample first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoarseToFineBenchmark {
+  @Param({"HatchTargetPipelineLifecam", "Lifecam5000HatchTargetPipeline", "ELP550HatchTargetPipeline"})
+  public String pipeline;
+
+  @Param({"1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg", "7.jpg", "8.jpg", "9.jpg"})
+  public String image;
+
+  @Param({"0", "1", "2"})
+  public int pyramidLevel;
+
+  private PipelineStages stages;
+
+  @Setup
+  public void setUp() {
+    stages = VisionFixtures.create("PipelineStagesFixture", PipelineStages.class);
+    stages.setUp(pipeline, VisionFixtures.testCase(image));
+    stages.setPyramidLevel(pyramidLevel);
+  }
+
+  @Benchmark
+  public Object process() {
+    return stages.process();
+  }
+}
@@ -0,0 +1,32 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time the geometry the HUD and network table writer compute on
+ * each hatch target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HatchTargetBenchmark {
+  private HatchTargetOperations hatchTarget;
+
+  @Setup
+  public void setUp() {
+    hatchTarget = VisionFixtures.create("HatchTargetFixture", HatchTargetOperations.class);
+    hatchTarget.setUp();
+  }
+
+  @Benchmark
+  public double rangeInInches() {
+    return hatchTarget.rangeInInches();
+  }
+
+  @Benchmark
+  public Object targetRectangle() {
+    return hatchTarget.targetRectangle();
+  }
+}
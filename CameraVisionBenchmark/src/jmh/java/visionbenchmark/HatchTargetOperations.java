@@ -0,0 +1,12 @@
+package visionbenchmark;
+
+/**
+ * The geometry computed on an identified hatch target.
+ */
+public interface HatchTargetOperations {
+  void setUp();
+
+  double rangeInInches();
+
+  Object targetRectangle();
+}
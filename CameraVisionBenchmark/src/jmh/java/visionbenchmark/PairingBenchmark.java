@@ -0,0 +1,37 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time interpreting a frame with greedy pairing of target tapes against
+ * optimal pairing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PairingBenchmark {
+  @Param({"HatchTargetPipelineLifecam", "ELP550HatchTargetPipeline"})
+  public String pipeline;
+
+  @Param({"1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg", "7.jpg", "8.jpg", "9.jpg"})
+  public String image;
+
+  @Param({"GreedyPairingStrategy", "OptimalPairingStrategy"})
+  public String pairingStrategy;
+
+  private PipelineStages stages;
+
+  @Setup
+  public void setUp() {
+    stages = VisionFixtures.create("PipelineStagesFixture", PipelineStages.class);
+    stages.setUp(pipeline, VisionFixtures.testCase(image));
+    stages.setPairingStrategy(pairingStrategy);
+  }
+
+  @Benchmark
+  public Object interpret() {
+    return stages.interpret();
+  }
+}
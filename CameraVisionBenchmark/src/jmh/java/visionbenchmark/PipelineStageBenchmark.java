@@ -0,0 +1,52 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time each stage of the GRIP pipelines separately, and then the
+ * interpretation of the filtered contours into hatch targets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PipelineStageBenchmark {
+  @Param({"HatchTargetPipelineLifecam", "Lifecam5000HatchTargetPipeline", "ELP550HatchTargetPipeline"})
+  public String pipeline;
+
+  @Param({"1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg", "7.jpg", "8.jpg", "9.jpg"})
+  public String image;
+
+  private PipelineStages stages;
+
+  @Setup
+  public void setUp() {
+    stages = VisionFixtures.create("PipelineStagesFixture", PipelineStages.class);
+    stages.setUp(pipeline, VisionFixtures.testCase(image));
+  }
+
+  @Benchmark
+  public Object hsvThreshold() {
+    return stages.hsvThreshold();
+  }
+
+  /**
+   * Includes copying the thresholded frame back in, since opencv 3.1
+   * findContours modifies its input.
+   */
+  @Benchmark
+  public Object findContours() {
+    return stages.findContours();
+  }
+
+  @Benchmark
+  public Object filterContours() {
+    return stages.filterContours();
+  }
+
+  @Benchmark
+  public Object interpret() {
+    return stages.interpret();
+  }
+}
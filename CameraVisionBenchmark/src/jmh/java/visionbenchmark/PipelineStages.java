@@ -0,0 +1,41 @@
+package visionbenchmark;
+
+/**
+ * The stages of a hatch target pipeline, run one at a time on a frame.
+ */
+public interface PipelineStages {
+  /**
+   * Load a frame and run the whole pipeline once, so that every stage has
+   * the input it would see in a real frame.
+   * 
+   * @param pipelineClassName The GRIP pipeline to run.
+   * @param imagePath         The frame to run it on.
+   */
+  void setUp(String pipelineClassName, String imagePath);
+
+  /**
+   * Classify pixels in the HSV threshold stage with the given IPixelClassifier.
+   */
+  void setPixelClassifier(String pixelClassifierClassName);
+
+  Object hsvThreshold();
+
+  Object findContours();
+
+  Object filterContours();
+
+  Object interpret();
+
+  /**
+   * Pair rectangles into targets when interpreting with the given IPairingStrategy.
+   */
+  void setPairingStrategy(String pairingStrategyClassName);
+
+  /**
+   * Run the whole pipeline, finding candidates at the given pyramid level
+   * first, or at full resolution only for level 0.
+   */
+  void setPyramidLevel(int pyramidLevel);
+
+  Object process();
+}
@@ -0,0 +1,38 @@
+package visionbenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time the HSV threshold stage with the GRIP conversion to HSV against
+ * the BGR lookup table. The table is compiled during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PixelClassifierBenchmark {
+  @Param({"HatchTargetPipelineLifecam", "ELP550HatchTargetPipeline"})
+  public String pipeline;
+
+  @Param({"1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg", "7.jpg", "8.jpg", "9.jpg"})
+  public String image;
+
+  @Param({"HsvThresholdClassifier", "BgrLookupTableClassifier"})
+  public String classifier;
+
+  private PipelineStages stages;
+
+  @Setup
+  public void setUp() {
+    stages = VisionFixtures.create("PipelineStagesFixture", PipelineStages.class);
+    stages.setUp(pipeline, VisionFixtures.testCase(image));
+    stages.setPixelClassifier(classifier);
+    stages.hsvThreshold();
+  }
+
+  @Benchmark
+  public Object hsvThreshold() {
+    return stages.hsvThreshold();
+  }
+}
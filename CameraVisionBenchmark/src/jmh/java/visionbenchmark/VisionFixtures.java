@@ -0,0 +1,38 @@
+package visionbenchmark;
+
+import java.io.File;
+
+/**
+ * Helpers to reach the CameraVision classes, which live in the default package
+ * and so cannot be referenced from here by name.
+ */
+public final class VisionFixtures {
+  private VisionFixtures() {
+  }
+
+  /**
+   * Create a fixture implemented in the default package.
+   * 
+   * @param className The name of the implementing class.
+   * @param type      The interface it implements.
+   * @return          A new instance of the fixture.
+   */
+  public static <T> T create(String className, Class<T> type) {
+    try {
+      return Class.forName(className).asSubclass(type).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(String.format("Could not create fixture %s.", className), e);
+    }
+  }
+
+  /**
+   * Get the path to one of the bundled test case frames.
+   * 
+   * @param image The file name of the frame.
+   * @return      The full path to the frame.
+   */
+  public static String testCase(String image) {
+    String testCases = System.getProperty("vision.testCases", "../CameraVision/src/test/resource/test_cases");
+    return new File(testCases, image).getPath();
+  }
+}